@@ -0,0 +1,116 @@
+package com.app.bench;
+
+import com.app.model.CartItemDTO;
+import com.app.model.CartRequest;
+import com.app.model.OrderRequest;
+import com.app.model.RewardDetailDTO;
+import com.app.model.RewardsResponse;
+import com.app.model.SessionDTO;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Realistic payloads shared by the benchmarks. Everything is deterministic for a given size so runs compare.
+ */
+final class BenchmarkFixtures {
+
+    private BenchmarkFixtures() {
+    }
+
+    /**
+     * @param itemCount the number of cart lines
+     * @return cart lines with distinct SKUs, names of typical length and varying quantities
+     */
+    static List<CartItemDTO> cartItems(int itemCount) {
+        List<CartItemDTO> items = new ArrayList<>(itemCount);
+        for (int i = 0; i < itemCount; i++) {
+            items.add(CartItemDTO.builder()
+                    .sku(String.format("SKU-%06d", i * 7919 % 1_000_000))
+                    .name("Product " + i + " - Organic Cotton T-Shirt, Size M")
+                    .quantity(1 + i % 3)
+                    .price(4.99 + (i % 50))
+                    .build());
+        }
+        return items;
+    }
+
+    /**
+     * @param userId    the user ID
+     * @param itemCount the number of cart lines
+     * @return a cart with its total computed from the lines
+     */
+    static CartRequest cart(long userId, int itemCount) {
+        List<CartItemDTO> items = cartItems(itemCount);
+        double total = 0;
+        for (CartItemDTO item : items) {
+            total += item.getPrice() * item.getQuantity();
+        }
+        return CartRequest.builder().userId(userId).items(items).totalAmount(total).build();
+    }
+
+    /**
+     * @param userId    the user ID
+     * @param itemCount the number of cart lines
+     * @return an order for a cart of the given size
+     */
+    static OrderRequest order(long userId, int itemCount) {
+        return OrderRequest.builder().userId(userId).cart(cart(userId, itemCount)).build();
+    }
+
+    /**
+     * @param cart the cart to evaluate
+     * @return the session RewardsService would send for the cart
+     */
+    static SessionDTO session(CartRequest cart) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("channel", "web");
+        attributes.put("device", "mobile");
+        return SessionDTO.builder()
+                .sessionId(UUID.nameUUIDFromBytes(String.valueOf(cart.getUserId()).getBytes()).toString())
+                .userId(cart.getUserId().toString())
+                .items(cart.getItems())
+                .totalAmount(cart.getTotalAmount())
+                .sessionAttributes(attributes)
+                .build();
+    }
+
+    /**
+     * @param rewardCount the number of reward effects
+     * @return an evaluation result of typical shape
+     */
+    static RewardsResponse rewards(int rewardCount) {
+        List<RewardDetailDTO> rewards = new ArrayList<>(rewardCount);
+        for (int i = 0; i < rewardCount; i++) {
+            rewards.add(RewardDetailDTO.builder()
+                    .campaignName("Campaign " + i + " - Spring Sale")
+                    .type(i % 2 == 0 ? "DISCOUNT" : "LOYALTY_POINTS")
+                    .value(5.0 + i)
+                    .build());
+        }
+        return RewardsResponse.builder()
+                .discountAmount(12.5)
+                .rewards(rewards)
+                .appliedCoupons(List.of("SPRING10"))
+                .loyaltyPointsUsed(0)
+                .loyaltyPointsEarned(42)
+                .build();
+    }
+
+    /**
+     * Sets a field the application fills by {@code @Value} injection, for components built outside Spring.
+     */
+    static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException("Cannot set " + name + " on " + target.getClass().getSimpleName(), ex);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package com.app.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the benchmarks with the settings used for release-to-release comparisons: the GC profiler
+ * (allocation rate and bytes per operation) and JSON results, written to {@code jmh-result.json}
+ * unless {@code -rff} is given.
+ * <p>
+ * Accepts the standard JMH command line, e.g. {@code BenchmarkRunner SaveOrder -t 8 -rff build/save-order.json}.
+ * The JSON files can be compared across releases with any JMH result viewer or diffed by score.
+ * </p>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class)
+                .shouldFailOnError(true);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result("jmh-result.json");
+        }
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include("com\\.app\\.bench\\..*");
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,80 @@
+package com.app.bench;
+
+import com.app.model.CartRequest;
+import com.app.model.RewardsResponse;
+import com.app.model.SessionDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON (de)serialization of the DTOs on the rewards path: the cart posted by clients, the session sent to
+ * Talon.One and the evaluation result read back. Cart sizes cover a typical, a large and an outlier basket.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DtoSerdeBenchmark {
+
+    @Param({"5", "25", "100"})
+    private int cartSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private CartRequest cart;
+    private SessionDTO session;
+    private RewardsResponse rewards;
+    private byte[] cartJson;
+    private byte[] sessionJson;
+    private byte[] rewardsJson;
+
+    @Setup
+    public void setUp() throws Exception {
+        cart = BenchmarkFixtures.cart(42L, cartSize);
+        session = BenchmarkFixtures.session(cart);
+        // Larger carts tend to trigger more campaigns
+        rewards = BenchmarkFixtures.rewards(Math.max(1, cartSize / 5));
+        cartJson = objectMapper.writeValueAsBytes(cart);
+        sessionJson = objectMapper.writeValueAsBytes(session);
+        rewardsJson = objectMapper.writeValueAsBytes(rewards);
+    }
+
+    @Benchmark
+    public CartRequest readCartRequest() throws Exception {
+        return objectMapper.readValue(cartJson, CartRequest.class);
+    }
+
+    @Benchmark
+    public byte[] writeSession() throws Exception {
+        return objectMapper.writeValueAsBytes(session);
+    }
+
+    @Benchmark
+    public SessionDTO readSession() throws Exception {
+        return objectMapper.readValue(sessionJson, SessionDTO.class);
+    }
+
+    @Benchmark
+    public byte[] writeRewardsResponse() throws Exception {
+        return objectMapper.writeValueAsBytes(rewards);
+    }
+
+    @Benchmark
+    public RewardsResponse readRewardsResponse() throws Exception {
+        return objectMapper.readValue(rewardsJson, RewardsResponse.class);
+    }
+}
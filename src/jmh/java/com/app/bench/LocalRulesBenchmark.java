@@ -0,0 +1,84 @@
+package com.app.bench;
+
+import com.app.model.CampaignRule;
+import com.app.model.CampaignRuleType;
+import com.app.model.CartRequest;
+import com.app.model.RewardsResponse;
+import com.app.model.RulesSnapshot;
+import com.app.rules.LocalRulesEngine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.DefaultResourceLoader;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local evaluation of a cart by {@link LocalRulesEngine}, to compare with the Talon.One round trip measured by
+ * {@link TalonOneClientBenchmark}. The snapshot mixes threshold, SKU and loyalty campaigns; a quarter of the
+ * SKU campaigns name SKUs in the cart.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocalRulesBenchmark {
+
+    @Param({"5", "25", "100"})
+    private int cartSize;
+
+    @Param({"50", "500"})
+    private int ruleCount;
+
+    private LocalRulesEngine engine;
+    private CartRequest cart;
+
+    @Setup
+    public void setUp() {
+        cart = BenchmarkFixtures.cart(42L, cartSize);
+        List<String> cartSkus = new ArrayList<>();
+        cart.getItems().forEach(item -> cartSkus.add(item.getSku()));
+
+        List<CampaignRule> rules = new ArrayList<>(ruleCount);
+        for (int i = 0; i < ruleCount; i++) {
+            CampaignRule.CampaignRuleBuilder rule = CampaignRule.builder().campaignName("Campaign " + i);
+            switch (i % 4) {
+                case 0:
+                    rule.type(CampaignRuleType.CART_PERCENT).value(5).minTotal(i * 10.0);
+                    break;
+                case 1:
+                    rule.type(CampaignRuleType.CART_AMOUNT).value(2).minTotal(i * 10.0);
+                    break;
+                case 2:
+                    rule.type(CampaignRuleType.LOYALTY_POINTS).value(1).minTotal(i * 10.0);
+                    break;
+                default:
+                    String sku = i % 16 == 3 ? cartSkus.get(i % cartSkus.size()) : "OTHER-" + i;
+                    rule.type(CampaignRuleType.ITEM_PERCENT).value(10).skus(List.of(sku)).minQuantity(1);
+                    break;
+            }
+            rules.add(rule.build());
+        }
+        engine = new LocalRulesEngine(new DefaultResourceLoader(), new ObjectMapper(), "", Duration.ofDays(1));
+        engine.install(RulesSnapshot.builder().version("bench").rules(rules).build());
+    }
+
+    @Benchmark
+    public RewardsResponse evaluate() {
+        return engine.evaluate(cart);
+    }
+}
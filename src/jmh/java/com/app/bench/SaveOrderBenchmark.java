@@ -0,0 +1,120 @@
+package com.app.bench;
+
+import com.app.AppApplication;
+import com.app.model.Order;
+import com.app.model.OrderRequest;
+import com.app.model.RewardsResponse;
+import com.app.model.User;
+import com.app.repository.UserRepository;
+import com.app.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link OrderService#saveOrder} end to end through JPA: stats update, order and item inserts and the outbox
+ * insert, in one transaction, on the full application context without the web layer.
+ * <p>
+ * Runs against an in-memory H2 database in PostgreSQL mode by default. For numbers comparable to production,
+ * point it at a disposable PostgreSQL with {@code -Dbench.datasource.url=jdbc:postgresql://...}
+ * (plus {@code bench.datasource.username} / {@code bench.datasource.password}).
+ * Orders are spread over {@code users} users by {@value #THREADS} threads, so row locks on the stats update
+ * contend as they would in production; {@code users=1} is the worst case of one hot user, whose stats UPDATEs
+ * serialize on its row lock. {@code writeBehind} compares that per-order UPDATE with the write-behind accumulator
+ * ({@code users.stats.write-behind.enabled}), which takes the UPDATE off the order transaction.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SaveOrderBenchmark {
+
+    static final int THREADS = 8;
+
+    @Param({"3", "20"})
+    private int cartSize;
+
+    @Param({"1", "1000"})
+    private int users;
+
+    @Param({"false", "true"})
+    private boolean writeBehind;
+
+    private ConfigurableApplicationContext context;
+    private OrderService orderService;
+    private List<OrderRequest> orders;
+    private RewardsResponse rewards;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = application(writeBehind);
+        orderService = context.getBean(OrderService.class);
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        List<User> created = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            created.add(User.builder().email("bench" + i + "@example.com").name("Bench User " + i).build());
+        }
+        orders = new ArrayList<>(users);
+        for (User user : userRepository.saveAll(created)) {
+            orders.add(BenchmarkFixtures.order(user.getId(), cartSize));
+        }
+        rewards = BenchmarkFixtures.rewards(2);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(THREADS)
+    public Order saveOrder() {
+        return orderService.saveOrder(orders.get(ThreadLocalRandom.current().nextInt(orders.size())), rewards);
+    }
+
+    /**
+     * @param writeBehind whether order statistics are written behind
+     * @return the application context without the web layer and with Talon.One and the outbox poller idle
+     */
+    static ConfigurableApplicationContext application(boolean writeBehind) {
+        return new SpringApplicationBuilder(AppApplication.class)
+                .properties(
+                        "spring.main.web-application-type=none",
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=" + System.getProperty("bench.datasource.url",
+                                "jdbc:h2:mem:bench;MODE=PostgreSQL;DB_CLOSE_DELAY=-1"),
+                        "spring.datasource.username=" + System.getProperty("bench.datasource.username", "sa"),
+                        "spring.datasource.password=" + System.getProperty("bench.datasource.password", ""),
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.flyway.enabled=false",
+                        // saveOrder never calls Talon.One; keep the background jobs out of the measurement
+                        "talonone.base-url=http://127.0.0.1:9",
+                        "talonone.loyalty.outbox.poll-interval=3600000",
+                        "users.stats.write-behind.enabled=" + writeBehind,
+                        "tracing.exporter=none",
+                        "logging.level.root=WARN")
+                .run();
+    }
+}
@@ -0,0 +1,126 @@
+package com.app.bench;
+
+import com.app.model.ProfileDTO;
+import com.app.model.RewardsResponse;
+import com.app.model.SessionDTO;
+import com.app.talonone.AsyncTalonOneClient;
+import com.app.talonone.TalonOneClient;
+import com.app.talonone.TalonOneJsonCodec;
+import com.app.talonone.TalonOneMetrics;
+import com.app.talonone.TalonOneResilience;
+import com.app.talonone.TalonOneScheduler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request serialization, transport over loopback HTTP and response parsing of the Talon.One clients,
+ * against a {@link TalonOneStubServer} returning canned payloads. The scheduler, resilience layer and metrics are
+ * in the path as in production; the scheduler has no request budget and hedging is off, so every operation is
+ * exactly one exchange.
+ * <p>
+ * Run with {@code -t N} to measure the clients under N concurrent callers.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TalonOneClientBenchmark {
+
+    @Param({"5", "25"})
+    private int cartSize;
+
+    private TalonOneStubServer stub;
+    private TalonOneScheduler scheduler;
+    private TalonOneClient client;
+    private AsyncTalonOneClient asyncClient;
+    private SessionDTO session;
+    private ProfileDTO profile;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        stub = new TalonOneStubServer(objectMapper.writeValueAsBytes(BenchmarkFixtures.rewards(3)), 16);
+
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(2))
+                .build();
+        TalonOneResilience resilience = new TalonOneResilience(100, 20, 0.5, Duration.ofSeconds(2),
+                Duration.ofSeconds(10), 5, 1024, 64, Duration.ofSeconds(1), false, Duration.ofMillis(300), 0.95,
+                0.05, new TalonOneMetrics(new SimpleMeterRegistry()));
+
+        scheduler = TalonOneSchedulerBenchmark.scheduler(0);
+
+        TalonOneJsonCodec codec = new TalonOneJsonCodec(objectMapper, 256, 65536);
+
+        client = new TalonOneClient(new RestTemplate(new JdkClientHttpRequestFactory(httpClient)), resilience,
+                scheduler, codec);
+        BenchmarkFixtures.setField(client, "baseUrl", stub.baseUrl());
+        BenchmarkFixtures.setField(client, "apiKey", "bench-key");
+
+        asyncClient = new AsyncTalonOneClient(httpClient, codec, resilience, scheduler, ObservationRegistry.NOOP,
+                256, 4096);
+        BenchmarkFixtures.setField(asyncClient, "baseUrl", stub.baseUrl());
+        BenchmarkFixtures.setField(asyncClient, "apiKey", "bench-key");
+        BenchmarkFixtures.setField(asyncClient, "batchProfilesPath", "/v2/customer_profiles");
+        BenchmarkFixtures.setField(asyncClient, "updateProfileTimeout", Duration.ofSeconds(5));
+        BenchmarkFixtures.setField(asyncClient, "evaluateSessionTimeout", Duration.ofSeconds(5));
+        BenchmarkFixtures.setField(asyncClient, "confirmLoyaltyTimeout", Duration.ofSeconds(5));
+
+        session = BenchmarkFixtures.session(BenchmarkFixtures.cart(42L, cartSize));
+        profile = ProfileDTO.builder()
+                .userId("42")
+                .attributes(Map.of("name", "Bench User", "email", "bench@example.com", "totalOrders", 17))
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        stub.close();
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public RewardsResponse evaluateSessionBlocking() {
+        return client.evaluateSession(session);
+    }
+
+    @Benchmark
+    public RewardsResponse evaluateSessionAsync() {
+        return asyncClient.evaluateSession(session).join();
+    }
+
+    @Benchmark
+    public void updateProfileBlocking() {
+        client.updateProfile("42", profile);
+    }
+
+    @Benchmark
+    public Void updateProfileAsync() {
+        return asyncClient.updateProfile("42", profile).join();
+    }
+}
@@ -0,0 +1,99 @@
+package com.app.bench;
+
+import com.app.model.ProfileDTO;
+import com.app.model.RewardsResponse;
+import com.app.model.SessionDTO;
+import com.app.talonone.TalonOneJsonCodec;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Talon.One request and response bodies written and read by {@link TalonOneJsonCodec}, next to the
+ * {@link ObjectMapper} data binding and {@code String.format} the clients used before. Run with {@code -prof gc}
+ * (the default of {@link BenchmarkRunner}) and compare {@code gc.alloc.rate.norm} of each pair.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TalonOneCodecBenchmark {
+
+    @Param({"5", "25", "100"})
+    private int cartSize;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final TalonOneJsonCodec codec = new TalonOneJsonCodec(objectMapper, 256, 65536);
+
+    private SessionDTO session;
+    private ProfileDTO profile;
+    private byte[] rewardsJson;
+    private double totalAmount;
+    private String idempotencyKey = "loyalty-1";
+
+    @Setup
+    public void setUp() throws Exception {
+        session = BenchmarkFixtures.session(BenchmarkFixtures.cart(42L, cartSize));
+        profile = ProfileDTO.builder()
+                .userId("42")
+                .attributes(Map.of("name", "Bench User", "email", "bench@example.com", "totalOrders", 17))
+                .build();
+        rewardsJson = objectMapper.writeValueAsBytes(BenchmarkFixtures.rewards(Math.max(1, cartSize / 5)));
+        totalAmount = session.getTotalAmount();
+    }
+
+    @Benchmark
+    public byte[] bindingWriteSession() throws Exception {
+        return objectMapper.writeValueAsBytes(session);
+    }
+
+    @Benchmark
+    public byte[] codecWriteSession() {
+        return codec.writeSession(session);
+    }
+
+    @Benchmark
+    public byte[] bindingWriteProfile() throws Exception {
+        return objectMapper.writeValueAsBytes(profile);
+    }
+
+    @Benchmark
+    public byte[] codecWriteProfile() {
+        return codec.writeProfile(profile);
+    }
+
+    @Benchmark
+    public byte[] bindingWriteLoyaltyConfirmation() {
+        return String.format("{\"idempotencyKey\": \"%s\", \"totalAmount\": %s}", idempotencyKey, totalAmount).getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public byte[] codecWriteLoyaltyConfirmation() {
+        return codec.writeLoyaltyConfirmation(idempotencyKey, totalAmount);
+    }
+
+    @Benchmark
+    public RewardsResponse bindingReadRewards() throws Exception {
+        return objectMapper.readValue(rewardsJson, RewardsResponse.class);
+    }
+
+    @Benchmark
+    public RewardsResponse codecReadRewards() {
+        return codec.readRewards(rewardsJson);
+    }
+}
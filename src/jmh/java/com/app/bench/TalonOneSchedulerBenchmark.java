@@ -0,0 +1,73 @@
+package com.app.bench;
+
+import com.app.talonone.TalonOnePriority;
+import com.app.talonone.TalonOneScheduler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Admission overhead {@link TalonOneScheduler} adds to every Talon.One call while the budget has room, without
+ * a budget ({@code 0}) and with one far above the offered rate, so every call takes the token bucket path but
+ * none waits. Run with {@code -t N} to see the cost of the shared lock under N concurrent callers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TalonOneSchedulerBenchmark {
+
+    private static final CompletableFuture<String> RESPONSE = CompletableFuture.completedFuture("ok");
+
+    @Param({"0", "1000000000"})
+    private double permitsPerSecond;
+
+    private TalonOneScheduler scheduler;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        scheduler = scheduler(permitsPerSecond);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scheduler.shutdown();
+    }
+
+    @Benchmark
+    public String admitBlocking() {
+        return scheduler.call(TalonOnePriority.CHECKOUT, () -> "ok");
+    }
+
+    @Benchmark
+    public String admitAsync() {
+        return scheduler.submit(TalonOnePriority.BROWSE, () -> RESPONSE).join();
+    }
+
+    /**
+     * @param permitsPerSecond the request budget; 0 for none
+     * @return a scheduler with the default weights and waits
+     */
+    static TalonOneScheduler scheduler(double permitsPerSecond) {
+        return new TalonOneScheduler(permitsPerSecond, 1000, 1000, 1, Duration.ofSeconds(1), Duration.ofSeconds(60),
+                8, 4, 1, 1, 1, Duration.ofSeconds(2), Duration.ofSeconds(5), Duration.ofMillis(500),
+                Duration.ofSeconds(10), Duration.ofSeconds(60), new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,69 @@
+package com.app.bench;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Minimal local stand-in for the Talon.One Integration API: session evaluations get a canned
+ * {@code RewardsResponse} payload, profile updates and loyalty confirmations an empty 204.
+ * Request bodies are drained so connections are reused as with the real API.
+ */
+final class TalonOneStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+
+    /**
+     * Starts the server on an ephemeral loopback port.
+     *
+     * @param rewardsJson the body returned for session evaluations
+     * @param threads     the number of server threads
+     * @throws IOException if the server cannot be bound
+     */
+    TalonOneStubServer(byte[] rewardsJson, int threads) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+        executor = Executors.newFixedThreadPool(threads);
+        server.setExecutor(executor);
+        server.createContext("/v1/sessions", exchange -> respond(exchange, 200, rewardsJson));
+        server.createContext("/v1/profiles/", exchange -> respond(exchange, 204, null));
+        server.createContext("/v2/customer_profiles", exchange -> respond(exchange, 204, null));
+        server.createContext("/v1/loyalty/", exchange -> respond(exchange, 204, null));
+        server.start();
+    }
+
+    /**
+     * @return the base URL to configure as {@code talonone.base-url}
+     */
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private static void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,84 @@
+package com.app.bench;
+
+import com.app.model.User;
+import com.app.repository.UserRepository;
+import com.app.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The order statistics write alone, per-order UPDATE ({@code writeBehind=false}) against the write-behind
+ * accumulator ({@code writeBehind=true}), by {@value SaveOrderBenchmark#THREADS} threads on one hot user or spread
+ * over many. Each operation is one committed transaction counting one order, as in {@code OrderService.saveOrder}
+ * without the order and item inserts, so the row lock on the user is the only contention.
+ * <p>
+ * With one hot user the per-order path serializes on that row; the write-behind path only adds to in-memory cells
+ * and leaves one batched UPDATE per flush interval. The same database options as {@link SaveOrderBenchmark} apply;
+ * H2 locks rows differently from PostgreSQL, so compare the two modes on PostgreSQL before drawing conclusions.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class UserStatsBenchmark {
+
+    @Param({"1", "1000"})
+    private int users;
+
+    @Param({"false", "true"})
+    private boolean writeBehind;
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private TransactionTemplate transactionTemplate;
+    private long[] userIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = SaveOrderBenchmark.application(writeBehind);
+        userService = context.getBean(UserService.class);
+        transactionTemplate = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        List<User> created = new ArrayList<>(users);
+        for (int i = 0; i < users; i++) {
+            created.add(User.builder().email("stats" + i + "@example.com").name("Stats User " + i).build());
+        }
+        userIds = userRepository.saveAll(created).stream().mapToLong(User::getId).toArray();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Threads(SaveOrderBenchmark.THREADS)
+    public Boolean incrementOrderStats() {
+        long userId = userIds[ThreadLocalRandom.current().nextInt(userIds.length)];
+        return transactionTemplate.execute(status -> userService.incrementOrderStats(userId, 42.5));
+    }
+}
@@ -0,0 +1,86 @@
+package com.app.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Injectable response latency for the {@link TalonOneSimulator}, parsed from a compact spec (all values in ms):
+ * <ul>
+ *     <li>{@code fixed:20} - always 20 ms</li>
+ *     <li>{@code uniform:10:50} - uniformly between 10 and 50 ms</li>
+ *     <li>{@code exponential:30} - exponential with a 30 ms mean</li>
+ *     <li>{@code lognormal:20:0.8} - log-normal with a 20 ms median and shape (sigma) 0.8; a realistic long tail</li>
+ * </ul>
+ * Any spec may end with {@code :spike=P:MS} to add MS on top with probability P, e.g. GC pauses or cold caches.
+ */
+public final class LatencyDistribution {
+
+    private enum Kind { FIXED, UNIFORM, EXPONENTIAL, LOGNORMAL }
+
+    private final Kind kind;
+    private final double a;
+    private final double b;
+    private final double spikeProbability;
+    private final double spikeMillis;
+
+    private LatencyDistribution(Kind kind, double a, double b, double spikeProbability, double spikeMillis) {
+        this.kind = kind;
+        this.a = a;
+        this.b = b;
+        this.spikeProbability = spikeProbability;
+        this.spikeMillis = spikeMillis;
+    }
+
+    /**
+     * @param spec the distribution spec, see the class comment
+     * @return the parsed distribution
+     * @throws IllegalArgumentException if the spec is malformed
+     */
+    public static LatencyDistribution parse(String spec) {
+        String[] parts = spec.split(":");
+        double spikeProbability = 0;
+        double spikeMillis = 0;
+        int length = parts.length;
+        if (length >= 3 && parts[length - 2].startsWith("spike=")) {
+            spikeProbability = Double.parseDouble(parts[length - 2].substring("spike=".length()));
+            spikeMillis = Double.parseDouble(parts[length - 1]);
+            length -= 2;
+        }
+        try {
+            Kind kind = Kind.valueOf(parts[0].toUpperCase());
+            double a = length > 1 ? Double.parseDouble(parts[1]) : 0;
+            double b = length > 2 ? Double.parseDouble(parts[2]) : 0;
+            if (length < 2 || ((kind == Kind.UNIFORM || kind == Kind.LOGNORMAL) && length != 3)) {
+                throw new IllegalArgumentException("Wrong number of parameters in latency spec: " + spec);
+            }
+            return new LatencyDistribution(kind, a, b, spikeProbability, spikeMillis);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Invalid latency spec '" + spec + "': " + ex.getMessage(), ex);
+        }
+    }
+
+    /**
+     * @return the next latency sample in nanoseconds
+     */
+    public long nextNanos() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double millis;
+        switch (kind) {
+            case UNIFORM:
+                millis = a + random.nextDouble() * (b - a);
+                break;
+            case EXPONENTIAL:
+                millis = -a * Math.log(1 - random.nextDouble());
+                break;
+            case LOGNORMAL:
+                millis = a * Math.exp(b * random.nextGaussian());
+                break;
+            case FIXED:
+            default:
+                millis = a;
+        }
+        if (spikeProbability > 0 && random.nextDouble() < spikeProbability) {
+            millis += spikeMillis;
+        }
+        return (long) (millis * 1_000_000);
+    }
+}
@@ -0,0 +1,83 @@
+package com.app.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent log-linear latency histogram in microseconds, in the style of HdrHistogram: values below 1024 us are
+ * exact, larger values are bucketed with 512 sub-buckets per power of two (under 0.2% relative error).
+ * Recording is lock-free and allocation-free.
+ */
+final class LatencyHistogram {
+
+    private static final int LINEAR = 1024;
+    private static final int SUB_BUCKETS = 512;
+    private static final int MAX_SHIFT = 32;
+
+    private final AtomicLongArray counts = new AtomicLongArray(LINEAR + MAX_SHIFT * SUB_BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * @param micros the latency to record
+     */
+    void record(long micros) {
+        long value = Math.max(0, micros);
+        counts.incrementAndGet(index(value));
+        total.increment();
+        max.accumulate(value);
+    }
+
+    /**
+     * @return the number of recorded values
+     */
+    long count() {
+        return total.sum();
+    }
+
+    /**
+     * @return the largest recorded value
+     */
+    long max() {
+        return max.get();
+    }
+
+    /**
+     * @param quantile the quantile, 0..1
+     * @return the value at the quantile, as the upper bound of its bucket
+     */
+    long valueAt(double quantile) {
+        long count = count();
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.min(upperBound(i), max());
+            }
+        }
+        return max();
+    }
+
+    private static int index(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int shift = Math.min(63 - Long.numberOfLeadingZeros(value) - 9, MAX_SHIFT);
+        long sub = Math.min(value >>> shift, 2L * SUB_BUCKETS - 1);
+        return LINEAR + (shift - 1) * SUB_BUCKETS + (int) (sub - SUB_BUCKETS);
+    }
+
+    private static long upperBound(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int shift = (index - LINEAR) / SUB_BUCKETS + 1;
+        long sub = (index - LINEAR) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,330 @@
+package com.app.loadtest;
+
+import com.app.model.CartItemDTO;
+import com.app.model.CartRequest;
+import com.app.model.OrderRequest;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Open-model load generator for {@code POST /rewards/evaluate} and {@code POST /orders}.
+ * <p>
+ * Requests are started on a fixed schedule ({@code --rate} per second, split by {@code --mix}) regardless of how
+ * fast earlier requests complete, as real users arrive independently of each other. Latency is reported twice:
+ * <ul>
+ *     <li><b>corrected</b> - measured from the request's intended start time, so time a request would have spent
+ *     waiting behind a stalled server or a late generator is counted (coordinated-omission correction)</li>
+ *     <li><b>service</b> - measured from the actual send, for comparison only</li>
+ * </ul>
+ * Requests beyond {@code --max-in-flight} are not sent and are reported as dropped: the system under test could not
+ * keep up with the offered load. Dropped requests, and requests still unanswered when the drain after the run times
+ * out, are counted as errors in the corrected latency at the time they were given up, so an overloaded run cannot
+ * look faster by leaving its slowest requests out. Throughput is reported for all responses and for successful ones.
+ * </p>
+ * <pre>
+ *     LoadGenerator --target=http://127.0.0.1:8080 --rate=500 --mix=evaluate:0.8,order:0.2 \
+ *                   --duration=120s --warmup=20s --users=1-10000 --cart-size=5 --out=result.json
+ * </pre>
+ */
+public final class LoadGenerator {
+
+    private enum Scenario {
+        EVALUATE("/rewards/evaluate"),
+        ORDER("/orders");
+
+        final String path;
+
+        Scenario(String path) {
+            this.path = path;
+        }
+    }
+
+    private static final int BODIES_PER_SCENARIO = 1024;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final String target;
+    private final double rate;
+    private final Map<Scenario, Double> mix;
+    private final long durationNanos;
+    private final long warmupNanos;
+    private final long firstUserId;
+    private final long lastUserId;
+    private final int cartSize;
+    private final Duration timeout;
+    private final int maxInFlight;
+
+    private final Map<Scenario, ScenarioStats> stats = new EnumMap<>(Scenario.class);
+    private final Map<Scenario, List<byte[]>> bodies = new EnumMap<>(Scenario.class);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder timedOut = new LongAdder();
+    // Measured requests sent and not yet recorded
+    private final Set<SentRequest> unanswered = ConcurrentHashMap.newKeySet();
+
+    private LoadGenerator(Map<String, String> options) {
+        this.target = options.getOrDefault("target", "http://127.0.0.1:8080");
+        this.rate = Double.parseDouble(options.getOrDefault("rate", "100"));
+        this.mix = parseMix(options.getOrDefault("mix", "evaluate:0.8,order:0.2"));
+        this.durationNanos = Duration.parse("PT" + options.getOrDefault("duration", "60s")).toNanos();
+        this.warmupNanos = Duration.parse("PT" + options.getOrDefault("warmup", "10s")).toNanos();
+        String[] users = options.getOrDefault("users", "1-1000").split("-");
+        this.firstUserId = Long.parseLong(users[0]);
+        this.lastUserId = Long.parseLong(users[1]);
+        this.cartSize = Integer.parseInt(options.getOrDefault("cart-size", "5"));
+        this.timeout = Duration.parse("PT" + options.getOrDefault("timeout", "30s"));
+        this.maxInFlight = Integer.parseInt(options.getOrDefault("max-in-flight", "10000"));
+        for (Scenario scenario : Scenario.values()) {
+            stats.put(scenario, new ScenarioStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTestOptions.parse(args);
+        LoadGenerator generator = new LoadGenerator(options);
+        Map<String, Object> report = generator.run();
+        System.out.println(generator.objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(report));
+        if (options.containsKey("out")) {
+            generator.objectMapper.enable(SerializationFeature.INDENT_OUTPUT)
+                    .writeValue(new File(options.get("out")), report);
+        }
+    }
+
+    private Map<String, Object> run() throws Exception {
+        prepareBodies();
+        ExecutorService responseExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(responseExecutor)
+                .build();
+
+        long intervalNanos = (long) (1_000_000_000L / rate);
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureStart = start + warmupNanos;
+        long end = measureStart + durationNanos;
+        int[] cursor = new int[Scenario.values().length];
+
+        for (long i = 0; ; i++) {
+            long intended = start + i * intervalNanos;
+            if (intended >= end) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean measured = intended >= measureStart;
+            Scenario scenario = pick();
+            if (inFlight.get() >= maxInFlight) {
+                if (measured) {
+                    dropped.increment();
+                    stats.get(scenario).recordUnanswered((System.nanoTime() - intended) / 1000);
+                }
+                continue;
+            }
+            List<byte[]> scenarioBodies = bodies.get(scenario);
+            byte[] body = scenarioBodies.get(cursor[scenario.ordinal()]++ % scenarioBodies.size());
+            HttpRequest request = HttpRequest.newBuilder(URI.create(target + scenario.path))
+                    .timeout(timeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofByteArray(body))
+                    .build();
+
+            inFlight.incrementAndGet();
+            SentRequest sent = new SentRequest(scenario, intended, System.nanoTime());
+            if (measured) {
+                unanswered.add(sent);
+            }
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                long completed = System.nanoTime();
+                inFlight.decrementAndGet();
+                if (measured && sent.finish()) {
+                    unanswered.remove(sent);
+                    boolean ok = error == null && response.statusCode() / 100 == 2;
+                    stats.get(scenario).record(ok, (completed - intended) / 1000, (completed - sent.sentAt) / 1000);
+                }
+            });
+        }
+
+        long drainDeadline = System.nanoTime() + timeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        // Whatever is still outstanding counts as failed at the time the run gave up on it
+        long givenUp = System.nanoTime();
+        for (SentRequest sent : unanswered) {
+            if (sent.finish()) {
+                timedOut.increment();
+                stats.get(sent.scenario).recordUnanswered((givenUp - sent.intended) / 1000);
+            }
+        }
+        responseExecutor.shutdownNow();
+        return report(TimeUnit.NANOSECONDS.toMillis(durationNanos) / 1000.0);
+    }
+
+    private void prepareBodies() throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (Scenario scenario : Scenario.values()) {
+            List<byte[]> list = new ArrayList<>(BODIES_PER_SCENARIO);
+            for (int i = 0; i < BODIES_PER_SCENARIO; i++) {
+                CartRequest cart = cart(random.nextLong(firstUserId, lastUserId + 1), random);
+                Object body = scenario == Scenario.EVALUATE
+                        ? cart
+                        : OrderRequest.builder().userId(cart.getUserId()).cart(cart).build();
+                list.add(objectMapper.writeValueAsBytes(body));
+            }
+            bodies.put(scenario, list);
+        }
+    }
+
+    private CartRequest cart(long userId, ThreadLocalRandom random) {
+        List<CartItemDTO> items = new ArrayList<>(cartSize);
+        double total = 0;
+        for (int i = 0; i < cartSize; i++) {
+            CartItemDTO item = CartItemDTO.builder()
+                    .sku(String.format("SKU-%06d", random.nextInt(50_000)))
+                    .name("Load test product " + i)
+                    .quantity(1 + random.nextInt(4))
+                    .price(Math.round(random.nextDouble(2, 80) * 100) / 100.0)
+                    .build();
+            total += item.getPrice() * item.getQuantity();
+            items.add(item);
+        }
+        return CartRequest.builder().userId(userId).items(items).totalAmount(Math.round(total * 100) / 100.0).build();
+    }
+
+    private Scenario pick() {
+        double draw = ThreadLocalRandom.current().nextDouble();
+        double cumulative = 0;
+        Scenario last = Scenario.EVALUATE;
+        for (Map.Entry<Scenario, Double> entry : mix.entrySet()) {
+            cumulative += entry.getValue();
+            last = entry.getKey();
+            if (draw < cumulative) {
+                return last;
+            }
+        }
+        return last;
+    }
+
+    private Map<String, Object> report(double seconds) {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("target", target);
+        report.put("offeredRatePerSecond", rate);
+        report.put("measuredSeconds", seconds);
+        report.put("dropped", dropped.sum());
+        report.put("timedOut", timedOut.sum());
+        long completed = 0;
+        long succeeded = 0;
+        for (Map.Entry<Scenario, ScenarioStats> entry : stats.entrySet()) {
+            ScenarioStats scenarioStats = entry.getValue();
+            // Only requests that got a response have a service latency
+            completed += scenarioStats.service.count();
+            succeeded += scenarioStats.succeeded.sum();
+            Map<String, Object> scenarioReport = new LinkedHashMap<>();
+            scenarioReport.put("completed", scenarioStats.service.count());
+            scenarioReport.put("succeeded", scenarioStats.succeeded.sum());
+            scenarioReport.put("errors", scenarioStats.errors.sum());
+            scenarioReport.put("throughputPerSecond", scenarioStats.service.count() / seconds);
+            scenarioReport.put("successfulThroughputPerSecond", scenarioStats.succeeded.sum() / seconds);
+            scenarioReport.put("correctedLatencyMicros", percentiles(scenarioStats.corrected));
+            scenarioReport.put("serviceLatencyMicros", percentiles(scenarioStats.service));
+            report.put(entry.getKey().name().toLowerCase(), scenarioReport);
+        }
+        report.put("throughputPerSecond", completed / seconds);
+        report.put("successfulThroughputPerSecond", succeeded / seconds);
+        return report;
+    }
+
+    private static Map<String, Long> percentiles(LatencyHistogram histogram) {
+        Map<String, Long> percentiles = new LinkedHashMap<>();
+        percentiles.put("p50", histogram.valueAt(0.50));
+        percentiles.put("p90", histogram.valueAt(0.90));
+        percentiles.put("p99", histogram.valueAt(0.99));
+        percentiles.put("p99.9", histogram.valueAt(0.999));
+        percentiles.put("max", histogram.max());
+        return percentiles;
+    }
+
+    private static Map<Scenario, Double> parseMix(String spec) {
+        Map<Scenario, Double> mix = new LinkedHashMap<>();
+        double sum = 0;
+        for (String part : spec.split(",")) {
+            String[] kv = part.split(":");
+            double weight = Double.parseDouble(kv[1]);
+            mix.put(Scenario.valueOf(kv[0].trim().toUpperCase()), weight);
+            sum += weight;
+        }
+        for (Map.Entry<Scenario, Double> entry : mix.entrySet()) {
+            entry.setValue(entry.getValue() / sum);
+        }
+        return mix;
+    }
+
+    private static final class ScenarioStats {
+        final LatencyHistogram corrected = new LatencyHistogram();
+        final LatencyHistogram service = new LatencyHistogram();
+        final LongAdder succeeded = new LongAdder();
+        final LongAdder errors = new LongAdder();
+
+        void record(boolean ok, long correctedMicros, long serviceMicros) {
+            if (ok) {
+                succeeded.increment();
+            } else {
+                errors.increment();
+            }
+            corrected.record(correctedMicros);
+            service.record(serviceMicros);
+        }
+
+        /**
+         * Records a request that was dropped or never answered: an error as slow as the wait it caused.
+         */
+        void recordUnanswered(long correctedMicros) {
+            errors.increment();
+            corrected.record(correctedMicros);
+        }
+    }
+
+    /**
+     * A measured request in flight; recorded exactly once, by its response or by the end of the drain.
+     */
+    private static final class SentRequest {
+        final Scenario scenario;
+        final long intended;
+        final long sentAt;
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        SentRequest(Scenario scenario, long intended, long sentAt) {
+            this.scenario = scenario;
+            this.intended = intended;
+            this.sentAt = sentAt;
+        }
+
+        boolean finish() {
+            return finished.compareAndSet(false, true);
+        }
+    }
+}
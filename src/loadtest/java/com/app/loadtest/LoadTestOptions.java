@@ -0,0 +1,29 @@
+package com.app.loadtest;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Parses {@code --name=value} command-line options; a bare {@code --flag} maps to {@code "true"}.
+ */
+final class LoadTestOptions {
+
+    private LoadTestOptions() {
+    }
+
+    static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + arg);
+            }
+            int equals = arg.indexOf('=');
+            if (equals < 0) {
+                options.put(arg.substring(2), "true");
+            } else {
+                options.put(arg.substring(2, equals), arg.substring(equals + 1));
+            }
+        }
+        return options;
+    }
+}
@@ -0,0 +1,199 @@
+package com.app.loadtest;
+
+import com.app.model.CartItemDTO;
+import com.app.model.RewardDetailDTO;
+import com.app.model.RewardsResponse;
+import com.app.model.SessionDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Local stand-in for the Talon.One Integration API, for capacity tests that must not depend on the real service.
+ * <p>
+ * Implements the endpoints the application calls:
+ * <ul>
+ *     <li>{@code PUT /v1/profiles/{id}} and {@code PUT /v2/customer_profiles} - 204</li>
+ *     <li>{@code POST /v1/sessions} - evaluates the session against the built-in rules below</li>
+ *     <li>{@code POST /v1/loyalty/{id}/confirm} - 204</li>
+ * </ul>
+ * Each response is delayed by a sample of the configured {@link LatencyDistribution} without holding a server
+ * thread, and replaced by a 503 or a 429 at the configured rates.
+ * </p>
+ * <p>
+ * Rules: 10% off carts of at least {@code --threshold} (default 100); 5.00 off every line with quantity 3 or
+ * more; one loyalty point per whole currency unit of the discounted total.
+ * </p>
+ * <pre>
+ *     TalonOneSimulator --port=9090 --latency=lognormal:20:0.8:spike=0.001:500 --error-rate=0.005
+ * </pre>
+ */
+public final class TalonOneSimulator implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final ExecutorService handlers;
+    private final ScheduledExecutorService delays;
+    private final LatencyDistribution latency;
+    private final double errorRate;
+    private final double rateLimitRate;
+    private final double discountThreshold;
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder injectedErrors = new LongAdder();
+
+    /**
+     * Starts the simulator.
+     *
+     * @param port              the port to listen on, or 0 for an ephemeral port
+     * @param latency           the response latency distribution
+     * @param errorRate         the fraction of requests answered with 503
+     * @param rateLimitRate     the fraction of requests answered with 429
+     * @param discountThreshold the cart total from which the percentage discount applies
+     * @throws IOException if the port cannot be bound
+     */
+    public TalonOneSimulator(int port, LatencyDistribution latency, double errorRate, double rateLimitRate,
+                             double discountThreshold) throws IOException {
+        this.latency = latency;
+        this.errorRate = errorRate;
+        this.rateLimitRate = rateLimitRate;
+        this.discountThreshold = discountThreshold;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 4096);
+        this.handlers = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        this.delays = Executors.newScheduledThreadPool(2);
+        server.setExecutor(handlers);
+        server.createContext("/v1/sessions", exchange -> handle(exchange, this::evaluate));
+        server.createContext("/v1/profiles/", exchange -> handle(exchange, body -> null));
+        server.createContext("/v2/customer_profiles", exchange -> handle(exchange, body -> null));
+        server.createContext("/v1/loyalty/", exchange -> handle(exchange, body -> null));
+        server.start();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = LoadTestOptions.parse(args);
+        TalonOneSimulator simulator = new TalonOneSimulator(
+                Integer.parseInt(options.getOrDefault("port", "9090")),
+                LatencyDistribution.parse(options.getOrDefault("latency", "lognormal:20:0.5")),
+                Double.parseDouble(options.getOrDefault("error-rate", "0")),
+                Double.parseDouble(options.getOrDefault("rate-limit-rate", "0")),
+                Double.parseDouble(options.getOrDefault("threshold", "100")));
+        Runtime.getRuntime().addShutdownHook(new Thread(simulator::close));
+        System.out.println("Talon.One simulator listening on " + simulator.baseUrl());
+    }
+
+    /**
+     * @return the base URL to configure as {@code talonone.base-url}
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange, Endpoint endpoint) throws IOException {
+        requests.increment();
+        byte[] requestBody;
+        try (InputStream in = exchange.getRequestBody()) {
+            requestBody = in.readAllBytes();
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int status;
+        byte[] responseBody;
+        double draw = random.nextDouble();
+        if (draw < errorRate) {
+            injectedErrors.increment();
+            status = 503;
+            responseBody = null;
+        } else if (draw < errorRate + rateLimitRate) {
+            injectedErrors.increment();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            status = 429;
+            responseBody = null;
+        } else {
+            responseBody = endpoint.respond(requestBody);
+            status = responseBody != null ? 200 : 204;
+        }
+        delays.schedule(() -> send(exchange, status, responseBody), latency.nextNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) {
+        try {
+            if (body == null) {
+                exchange.sendResponseHeaders(status, -1);
+            } else {
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } catch (IOException ex) {
+            // Client went away; nothing to report
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private byte[] evaluate(byte[] requestBody) throws IOException {
+        SessionDTO session = objectMapper.readValue(requestBody, SessionDTO.class);
+        List<RewardDetailDTO> rewards = new ArrayList<>();
+        double discount = 0;
+        if (session.getTotalAmount() >= discountThreshold) {
+            double amount = Math.round(session.getTotalAmount() * 10) / 100.0;
+            rewards.add(new RewardDetailDTO("Spend " + (int) discountThreshold + " get 10%", "DISCOUNT", amount));
+            discount += amount;
+        }
+        List<CartItemDTO> items = session.getItems() != null ? session.getItems() : Collections.emptyList();
+        for (CartItemDTO item : items) {
+            if (item.getQuantity() >= 3) {
+                rewards.add(new RewardDetailDTO("Multibuy " + item.getSku(), "DISCOUNT", 5.0));
+                discount += 5.0;
+            }
+        }
+        discount = Math.min(discount, session.getTotalAmount());
+        int points = (int) Math.floor(session.getTotalAmount() - discount);
+        if (points > 0) {
+            rewards.add(new RewardDetailDTO("Loyalty", "LOYALTY_POINTS", points));
+        }
+        return objectMapper.writeValueAsBytes(new RewardsResponse(discount, rewards, Collections.emptyList(), 0, points));
+    }
+
+    /**
+     * @return the number of requests received
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * @return the number of requests answered with an injected 503 or 429
+     */
+    public long getInjectedErrors() {
+        return injectedErrors.sum();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        delays.shutdownNow();
+        handlers.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface Endpoint {
+        byte[] respond(byte[] requestBody) throws IOException;
+    }
+}
@@ -0,0 +1,37 @@
+#!/usr/bin/env bash
+# Runs a self-contained capacity test on one box: Talon.One simulator -> application -> load generator.
+#
+# Required:  LOADTEST_CP  classpath with the load-test classes, the application classes and their dependencies
+#            APP_JAR      the application's executable jar
+# Optional:  SIM_PORT (9090), APP_PORT (8080), LATENCY (lognormal:20:0.5), ERROR_RATE (0), USERS (1000),
+#            and any LoadGenerator options as script arguments, e.g. --rate=500 --duration=120s
+set -euo pipefail
+
+: "${LOADTEST_CP:?set LOADTEST_CP}"
+: "${APP_JAR:?set APP_JAR}"
+SIM_PORT="${SIM_PORT:-9090}"
+APP_PORT="${APP_PORT:-8080}"
+LATENCY="${LATENCY:-lognormal:20:0.5}"
+ERROR_RATE="${ERROR_RATE:-0}"
+USERS="${USERS:-1000}"
+
+cleanup() {
+  [[ -n "${APP_PID:-}" ]] && kill "$APP_PID" 2>/dev/null || true
+  [[ -n "${SIM_PID:-}" ]] && kill "$SIM_PID" 2>/dev/null || true
+}
+trap cleanup EXIT
+
+java -cp "$LOADTEST_CP" com.app.loadtest.TalonOneSimulator \
+  --port="$SIM_PORT" --latency="$LATENCY" --error-rate="$ERROR_RATE" &
+SIM_PID=$!
+
+java -Djdk.httpclient.connectionPoolSize=64 -Djdk.httpclient.keepalive.timeout=30 -jar "$APP_JAR" \
+  --server.port="$APP_PORT" \
+  --talonone.base-url="http://127.0.0.1:$SIM_PORT" \
+  --talonone.api-key=loadtest &
+APP_PID=$!
+
+until curl -sf "http://127.0.0.1:$APP_PORT/actuator/health" >/dev/null; do sleep 1; done
+
+java -cp "$LOADTEST_CP" com.app.loadtest.LoadGenerator \
+  --target="http://127.0.0.1:$APP_PORT" --users="1-$USERS" "$@"
@@ -0,0 +1,10 @@
+-- Seeds users 1..N for load tests (there is no create-user endpoint). Run against an empty test database:
+--   psql -v users=10000 -f src/loadtest/seed-users.sql microdb
+-- Ids are explicit so the generator's --users=1-N range matches; the identity sequence is moved past them.
+
+INSERT INTO users (id, email, name, total_orders, total_spent, loyalty_points)
+SELECT g, 'loadtest-' || g || '@example.com', 'Load Test ' || g, 0, 0, 0
+FROM generate_series(1, :users) AS g
+ON CONFLICT (id) DO NOTHING;
+
+SELECT setval(pg_get_serial_sequence('users', 'id'), (SELECT MAX(id) FROM users));
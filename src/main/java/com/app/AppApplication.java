@@ -1,14 +1,20 @@
 package com.app;
 
+import com.app.config.AppRuntimeHints;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 /**
  * Main entry point for the TalonOneApp Spring Boot application.
  * This application integrates with Talon.One’s Integration API to manage personalized rewards and discounts
  * for an e-commerce platform, and connects to a PostgreSQL database for persistence.
+ * It can also be built AOT-processed, with a CDS archive or as a native image (see {@code src/startup/README.md}).
  */
 @SpringBootApplication
+@EnableScheduling
+@ImportRuntimeHints(AppRuntimeHints.class)
 public class AppApplication {
     public static void main(String[] args) {
         SpringApplication.run(AppApplication.class, args);
@@ -0,0 +1,74 @@
+package com.app.config;
+
+import com.app.model.BulkOrderResult;
+import com.app.model.CampaignRule;
+import com.app.model.CampaignRuleType;
+import com.app.model.CartItemDTO;
+import com.app.model.CartRequest;
+import com.app.model.Item;
+import com.app.model.LoyaltyOutboxEntry;
+import com.app.model.Order;
+import com.app.model.OrderHistoryPage;
+import com.app.model.OrderItemDTO;
+import com.app.model.OrderRequest;
+import com.app.model.OrderSummaryDTO;
+import com.app.model.ProfileDTO;
+import com.app.model.RewardDetailDTO;
+import com.app.model.RewardsResponse;
+import com.app.model.RulesSnapshot;
+import com.app.model.SessionDTO;
+import com.app.model.User;
+import com.app.talonone.AsyncTalonOneClient;
+import com.app.talonone.TalonOneClient;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Reachability metadata the AOT engine cannot infer, for the native image and AOT-processed JVM builds
+ * (see {@code src/startup/README.md}).
+ * <p>
+ * Spring derives hints for beans and for controller method signatures, but not for types bound reflectively
+ * elsewhere: entities instantiated and populated by Hibernate, DTOs built by JPQL constructor expressions or
+ * (de)serialized by Jackson behind {@code ResponseEntity<?>}, {@code Map} or streaming code, and classes named
+ * only in configuration such as the cache weigher.
+ * </p>
+ */
+public class AppRuntimeHints implements RuntimeHintsRegistrar {
+
+    private static final Class<?>[] ENTITIES = {User.class, Order.class, Item.class, LoyaltyOutboxEntry.class};
+
+    private static final Class<?>[] DTOS = {
+            CartRequest.class, CartItemDTO.class, OrderRequest.class, BulkOrderResult.class,
+            ProfileDTO.class, SessionDTO.class, RewardsResponse.class, RewardDetailDTO.class,
+            OrderSummaryDTO.class, OrderItemDTO.class, OrderHistoryPage.class,
+            RulesSnapshot.class, CampaignRule.class, CampaignRuleType.class
+    };
+
+    private final BindingReflectionHintsRegistrar bindingRegistrar = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        // Hibernate reads and writes fields, calls the no-arg constructor and the Lombok accessors; Jackson
+        // serializes the entities returned by the controllers
+        for (Class<?> entity : ENTITIES) {
+            hints.reflection().registerType(entity, MemberCategory.values());
+        }
+
+        // Jackson binding of the DTOs and their nested types, and the JPQL constructor expressions of the history
+        bindingRegistrar.registerReflectionHints(hints.reflection(), DTOS);
+        hints.reflection().registerType(OrderSummaryDTO.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+        hints.reflection().registerType(OrderItemDTO.class, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS);
+
+        // @Value fields injected reflectively
+        hints.reflection().registerType(TalonOneClient.class, MemberCategory.DECLARED_FIELDS);
+        hints.reflection().registerType(AsyncTalonOneClient.class, MemberCategory.DECLARED_FIELDS);
+
+        // Instantiated by the JCache factory from its class (UserCacheConfig)
+        hints.reflection().registerType(UserCacheWeigher.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+
+        hints.resources().registerPattern("application-*.properties");
+        hints.resources().registerPattern("rules/*.json");
+    }
+}
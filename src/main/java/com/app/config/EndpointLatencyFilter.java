@@ -0,0 +1,133 @@
+package com.app.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records request latency per endpoint and thread mode (platform or virtual).
+ * <p>
+ * Running the same load once with {@code spring.threads.virtual.enabled=false} and once with {@code true}
+ * yields a per-endpoint comparison of both execution modes, reported by {@code GET /internal/latency}.
+ * Asynchronous requests are measured until the async dispatch completes.
+ * </p>
+ * <p>
+ * Each endpoint and mode is also published as the {@code http.endpoint.latency} timer with a percentile histogram,
+ * and its p50, p95 and p99 are included in the report.
+ * </p>
+ */
+@Component
+public class EndpointLatencyFilter extends OncePerRequestFilter {
+
+    private static final String START_ATTRIBUTE = EndpointLatencyFilter.class.getName() + ".start";
+    private static final String MODE_ATTRIBUTE = EndpointLatencyFilter.class.getName() + ".mode";
+
+    private static final String TIMER = "http.endpoint.latency";
+
+    private final ConcurrentMap<String, EndpointStats> stats = new ConcurrentHashMap<>();
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * Constructs the filter.
+     * @param meterRegistry the registry the per-endpoint timers are registered with
+     */
+    public EndpointLatencyFilter(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+            request.setAttribute(MODE_ATTRIBUTE, Thread.currentThread().isVirtual() ? "virtual" : "platform");
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!request.isAsyncStarted()) {
+                record(request);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request) {
+        long elapsed = System.nanoTime() - (Long) request.getAttribute(START_ATTRIBUTE);
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String endpoint = request.getMethod() + " " + (pattern != null ? pattern : "UNMAPPED");
+        String mode = (String) request.getAttribute(MODE_ATTRIBUTE);
+        stats.computeIfAbsent(mode + " " + endpoint, k -> new EndpointStats(Timer.builder(TIMER)
+                .description("Request latency per endpoint and thread mode")
+                .tag("endpoint", endpoint)
+                .tag("mode", mode)
+                .publishPercentileHistogram()
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry))).record(elapsed);
+    }
+
+    /**
+     * @return latency statistics keyed by "{threadMode} {method} {pattern}"
+     */
+    public Map<String, Map<String, Object>> snapshot() {
+        Map<String, Map<String, Object>> result = new TreeMap<>();
+        stats.forEach((key, value) -> result.put(key, value.snapshot()));
+        return result;
+    }
+
+    /**
+     * Lock-free latency aggregate for one endpoint, plus its timer for percentiles.
+     */
+    private static class EndpointStats {
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final Timer timer;
+
+        EndpointStats(Timer timer) {
+            this.timer = timer;
+        }
+
+        void record(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+            timer.record(nanos, TimeUnit.NANOSECONDS);
+        }
+
+        Map<String, Object> snapshot() {
+            long n = count.sum();
+            Map<String, Object> result = new TreeMap<>();
+            result.put("count", n);
+            result.put("meanMillis", n == 0 ? 0.0 : totalNanos.sum() / (double) n / 1_000_000);
+            result.put("maxMillis", maxNanos.get() / 1_000_000.0);
+            // Percentiles over the timer's recent window, not since startup
+            for (ValueAtPercentile percentile : timer.takeSnapshot().percentileValues()) {
+                result.put("p" + Math.round(percentile.percentile() * 100) + "Millis",
+                        percentile.value(TimeUnit.MILLISECONDS));
+            }
+            return result;
+        }
+    }
+}
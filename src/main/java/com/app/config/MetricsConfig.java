@@ -0,0 +1,288 @@
+package com.app.config;
+
+import com.app.partition.OrderPartitionArchiver;
+import com.app.partition.OrderPartitionManager;
+import com.app.rules.LocalRulesEngine;
+import com.app.rules.ShadowComparator;
+import com.app.service.EvaluationCache;
+import com.app.service.LoyaltyOutboxService;
+import com.app.service.ProfileHashCache;
+import com.app.service.RewardsService;
+import com.app.service.UserCache;
+import com.app.talonone.AsyncTalonOneClient;
+import com.app.talonone.TalonOneAsyncLimiter;
+import com.app.talonone.TalonOneBulkhead;
+import com.app.talonone.TalonOneCircuitBreaker;
+import com.app.talonone.TalonOneHedgePolicy;
+import com.app.talonone.TalonOneOperation;
+import com.app.talonone.TalonOnePriority;
+import com.app.talonone.TalonOneResilience;
+import com.app.talonone.TalonOneScheduler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Locale;
+
+/**
+ * Binds the statistics kept by the Talon.One transport, scheduler and resilience layer, the caches and the loyalty
+ * outbox to Micrometer, so they are scraped from {@code /actuator/prometheus} alongside the timers.
+ * <p>
+ * Database pool gauges ({@code hikaricp.connections.*}) and {@code http.server.requests} are bound by Spring Boot
+ * itself; the JDK HTTP client exposes no pool statistics, so the Talon.One "HTTP pool" gauges come from
+ * {@link TalonOneConnectionLimiter} and {@link TalonOneAsyncLimiter}.
+ * </p>
+ */
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * @param connectionLimiter the per-route limiter of the blocking client
+     * @param asyncClient       the async client, whose limiter is bound
+     * @return gauges for Talon.One connection usage
+     */
+    @Bean
+    public MeterBinder talonOneHttpPoolMetrics(TalonOneConnectionLimiter connectionLimiter,
+                                               AsyncTalonOneClient asyncClient) {
+        return registry -> {
+            Tags blocking = Tags.of("client", "blocking");
+            Gauge.builder("talonone.http.pool.max", connectionLimiter, TalonOneConnectionLimiter::getMaxPerRoute)
+                    .tags(blocking).register(registry);
+            Gauge.builder("talonone.http.pool.active", connectionLimiter, TalonOneConnectionLimiter::getInFlight)
+                    .tags(blocking).register(registry);
+            Gauge.builder("talonone.http.pool.peak", connectionLimiter, TalonOneConnectionLimiter::getPeakInFlight)
+                    .tags(blocking).register(registry);
+            Gauge.builder("talonone.http.pool.pending", connectionLimiter, TalonOneConnectionLimiter::getWaiting)
+                    .tags(blocking).register(registry);
+            FunctionCounter.builder("talonone.http.pool.rejected", connectionLimiter, TalonOneConnectionLimiter::getRejected)
+                    .tags(blocking).register(registry);
+
+            TalonOneAsyncLimiter limiter = asyncClient.getLimiter();
+            Tags async = Tags.of("client", "async");
+            Gauge.builder("talonone.http.pool.max", limiter, TalonOneAsyncLimiter::getMaxConcurrency)
+                    .tags(async).register(registry);
+            Gauge.builder("talonone.http.pool.active", limiter, TalonOneAsyncLimiter::getInFlight)
+                    .tags(async).register(registry);
+            Gauge.builder("talonone.http.pool.pending", limiter, TalonOneAsyncLimiter::getQueued)
+                    .tags(async).register(registry);
+            FunctionCounter.builder("talonone.http.pool.rejected", limiter, TalonOneAsyncLimiter::getRejected)
+                    .tags(async).register(registry);
+        };
+    }
+
+    /**
+     * @param resilience     the Talon.One breakers and bulkheads
+     * @param rewardsService the service counting degraded evaluations
+     * @return gauges and counters for breaker state, bulkhead limits, hedges and fallbacks
+     */
+    @Bean
+    public MeterBinder talonOneResilienceMetrics(TalonOneResilience resilience, RewardsService rewardsService) {
+        return registry -> {
+            for (TalonOneOperation operation : TalonOneOperation.values()) {
+                Tags tags = Tags.of("operation", operation.name().toLowerCase(Locale.ROOT));
+                TalonOneCircuitBreaker breaker = resilience.getCircuitBreaker(operation);
+                TalonOneBulkhead bulkhead = resilience.getBulkhead(operation);
+                Gauge.builder("talonone.breaker.state", breaker, b -> b.getState().ordinal())
+                        .description("0 = closed, 1 = open, 2 = half-open")
+                        .tags(tags).register(registry);
+                FunctionCounter.builder("talonone.breaker.opened", breaker, TalonOneCircuitBreaker::getOpened)
+                        .tags(tags).register(registry);
+                FunctionCounter.builder("talonone.breaker.rejected", breaker, TalonOneCircuitBreaker::getRejected)
+                        .tags(tags).register(registry);
+                Gauge.builder("talonone.bulkhead.limit", bulkhead, TalonOneBulkhead::getLimit)
+                        .tags(tags).register(registry);
+                Gauge.builder("talonone.bulkhead.active", bulkhead, TalonOneBulkhead::getInFlight)
+                        .tags(tags).register(registry);
+                FunctionCounter.builder("talonone.bulkhead.rejected", bulkhead, TalonOneBulkhead::getRejected)
+                        .tags(tags).register(registry);
+                TalonOneHedgePolicy hedgePolicy = resilience.getHedgePolicy(operation);
+                Gauge.builder("talonone.hedge.delay", hedgePolicy, p -> p.getDelayNanos() / 1_000_000.0)
+                        .baseUnit("milliseconds").tags(tags).register(registry);
+                FunctionCounter.builder("talonone.hedge.budget.exhausted", hedgePolicy,
+                                TalonOneHedgePolicy::getBudgetExhausted)
+                        .tags(tags).register(registry);
+            }
+            FunctionCounter.builder("talonone.hedges", resilience, TalonOneResilience::getHedges)
+                    .register(registry);
+            FunctionCounter.builder("rewards.fallbacks", rewardsService, RewardsService::getStaleFallbacks)
+                    .tag("kind", "stale").register(registry);
+            FunctionCounter.builder("rewards.fallbacks", rewardsService, RewardsService::getZeroDiscountFallbacks)
+                    .tag("kind", "zero_discount").register(registry);
+        };
+    }
+
+    /**
+     * The queue wait timer ({@code talonone.scheduler.wait}) is registered by the scheduler itself.
+     *
+     * @param scheduler the Talon.One request scheduler
+     * @return gauges and counters for queue depth, admissions and sheds per priority, and for rate limiting
+     */
+    @Bean
+    public MeterBinder talonOneSchedulerMetrics(TalonOneScheduler scheduler) {
+        return registry -> {
+            for (TalonOnePriority priority : TalonOnePriority.values()) {
+                Tags tags = Tags.of("priority", priority.name().toLowerCase(Locale.ROOT));
+                TalonOneScheduler.Lane lane = scheduler.getLane(priority);
+                Gauge.builder("talonone.scheduler.queued", scheduler, s -> s.getQueued(priority))
+                        .tags(tags).register(registry);
+                FunctionCounter.builder("talonone.scheduler.admitted", lane, TalonOneScheduler.Lane::getAdmitted)
+                        .tags(tags).register(registry);
+                FunctionCounter.builder("talonone.scheduler.shed", lane, TalonOneScheduler.Lane::getShedQueueFull)
+                        .tags(tags).tag("reason", "queue_full").register(registry);
+                FunctionCounter.builder("talonone.scheduler.shed", lane, TalonOneScheduler.Lane::getShedDeadline)
+                        .tags(tags).tag("reason", "deadline").register(registry);
+                FunctionCounter.builder("talonone.scheduler.abandoned", lane, TalonOneScheduler.Lane::getAbandoned)
+                        .tags(tags).register(registry);
+            }
+            Gauge.builder("talonone.scheduler.permits", scheduler, TalonOneScheduler::getAvailablePermits)
+                    .description("-1 without a request budget")
+                    .register(registry);
+            Gauge.builder("talonone.scheduler.paused", scheduler, s -> s.getPausedMillis() / 1000.0)
+                    .baseUnit("seconds").register(registry);
+            FunctionCounter.builder("talonone.scheduler.rate.limited", scheduler, TalonOneScheduler::getRateLimited)
+                    .register(registry);
+            FunctionCounter.builder("talonone.scheduler.rate.limit.retries", scheduler,
+                    TalonOneScheduler::getRateLimitRetried).register(registry);
+        };
+    }
+
+    /**
+     * @param evaluationCache  the memoized session evaluations
+     * @param profileHashCache the last-pushed profile hashes
+     * @return gauges and counters for both caches
+     */
+    @Bean
+    public MeterBinder rewardsCacheMetrics(EvaluationCache evaluationCache, ProfileHashCache profileHashCache) {
+        return registry -> {
+            Tags evaluation = Tags.of("cache", "evaluation");
+            FunctionCounter.builder("rewards.cache.requests", evaluationCache, EvaluationCache::getHits)
+                    .tags(evaluation).tag("result", "hit").register(registry);
+            FunctionCounter.builder("rewards.cache.requests", evaluationCache, EvaluationCache::getCoalesced)
+                    .tags(evaluation).tag("result", "coalesced").register(registry);
+            FunctionCounter.builder("rewards.cache.requests", evaluationCache, EvaluationCache::getMisses)
+                    .tags(evaluation).tag("result", "miss").register(registry);
+            FunctionCounter.builder("rewards.cache.stale.served", evaluationCache, EvaluationCache::getStaleServed)
+                    .tags(evaluation).register(registry);
+            Gauge.builder("rewards.cache.size", evaluationCache, EvaluationCache::size)
+                    .tags(evaluation).register(registry);
+
+            Tags profile = Tags.of("cache", "profile");
+            FunctionCounter.builder("rewards.cache.requests", profileHashCache, ProfileHashCache::getHits)
+                    .tags(profile).tag("result", "hit").register(registry);
+            FunctionCounter.builder("rewards.cache.requests", profileHashCache, ProfileHashCache::getMisses)
+                    .tags(profile).tag("result", "miss").register(registry);
+            FunctionCounter.builder("rewards.cache.evictions", profileHashCache, ProfileHashCache::getEvictions)
+                    .tags(profile).register(registry);
+            Gauge.builder("rewards.cache.capacity", profileHashCache, ProfileHashCache::getCapacity)
+                    .tags(profile).register(registry);
+        };
+    }
+
+    /**
+     * @param loyaltyOutboxService the loyalty confirmation outbox
+     * @return gauges and counters for outbox depth, lag and dispatch outcomes
+     */
+    @Bean
+    public MeterBinder loyaltyOutboxMetrics(LoyaltyOutboxService loyaltyOutboxService) {
+        return registry -> {
+            Gauge.builder("loyalty.outbox.depth", loyaltyOutboxService, LoyaltyOutboxService::getQueueDepth)
+                    .register(registry);
+            Gauge.builder("loyalty.outbox.lag", loyaltyOutboxService, s -> s.getDispatchLagMillis() / 1000.0)
+                    .baseUnit("seconds").register(registry);
+            FunctionCounter.builder("loyalty.outbox.dispatched", loyaltyOutboxService, LoyaltyOutboxService::getDispatched)
+                    .register(registry);
+            FunctionCounter.builder("loyalty.outbox.retries", loyaltyOutboxService, LoyaltyOutboxService::getRetries)
+                    .register(registry);
+            FunctionCounter.builder("loyalty.outbox.failed", loyaltyOutboxService, LoyaltyOutboxService::getFailed)
+                    .register(registry);
+        };
+    }
+
+    /**
+     * @param userCache the User second-level cache
+     * @return counters for cache lookups, database loads and invalidations, and gauges for hit ratio and size
+     */
+    @Bean
+    public MeterBinder userCacheMetrics(UserCache userCache) {
+        return registry -> {
+            FunctionCounter.builder("users.cache.requests", userCache, UserCache::getHits)
+                    .tag("result", "hit").register(registry);
+            FunctionCounter.builder("users.cache.requests", userCache, UserCache::getMisses)
+                    .tag("result", "miss").register(registry);
+            FunctionCounter.builder("users.cache.puts", userCache, UserCache::getPuts)
+                    .register(registry);
+            // Rate of this against users.cache.requests is the database read load the cache removes
+            FunctionCounter.builder("users.db.loads", userCache, UserCache::getDatabaseLoads)
+                    .register(registry);
+            FunctionCounter.builder("users.cache.invalidations", userCache, UserCache::getEvictions)
+                    .tag("source", "local").register(registry);
+            FunctionCounter.builder("users.cache.invalidations", userCache, UserCache::getNotifications)
+                    .tag("source", "notification").register(registry);
+            FunctionCounter.builder("users.cache.invalidations", userCache, UserCache::getFullEvictions)
+                    .tag("source", "all").register(registry);
+            Gauge.builder("users.cache.hit.ratio", userCache, UserCache::getHitRatio)
+                    .register(registry);
+            Gauge.builder("users.cache.size", userCache, UserCache::getWeightedSize)
+                    .baseUnit("bytes").register(registry);
+        };
+    }
+
+    /**
+     * @param localRulesEngine the in-process rules engine
+     * @param shadowComparator the comparison of local and Talon.One evaluations
+     * @param rewardsService   the service counting local evaluations
+     * @return gauges for the rules snapshot and counters for local evaluations and shadow divergence
+     */
+    @Bean
+    public MeterBinder localRulesMetrics(LocalRulesEngine localRulesEngine, ShadowComparator shadowComparator,
+                                         RewardsService rewardsService) {
+        return registry -> {
+            Gauge.builder("rewards.local.rules", localRulesEngine, LocalRulesEngine::getRuleCount)
+                    .register(registry);
+            Gauge.builder("rewards.local.snapshot.age", localRulesEngine, LocalRulesEngine::getAgeSeconds)
+                    .description("-1 while no snapshot is loaded")
+                    .baseUnit("seconds").register(registry);
+            FunctionCounter.builder("rewards.local.snapshot.failures", localRulesEngine, LocalRulesEngine::getRefreshFailures)
+                    .register(registry);
+            FunctionCounter.builder("rewards.local.evaluations", rewardsService, RewardsService::getLocalEvaluations)
+                    .tag("result", "local").register(registry);
+            FunctionCounter.builder("rewards.local.evaluations", rewardsService, RewardsService::getLocalMisses)
+                    .tag("result", "no_snapshot").register(registry);
+            FunctionCounter.builder("rewards.shadow.comparisons", shadowComparator, ShadowComparator::getMatches)
+                    .tag("result", "match").register(registry);
+            FunctionCounter.builder("rewards.shadow.comparisons", shadowComparator, ShadowComparator::getDivergences)
+                    .tag("result", "diverged").register(registry);
+            FunctionCounter.builder("rewards.shadow.discount.delta", shadowComparator, c -> c.getDiscountDeltaCents() / 100.0)
+                    .description("Summed absolute discount difference of diverging evaluations")
+                    .register(registry);
+        };
+    }
+
+    /**
+     * @param partitionManager  the creator of future order partitions
+     * @param partitionArchiver the archiver of past order partitions
+     * @return gauges and counters for partition coverage and archiving
+     */
+    @Bean
+    public MeterBinder orderPartitionMetrics(OrderPartitionManager partitionManager,
+                                             OrderPartitionArchiver partitionArchiver) {
+        return registry -> {
+            Gauge.builder("orders.partitions.months.ahead", partitionManager, OrderPartitionManager::getMonthsAhead)
+                    .description("Future months with partitions; -1 before the first check")
+                    .register(registry);
+            FunctionCounter.builder("orders.partitions.created", partitionManager, OrderPartitionManager::getCreated)
+                    .register(registry);
+            FunctionCounter.builder("orders.partitions.failures", partitionManager, OrderPartitionManager::getFailures)
+                    .tag("task", "create").register(registry);
+            FunctionCounter.builder("orders.partitions.archived", partitionArchiver, OrderPartitionArchiver::getArchivedPartitions)
+                    .register(registry);
+            FunctionCounter.builder("orders.partitions.archived.rows", partitionArchiver, OrderPartitionArchiver::getArchivedRows)
+                    .register(registry);
+            FunctionCounter.builder("orders.partitions.failures", partitionArchiver, OrderPartitionArchiver::getFailures)
+                    .tag("task", "archive").register(registry);
+        };
+    }
+}
@@ -0,0 +1,190 @@
+package com.app.config;
+
+import com.app.datasource.ReadRouting;
+import com.app.datasource.ReplicaMonitor;
+import com.app.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-replica routing ({@code datasource.replica.enabled=true}).
+ * <p>
+ * Replaces Spring Boot's single data source with:
+ * <ul>
+ *     <li>the primary pool, configured by {@code spring.datasource.*} as before</li>
+ *     <li>one read-only pool per URL in {@code datasource.replica.urls}, sized by
+ *     {@code datasource.replica.maximum-pool-size}</li>
+ *     <li>a {@link ReplicaRoutingDataSource} sending read-only transactions to a replica within
+ *     {@code datasource.replica.max-lag}, and everything else to the primary</li>
+ *     <li>a {@link LazyConnectionDataSourceProxy} around it, exposed as the primary {@code DataSource} for JPA and
+ *     JDBC, which defers the routing decision to the first statement of a transaction</li>
+ * </ul>
+ * Read-only transactions are the user lookups (Spring Data's read methods) and the order history; order placement
+ * and stats updates run in read-write transactions and always use the primary. {@link ReadRouting} keeps reads of
+ * recently written users on the primary. See {@code application-replica.properties} for a local two-instance setup.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replica.enabled", havingValue = "true")
+public class ReplicaRoutingConfig {
+
+    /**
+     * @param properties the {@code spring.datasource.*} settings
+     * @return the primary pool, additionally configured by {@code spring.datasource.hikari.*}
+     */
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName(ReplicaRoutingDataSource.PRIMARY);
+        return dataSource;
+    }
+
+    /**
+     * @param primaryDataSource the primary pool, whose settings the replica pools inherit
+     * @param urls              the replica JDBC URLs
+     * @param username          the replica user; defaults to the primary's
+     * @param password          the replica password; defaults to the primary's
+     * @param maximumPoolSize   the size of each replica pool
+     * @param meterRegistry     the registry for the replica pools' {@code hikaricp.*} metrics
+     * @return the replica pools
+     */
+    @Bean(destroyMethod = "close")
+    public ReplicaPools replicaPools(HikariDataSource primaryDataSource,
+                                     @Value("${datasource.replica.urls}") List<String> urls,
+                                     @Value("${datasource.replica.username:}") String username,
+                                     @Value("${datasource.replica.password:}") String password,
+                                     @Value("${datasource.replica.maximum-pool-size:20}") int maximumPoolSize,
+                                     MeterRegistry meterRegistry) {
+        Map<String, HikariDataSource> pools = new LinkedHashMap<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            String key = "replica-" + (i + 1);
+            config.setPoolName(key);
+            config.setJdbcUrl(urls.get(i).trim());
+            if (StringUtils.hasText(username)) {
+                config.setUsername(username);
+                config.setPassword(password);
+            }
+            config.setMaximumPoolSize(maximumPoolSize);
+            config.setReadOnly(true);
+            config.setMetricRegistry(null);
+            config.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            pools.put(key, new HikariDataSource(config));
+        }
+        return new ReplicaPools(pools);
+    }
+
+    /**
+     * @param primaryDataSource the primary pool
+     * @param replicaPools      the replica pools
+     * @param maxLag            the largest replication lag at which a replica still serves reads
+     * @return the lag monitor
+     */
+    @Bean
+    public ReplicaMonitor replicaMonitor(HikariDataSource primaryDataSource, ReplicaPools replicaPools,
+                                         @Value("${datasource.replica.max-lag:1s}") Duration maxLag) {
+        return new ReplicaMonitor(primaryDataSource, replicaPools.getDataSources(), maxLag);
+    }
+
+    /**
+     * @param primaryDataSource the primary pool
+     * @param replicaPools      the replica pools
+     * @param replicaMonitor    the lag monitor
+     * @param readRouting       the read-after-write stickiness
+     * @return the routing data source
+     */
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                                                             ReplicaPools replicaPools,
+                                                             ReplicaMonitor replicaMonitor,
+                                                             ReadRouting readRouting) {
+        return new ReplicaRoutingDataSource(primaryDataSource, replicaPools.getDataSources(), replicaMonitor, readRouting);
+    }
+
+    /**
+     * @param replicaRoutingDataSource the routing data source
+     * @return the data source used by JPA and JDBC
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+
+    /**
+     * @param routing        the routing data source
+     * @param replicaMonitor the lag monitor
+     * @return counters of routed connections and gauges of replica lag and health
+     */
+    @Bean
+    public MeterBinder replicaRoutingMetrics(ReplicaRoutingDataSource routing, ReplicaMonitor replicaMonitor) {
+        return registry -> {
+            FunctionCounter.builder("datasource.routing.connections", routing, ReplicaRoutingDataSource::getPrimaryWrites)
+                    .tags("target", "primary", "reason", "read_write").register(registry);
+            FunctionCounter.builder("datasource.routing.connections", routing, ReplicaRoutingDataSource::getPrimaryStickyReads)
+                    .tags("target", "primary", "reason", "sticky").register(registry);
+            FunctionCounter.builder("datasource.routing.connections", routing, ReplicaRoutingDataSource::getPrimaryFallbackReads)
+                    .tags("target", "primary", "reason", "no_healthy_replica").register(registry);
+            FunctionCounter.builder("datasource.routing.connections", routing, ReplicaRoutingDataSource::getReplicaReads)
+                    .tags("target", "replica", "reason", "read_only").register(registry);
+            for (String replica : replicaMonitor.getReplicaKeys()) {
+                Gauge.builder("datasource.replica.lag", replicaMonitor, m -> lagSeconds(m, replica))
+                        .description("-1 if the last lag check failed")
+                        .baseUnit("seconds").tag("replica", replica).register(registry);
+                Gauge.builder("datasource.replica.healthy", replicaMonitor, m -> m.isHealthy(replica) ? 1 : 0)
+                        .tag("replica", replica).register(registry);
+            }
+        };
+    }
+
+    private static double lagSeconds(ReplicaMonitor replicaMonitor, String replica) {
+        long lagMillis = replicaMonitor.getLagMillis().get(replica);
+        return lagMillis < 0 ? -1 : lagMillis / 1000.0;
+    }
+
+    /**
+     * The replica pools, closed with the context.
+     */
+    public static final class ReplicaPools implements AutoCloseable {
+        private final Map<String, HikariDataSource> pools;
+
+        ReplicaPools(Map<String, HikariDataSource> pools) {
+            this.pools = pools;
+        }
+
+        /**
+         * @return the replica pools by routing key
+         */
+        public Map<String, DataSource> getDataSources() {
+            return Collections.unmodifiableMap(pools);
+        }
+
+        @Override
+        public void close() {
+            pools.values().forEach(HikariDataSource::close);
+        }
+    }
+}
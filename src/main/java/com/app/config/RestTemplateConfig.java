@@ -1,5 +1,7 @@
 package com.app.config;
 
+import com.app.talonone.TalonOneOperation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -12,14 +14,25 @@ import org.springframework.http.client.ClientHttpResponse;
 import org.springframework.web.client.RestTemplate;
 
 import java.io.IOException;
-import java.util.Collections;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Configuration class for RestTemplate used to interact with Talon.One's Integration API.
  * <p>
  * This configuration ensures secure, efficient, and maintainable HTTP communication with Talon.One.
  * It injects the API key securely from application properties and attaches it to all outgoing requests.
- * Additionally, it logs essential request details without exposing sensitive information.
+ * Request details are logged at DEBUG level only, without exposing sensitive information; latency and outcomes
+ * are recorded as metrics by {@link com.app.talonone.TalonOneMetrics}.
+ * </p>
+ *
+ * <p>
+ * Requests go through a shared, keep-alive {@link HttpClient} that negotiates HTTP/2 where Talon.One supports it.
+ * Connect and per-operation response timeouts, the per-route concurrency limit and idle-connection eviction
+ * are configured via the {@code talonone.http.*} properties.
  * </p>
  *
  * <p>
@@ -41,20 +54,113 @@ public class RestTemplateConfig {
     @Value("${talonone.api-key}")
     private String talonOneApiKey;
 
+    @Value("${talonone.http.connect-timeout:2s}")
+    private Duration connectTimeout;
+
+    @Value("${talonone.http.response-timeout:5s}")
+    private Duration responseTimeout;
+
+    @Value("${talonone.http.response-timeout.update-profile:${talonone.http.response-timeout:5s}}")
+    private Duration updateProfileTimeout;
+
+    @Value("${talonone.http.response-timeout.evaluate-session:${talonone.http.response-timeout:5s}}")
+    private Duration evaluateSessionTimeout;
+
+    @Value("${talonone.http.response-timeout.confirm-loyalty:${talonone.http.response-timeout:5s}}")
+    private Duration confirmLoyaltyTimeout;
+
+    @Value("${talonone.http.max-per-route:64}")
+    private int maxPerRoute;
+
+    @Value("${talonone.http.pool-acquire-timeout:500ms}")
+    private Duration poolAcquireTimeout;
+
+    @Value("${talonone.http.max-idle-connections:64}")
+    private int maxIdleConnections;
+
+    @Value("${talonone.http.idle-timeout:30s}")
+    private Duration idleTimeout;
+
+    /**
+     * Shared HTTP client for all Talon.One traffic. Connections are kept alive and reused across requests,
+     * and HTTP/2 is negotiated via ALPN, falling back to HTTP/1.1 where the server does not support it.
+     *
+     * @return the Talon.One HTTP client
+     */
+    @Bean
+    public HttpClient talonOneHttpClient() {
+        configureConnectionPool();
+        return HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(connectTimeout)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
+    }
+
+    /**
+     * Limits concurrent requests per route and records pool saturation statistics.
+     *
+     * @return the Talon.One connection limiter
+     */
+    @Bean
+    public TalonOneConnectionLimiter talonOneConnectionLimiter() {
+        return new TalonOneConnectionLimiter(maxPerRoute, poolAcquireTimeout);
+    }
+
     /**
      * Defines a singleton, thread-safe RestTemplate bean configured for Talon.One Integration API.
      *
+     * @param talonOneHttpClient        the shared HTTP client
+     * @param talonOneConnectionLimiter the per-route connection limiter
+     * @param observationRegistry       the registry exchange spans are recorded with
      * @return configured RestTemplate instance
      */
     @Bean
-    public RestTemplate talonOneRestTemplate() {
-        RestTemplate restTemplate = new RestTemplate();
-        restTemplate.setInterceptors(Collections.singletonList(new TalonOneApiRequestInterceptor(talonOneApiKey)));
+    public RestTemplate talonOneRestTemplate(HttpClient talonOneHttpClient,
+                                             TalonOneConnectionLimiter talonOneConnectionLimiter,
+                                             ObservationRegistry observationRegistry) {
+        Map<TalonOneOperation, Duration> operationTimeouts = new EnumMap<>(TalonOneOperation.class);
+        operationTimeouts.put(TalonOneOperation.UPDATE_PROFILE, updateProfileTimeout);
+        operationTimeouts.put(TalonOneOperation.EVALUATE_SESSION, evaluateSessionTimeout);
+        operationTimeouts.put(TalonOneOperation.CONFIRM_LOYALTY, confirmLoyaltyTimeout);
+
+        RestTemplate restTemplate = new RestTemplate(
+                new TalonOneRequestFactory(talonOneHttpClient, responseTimeout, operationTimeouts));
+        restTemplate.setInterceptors(List.of(
+                talonOneConnectionLimiter,
+                new TalonOneApiRequestInterceptor(talonOneApiKey)));
+        // One client span per exchange; the trace context is propagated in the request headers
+        restTemplate.setObservationRegistry(observationRegistry);
         return restTemplate;
     }
 
     /**
-     * Interceptor for attaching authentication headers and logging requests to Talon.One.
+     * The JDK HTTP client sizes its idle-connection pool and evicts idle connections based on JVM-wide system
+     * properties that are read once, when the first client in the JVM is created. Any client created before this
+     * bean (by a library, an exporter) fixes them, so they belong on the command line:
+     * {@code -Djdk.httpclient.connectionPoolSize=64 -Djdk.httpclient.keepalive.timeout=30}. If they are missing
+     * they are still set here from {@code talonone.http.*}, with a warning that this may come too late.
+     */
+    private void configureConnectionPool() {
+        configurePoolProperty("jdk.httpclient.connectionPoolSize", String.valueOf(maxIdleConnections),
+                "talonone.http.max-idle-connections");
+        configurePoolProperty("jdk.httpclient.keepalive.timeout", String.valueOf(idleTimeout.toSeconds()),
+                "talonone.http.idle-timeout");
+    }
+
+    private static void configurePoolProperty(String name, String value, String source) {
+        String given = System.getProperty(name);
+        if (given == null) {
+            System.setProperty(name, value);
+            logger.warn("{} is not set as a JVM option; set it to {} from {}, which has no effect if a JDK HttpClient "
+                    + "was already created in this JVM. Start the JVM with -D{}={}", name, value, source, name, value);
+        } else if (!given.equals(value)) {
+            logger.warn("JVM option {}={} overrides {} ({})", name, given, source, value);
+        }
+    }
+
+    /**
+     * Interceptor for attaching authentication headers and debug-logging requests to Talon.One.
      */
     private static class TalonOneApiRequestInterceptor implements ClientHttpRequestInterceptor {
 
@@ -87,8 +193,10 @@ public class RestTemplateConfig {
             // Attach Authorization header securely
             request.getHeaders().setBearerAuth(apiKey);
 
-            // Log essential request details (method and URI)
-            logger.info("Talon.One API Request: {} {}", request.getMethod(), request.getURI());
+            // Log essential request details (method and URI); per-request logging is too costly at INFO
+            if (logger.isDebugEnabled()) {
+                logger.debug("Talon.One API Request: {} {}", request.getMethod(), request.getURI());
+            }
 
             // Do not log headers or body to avoid leaking sensitive data
 
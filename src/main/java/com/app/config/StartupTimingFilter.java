@@ -0,0 +1,141 @@
+package com.app.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.aot.AotDetector;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NativeDetector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Records how long this instance took to become ready and to serve its first request, and in which startup mode
+ * it runs: {@code jvm}, with {@code -aot} when started from AOT-generated code ({@code -Dspring.aot.enabled=true}),
+ * with {@code -cds} when a class data sharing archive is mapped, or {@code native}.
+ * <p>
+ * Times count from the start of the OS process, so they include JVM boot and class loading, not only the context
+ * refresh. The first request is the first one outside {@code /actuator} and {@code /internal}, measured until its
+ * response completes; it carries the lazy initialization and JIT warm-up a scaled-out instance adds to a user's
+ * request. Both are logged once and reported by {@code GET /internal/startup}.
+ * </p>
+ */
+@Component
+public class StartupTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(StartupTimingFilter.class);
+
+    private static final String START_ATTRIBUTE = StartupTimingFilter.class.getName() + ".start";
+
+    private final Instant processStart = processStart();
+    private final String mode = mode();
+    private final AtomicBoolean firstRequestSeen = new AtomicBoolean();
+
+    private volatile long readyMillis = -1;
+    private volatile long contextMillis = -1;
+    private volatile long firstRequestMillis = -1;
+    private volatile long firstResponseMillis = -1;
+    private volatile String firstRequest;
+
+    /**
+     * Records the time to readiness.
+     * @param event the application ready event
+     */
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        readyMillis = Duration.between(processStart, Instant.now()).toMillis();
+        Duration timeTaken = event.getTimeTaken();
+        contextMillis = timeTaken != null ? timeTaken.toMillis() : -1;
+        logger.info("Ready in {} mode {} ms after process start (application startup {} ms)",
+                mode, readyMillis, contextMillis);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (firstRequestSeen.get()) {
+            return true;
+        }
+        String path = request.getRequestURI();
+        return path.startsWith("/actuator") || path.startsWith("/internal");
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (request.getAttribute(START_ATTRIBUTE) == null) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (!request.isAsyncStarted() && firstRequestSeen.compareAndSet(false, true)) {
+                record(request);
+            }
+        }
+    }
+
+    private void record(HttpServletRequest request) {
+        firstRequestMillis = (System.nanoTime() - (Long) request.getAttribute(START_ATTRIBUTE)) / 1_000_000;
+        firstResponseMillis = Duration.between(processStart, Instant.now()).toMillis();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        firstRequest = request.getMethod() + " " + (pattern != null ? pattern : "UNMAPPED");
+        logger.info("First request {} took {} ms, answered {} ms after process start",
+                firstRequest, firstRequestMillis, firstResponseMillis);
+    }
+
+    /**
+     * @return the startup mode and timings in milliseconds; -1 for what has not happened yet
+     */
+    public Map<String, Object> snapshot() {
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("mode", mode);
+        result.put("processStart", processStart.toString());
+        result.put("readyMillis", readyMillis);
+        result.put("applicationStartupMillis", contextMillis);
+        result.put("firstRequest", firstRequest);
+        result.put("firstRequestMillis", firstRequestMillis);
+        result.put("firstResponseMillis", firstResponseMillis);
+        return result;
+    }
+
+    private static Instant processStart() {
+        return ProcessHandle.current().info().startInstant()
+                .orElseGet(() -> Instant.ofEpochMilli(ManagementFactory.getRuntimeMXBean().getStartTime()));
+    }
+
+    private static String mode() {
+        if (NativeDetector.inNativeImage()) {
+            return "native";
+        }
+        StringBuilder mode = new StringBuilder("jvm");
+        if (AotDetector.useGeneratedArtifacts()) {
+            mode.append("-aot");
+        }
+        for (String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+            if (argument.startsWith("-XX:SharedArchiveFile")) {
+                mode.append("-cds");
+                break;
+            }
+        }
+        return mode.toString();
+    }
+}
@@ -0,0 +1,168 @@
+package com.app.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Interceptor that caps the number of concurrent requests to the Talon.One route.
+ * <p>
+ * The JDK HTTP client does not bound the number of connections it opens, so the limit is enforced here:
+ * a request holds a permit from the moment it is sent until its response is closed. Requests that cannot
+ * obtain a permit within the acquire timeout fail fast instead of piling up behind a slow Talon.One.
+ * </p>
+ * <p>
+ * The limiter also keeps the pool saturation statistics (in-flight, peak, waiting and rejected requests).
+ * </p>
+ */
+public class TalonOneConnectionLimiter implements ClientHttpRequestInterceptor {
+
+    private final int maxPerRoute;
+    private final long acquireTimeoutNanos;
+    private final Semaphore permits;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicInteger waiting = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructs the limiter.
+     *
+     * @param maxPerRoute    the maximum number of concurrent requests to Talon.One
+     * @param acquireTimeout how long a request may wait for a free slot
+     */
+    public TalonOneConnectionLimiter(int maxPerRoute, Duration acquireTimeout) {
+        this.maxPerRoute = maxPerRoute;
+        this.acquireTimeoutNanos = acquireTimeout.toNanos();
+        this.permits = new Semaphore(maxPerRoute, true);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(
+            ClientHttpRequest request,
+            byte[] body,
+            ClientHttpRequestExecution execution) throws IOException {
+
+        acquire();
+        try {
+            return new PermitReleasingResponse(execution.execute(request, body));
+        } catch (IOException | RuntimeException ex) {
+            release();
+            throw ex;
+        }
+    }
+
+    private void acquire() throws IOException {
+        waiting.incrementAndGet();
+        boolean acquired;
+        try {
+            acquired = permits.tryAcquire(acquireTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a Talon.One connection", ex);
+        } finally {
+            waiting.decrementAndGet();
+        }
+        if (!acquired) {
+            rejected.increment();
+            throw new IOException("Talon.One connection pool exhausted (max " + maxPerRoute + " per route)");
+        }
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+    }
+
+    private void release() {
+        inFlight.decrementAndGet();
+        permits.release();
+    }
+
+    /**
+     * @return the configured maximum number of concurrent requests
+     */
+    public int getMaxPerRoute() {
+        return maxPerRoute;
+    }
+
+    /**
+     * @return the number of requests currently holding a connection slot
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the highest number of concurrent requests observed since startup
+     */
+    public int getPeakInFlight() {
+        return peakInFlight.get();
+    }
+
+    /**
+     * @return the number of requests currently waiting for a connection slot
+     */
+    public int getWaiting() {
+        return waiting.get();
+    }
+
+    /**
+     * @return the total number of requests rejected because no slot became free in time
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * Response wrapper that returns the permit when the response is closed.
+     */
+    private class PermitReleasingResponse implements ClientHttpResponse {
+
+        private final ClientHttpResponse delegate;
+        private final AtomicInteger closed = new AtomicInteger();
+
+        PermitReleasingResponse(ClientHttpResponse delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public HttpStatusCode getStatusCode() throws IOException {
+            return delegate.getStatusCode();
+        }
+
+        @Override
+        public String getStatusText() throws IOException {
+            return delegate.getStatusText();
+        }
+
+        @Override
+        public HttpHeaders getHeaders() {
+            return delegate.getHeaders();
+        }
+
+        @Override
+        public InputStream getBody() throws IOException {
+            return delegate.getBody();
+        }
+
+        @Override
+        public void close() {
+            try {
+                delegate.close();
+            } finally {
+                if (closed.compareAndSet(0, 1)) {
+                    release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.app.config;
+
+import com.app.talonone.TalonOneOperation;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequest;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * ClientHttpRequestFactory that routes each Talon.One request to a per-operation delegate.
+ * <p>
+ * All delegates share a single {@link HttpClient}, so they share its connection pool (and HTTP/2
+ * connections), while each operation keeps its own response timeout. Requests that do not map to a
+ * known {@link TalonOneOperation} use the default delegate.
+ * </p>
+ */
+public class TalonOneRequestFactory implements ClientHttpRequestFactory {
+
+    private final Map<TalonOneOperation, ClientHttpRequestFactory> delegates = new EnumMap<>(TalonOneOperation.class);
+    private final ClientHttpRequestFactory defaultDelegate;
+
+    /**
+     * Constructs the factory.
+     *
+     * @param httpClient       the shared HTTP client
+     * @param defaultTimeout   the response timeout for requests without an operation-specific timeout
+     * @param operationTimeouts response timeouts per operation
+     */
+    public TalonOneRequestFactory(HttpClient httpClient,
+                                  Duration defaultTimeout,
+                                  Map<TalonOneOperation, Duration> operationTimeouts) {
+        this.defaultDelegate = createDelegate(httpClient, defaultTimeout);
+        operationTimeouts.forEach((operation, timeout) -> delegates.put(operation, createDelegate(httpClient, timeout)));
+    }
+
+    @Override
+    public ClientHttpRequest createRequest(URI uri, HttpMethod httpMethod) throws IOException {
+        TalonOneOperation operation = TalonOneOperation.resolve(uri);
+        ClientHttpRequestFactory delegate = operation != null ? delegates.get(operation) : null;
+        return (delegate != null ? delegate : defaultDelegate).createRequest(uri, httpMethod);
+    }
+
+    private static ClientHttpRequestFactory createDelegate(HttpClient httpClient, Duration timeout) {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(httpClient);
+        factory.setReadTimeout(timeout);
+        return factory;
+    }
+}
@@ -0,0 +1,121 @@
+package com.app.config;
+
+import com.app.tracing.FileSpanExporter;
+import com.app.tracing.InMemorySpanExporter;
+import com.app.tracing.RepositoryObservationPostProcessor;
+import com.app.tracing.TailSamplingSpanProcessor;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.observation.ObservationRegistry;
+import io.opentelemetry.exporter.otlp.http.trace.OtlpHttpSpanExporter;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Tracing setup on top of Spring Boot's Micrometer Tracing / OpenTelemetry auto-configuration.
+ * <p>
+ * Spans are created through the Observation API: {@code orders.place}, {@code rewards.evaluate},
+ * {@code talonone.client.exchange} and {@code http.client.requests} for Talon.One calls (with the trace context
+ * propagated in the request headers), and {@code db.repository} for every repository call.
+ * </p>
+ * <p>
+ * The exporter is selected with {@code tracing.exporter}:
+ * <ul>
+ *     <li>{@code none} - spans are recorded but not exported</li>
+ *     <li>{@code memory} - the most recent spans are kept in an {@link InMemorySpanExporter},
+ *     readable at {@code GET /internal/traces}</li>
+ *     <li>{@code file} - spans are appended as JSON lines to {@code tracing.file.path}</li>
+ *     <li>{@code otlp} - spans are sent over OTLP/HTTP to {@code tracing.otlp.endpoint}</li>
+ * </ul>
+ * Export goes through a {@link TailSamplingSpanProcessor}, so slow and failed traces are always exported and
+ * the rest only at {@code tracing.tail-sampling.ratio}.
+ * </p>
+ */
+@Configuration
+public class TracingConfig {
+
+    @Value("${tracing.exporter:none}")
+    private String exporter;
+
+    @Value("${tracing.memory.capacity:10000}")
+    private int memoryCapacity;
+
+    @Value("${tracing.file.path:traces.jsonl}")
+    private String filePath;
+
+    @Value("${tracing.otlp.endpoint:http://localhost:4318/v1/traces}")
+    private String otlpEndpoint;
+
+    @Value("${tracing.tail-sampling.latency-threshold:500ms}")
+    private Duration latencyThreshold;
+
+    @Value("${tracing.tail-sampling.ratio:0.01}")
+    private double sampleRatio;
+
+    @Value("${tracing.tail-sampling.max-traces:10000}")
+    private int maxTraces;
+
+    @Value("${tracing.tail-sampling.max-trace-age:30s}")
+    private Duration maxTraceAge;
+
+    /**
+     * Adds a span to every repository call. Static so that it does not force early initialization of this class.
+     *
+     * @param observationRegistry provides the registry spans are recorded with
+     * @return the repository post processor
+     */
+    @Bean
+    public static RepositoryObservationPostProcessor repositoryObservationPostProcessor(
+            ObjectProvider<ObservationRegistry> observationRegistry) {
+        return new RepositoryObservationPostProcessor(observationRegistry);
+    }
+
+    /**
+     * Registered with the tracer provider by Spring Boot; exports the traces kept by tail sampling.
+     * The exporter is deliberately not a bean: Spring Boot would export every span to it, bypassing tail sampling.
+     *
+     * @return the tail-sampling span processor
+     * @throws IOException if the file exporter cannot open its file
+     */
+    @Bean
+    public TailSamplingSpanProcessor tailSamplingSpanProcessor() throws IOException {
+        return new TailSamplingSpanProcessor(createExporter(), latencyThreshold.toNanos(), sampleRatio,
+                maxTraces, maxTraceAge.toNanos());
+    }
+
+    /**
+     * @param tailSamplingSpanProcessor the tail sampler
+     * @return counters for kept and dropped traces
+     */
+    @Bean
+    public MeterBinder tailSamplingMetrics(TailSamplingSpanProcessor tailSamplingSpanProcessor) {
+        return registry -> {
+            FunctionCounter.builder("tracing.traces", tailSamplingSpanProcessor, TailSamplingSpanProcessor::getTracesKept)
+                    .tag("decision", "kept").register(registry);
+            FunctionCounter.builder("tracing.traces", tailSamplingSpanProcessor, TailSamplingSpanProcessor::getTracesDropped)
+                    .tag("decision", "dropped").register(registry);
+        };
+    }
+
+    private SpanExporter createExporter() throws IOException {
+        switch (exporter) {
+            case "memory":
+                return new InMemorySpanExporter(memoryCapacity);
+            case "file":
+                return new FileSpanExporter(Path.of(filePath));
+            case "otlp":
+                return OtlpHttpSpanExporter.builder().setEndpoint(otlpEndpoint).build();
+            case "none":
+                return SpanExporter.composite();
+            default:
+                throw new IllegalArgumentException("Unknown tracing.exporter: " + exporter);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.app.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.configuration.FactoryBuilder;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+/**
+ * Hibernate second-level cache for {@code User} ({@code users.cache.enabled}).
+ * <p>
+ * Users are read on every profile lookup and, in write-behind mode, on every order, but change far less often.
+ * The {@value #REGION} region is a Caffeine heap cache behind JCache, bounded by an estimate of its memory
+ * footprint ({@code users.cache.max-size}, weighed by {@link UserCacheWeigher}) rather than an entry count, and
+ * entries expire {@code users.cache.ttl} after they were written whatever else happens.
+ * Hibernate stores each entity as its disassembled field values and builds a fresh instance on every hit, so
+ * callers never share cached objects; entries are therefore kept by reference instead of being copied again.
+ * </p>
+ * <p>
+ * Invalidation: entity updates through Hibernate maintain the region themselves; statistics updated through JDBC
+ * evict the user after commit ({@code UserCache}), and writes from other nodes arrive as PostgreSQL
+ * notifications ({@code UserChangeListener}). The TTL bounds staleness if a notification is lost.
+ * </p>
+ * <p>
+ * Requires {@code org.hibernate.orm:hibernate-jcache} and {@code com.github.ben-manes.caffeine:jcache}.
+ * </p>
+ */
+@Configuration
+public class UserCacheConfig {
+
+    /**
+     * The cache region of {@code User}; must match the region of its {@code @Cache} annotation.
+     */
+    public static final String REGION = "users";
+
+    /**
+     * @param maxSize the approximate heap budget of the region
+     * @param ttl     how long a cached user is served before it is reloaded
+     * @return the JCache manager holding the {@value #REGION} region
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager userCacheManager(@Value("${users.cache.max-size:32MB}") DataSize maxSize,
+                                         @Value("${users.cache.ttl:5m}") Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setStoreByValue(false);
+        configuration.setMaximumWeight(OptionalLong.of(maxSize.toBytes()));
+        configuration.setWeigherFactory(Optional.of(FactoryBuilder.factoryOf(UserCacheWeigher.class)));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName()).getCacheManager();
+        if (cacheManager.getCache(REGION) != null) {
+            cacheManager.destroyCache(REGION);
+        }
+        cacheManager.createCache(REGION, configuration);
+        return cacheManager;
+    }
+
+    /**
+     * @param userCacheManager the cache manager holding the region
+     * @param enabled          whether the second-level cache is used
+     * @return the Hibernate settings for the second-level cache and its statistics
+     */
+    @Bean
+    public HibernatePropertiesCustomizer userCacheHibernateProperties(CacheManager userCacheManager,
+                                                                     @Value("${users.cache.enabled:true}") boolean enabled) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, enabled);
+            // Users are only looked up by id; query results are not cached
+            properties.put(AvailableSettings.USE_QUERY_CACHE, false);
+            // Hit, miss and load counts for the metrics in MetricsConfig
+            properties.put(AvailableSettings.GENERATE_STATISTICS, true);
+            if (enabled) {
+                properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+                properties.put(ConfigSettings.CACHE_MANAGER, userCacheManager);
+                properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+            }
+        };
+    }
+}
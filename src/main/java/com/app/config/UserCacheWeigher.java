@@ -0,0 +1,56 @@
+package com.app.config;
+
+import com.github.benmanes.caffeine.cache.Weigher;
+import org.hibernate.cache.spi.entry.CacheEntry;
+import org.hibernate.cache.spi.support.AbstractReadWriteAccess;
+
+/**
+ * Weighs second-level cache entries by their approximate heap footprint in bytes, so the {@code users} region is
+ * bounded by memory rather than by entry count: users with long names and emails take more of the budget.
+ * <p>
+ * The estimate counts a fixed overhead for the cache node, key and Hibernate's wrappers plus the disassembled
+ * field values (strings at two bytes per char, boxed numbers, arrays). It errs on the high side; it does not
+ * need to be exact, only proportional.
+ * </p>
+ */
+public class UserCacheWeigher implements Weigher<Object, Object> {
+
+    /** Caffeine node, Hibernate cache key, read-write item and cache entry. */
+    private static final int ENTRY_OVERHEAD = 160;
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 8;
+
+    @Override
+    public int weigh(Object key, Object value) {
+        Object entry = value instanceof AbstractReadWriteAccess.Item item ? item.getValue() : value;
+        long bytes = ENTRY_OVERHEAD;
+        if (entry instanceof CacheEntry cacheEntry) {
+            Object[] state = cacheEntry.getDisassembledState();
+            bytes += OBJECT_HEADER + (long) REFERENCE * state.length;
+            for (Object field : state) {
+                bytes += sizeOf(field);
+            }
+        }
+        return (int) Math.min(bytes, Integer.MAX_VALUE);
+    }
+
+    private static long sizeOf(Object field) {
+        if (field == null) {
+            return 0;
+        }
+        if (field instanceof String string) {
+            return 2L * OBJECT_HEADER + 2L * string.length();
+        }
+        if (field instanceof Object[] array) {
+            long bytes = OBJECT_HEADER + (long) REFERENCE * array.length;
+            for (Object element : array) {
+                bytes += sizeOf(element);
+            }
+            return bytes;
+        }
+        if (field instanceof byte[] bytes) {
+            return OBJECT_HEADER + bytes.length;
+        }
+        return OBJECT_HEADER + REFERENCE;
+    }
+}
@@ -0,0 +1,87 @@
+package com.app.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Guards for the opt-in virtual-thread execution mode ({@code spring.threads.virtual.enabled=true}).
+ * <p>
+ * In this mode Spring Boot runs Tomcat request handling, and with it {@code OrderService.saveOrder} and the
+ * blocking {@code TalonOneClient} calls, on virtual threads. A virtual thread that blocks inside a
+ * {@code synchronized} block pins its carrier thread, so the JDBC driver and connection pool on the
+ * request path must be versions that guard their I/O with {@code java.util.concurrent} locks instead.
+ * This configuration checks those versions at startup and warns when a pinning-prone version is found.
+ * </p>
+ * <p>
+ * Run with {@code -Djdk.tracePinnedThreads=short} to have the JVM report any remaining pinning.
+ * </p>
+ */
+@Configuration
+@ConditionalOnProperty(name = "spring.threads.virtual.enabled", havingValue = "true")
+public class VirtualThreadConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(VirtualThreadConfig.class);
+
+    /**
+     * Components on the request path and the first version that no longer pins carrier threads.
+     */
+    private static final String[][] PINNING_SAFE_VERSIONS = {
+            {"com.zaxxer.hikari.HikariDataSource", "HikariCP", "5.1.0"},
+            {"org.postgresql.Driver", "PostgreSQL JDBC driver", "42.6.0"},
+    };
+
+    /**
+     * Checks the JDBC driver and connection pool versions once the application has started.
+     *
+     * @return the startup check
+     */
+    @Bean
+    public ApplicationRunner virtualThreadPinningCheck() {
+        return args -> {
+            for (String[] component : PINNING_SAFE_VERSIONS) {
+                checkVersion(component[0], component[1], component[2]);
+            }
+            logger.info("Virtual-thread mode enabled: request handling and blocking Talon.One/JDBC calls run on virtual threads");
+        };
+    }
+
+    private static void checkVersion(String className, String name, String minimumVersion) {
+        String version;
+        try {
+            version = Class.forName(className).getPackage().getImplementationVersion();
+        } catch (ClassNotFoundException ex) {
+            return;
+        }
+        if (version == null) {
+            logger.warn("Could not determine the {} version; make sure it is at least {} to avoid pinning virtual threads",
+                    name, minimumVersion);
+        } else if (compareVersions(version, minimumVersion) < 0) {
+            logger.warn("{} {} pins virtual threads on blocking I/O; upgrade to {} or later, or disable spring.threads.virtual.enabled",
+                    name, version, minimumVersion);
+        }
+    }
+
+    private static int compareVersions(String version, String other) {
+        String[] left = version.split("[.-]");
+        String[] right = other.split("[.-]");
+        for (int i = 0; i < Math.min(left.length, right.length); i++) {
+            int cmp = Integer.compare(parseNumber(left[i]), parseNumber(right[i]));
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return 0;
+    }
+
+    private static int parseNumber(String part) {
+        try {
+            return Integer.parseInt(part);
+        } catch (NumberFormatException ex) {
+            return 0;
+        }
+    }
+}
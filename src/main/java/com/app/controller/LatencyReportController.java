@@ -0,0 +1,29 @@
+package com.app.controller;
+
+import com.app.config.EndpointLatencyFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * LatencyReportController exposes per-endpoint latency by thread mode, for comparing
+ * platform-thread and virtual-thread runs of the same load.
+ */
+@RestController
+@RequestMapping("/internal/latency")
+@RequiredArgsConstructor
+public class LatencyReportController {
+
+    private final EndpointLatencyFilter endpointLatencyFilter;
+
+    /**
+     * Fetch latency statistics recorded since startup.
+     * @return statistics keyed by thread mode, HTTP method and endpoint pattern
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Map<String, Object>>> getLatency() {
+        return ResponseEntity.ok(endpointLatencyFilter.snapshot());
+    }
+}
@@ -2,15 +2,22 @@ package com.app.controller;
 
 import com.app.model.OrderRequest;
 import com.app.model.RewardsResponse;
+import com.app.service.BulkOrderService;
 import com.app.service.OrderService;
 import com.app.service.RewardsService;
-import com.app.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.validation.Valid;
-lombok.RequiredArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+
 /**
  * OrderController handles order placement and related logic.
  */
@@ -21,7 +28,8 @@ public class OrderController {
 
     private final OrderService orderService;
     private final RewardsService rewardsService;
-    private final UserService userService;
+    private final BulkOrderService bulkOrderService;
+    private final ObservationRegistry observationRegistry;
 
     /**
      * Place an order, evaluate rewards, save order, and update user stats.
@@ -30,15 +38,28 @@ public class OrderController {
      */
     @PostMapping
     public ResponseEntity<?> placeOrder(@Valid @RequestBody OrderRequest orderRequest) {
-        // Evaluate rewards
-        RewardsResponse rewards = rewardsService.evaluateRewards(orderRequest.getCart());
+        return Observation.createNotStarted("orders.place", observationRegistry).observe(() -> {
+            // Evaluate rewards
+            RewardsResponse rewards = rewardsService.evaluateRewards(orderRequest.getCart());
 
-        // Save order
-        var order = orderService.saveOrder(orderRequest, rewards);
+            // Save order and update user stats
+            var order = orderService.saveOrder(orderRequest, rewards);
 
-        // Update user stats
-        userService.updateUserStats(order.getUserId(), order.getTotalOrders(), order.getTotalSpent());
+            return ResponseEntity.status(HttpStatus.CREATED).body(order);
+        });
+    }
 
-        return ResponseEntity.status(HttpStatus.CREATED).body(order);
+    /**
+     * Import orders in bulk. The body is parsed and processed incrementally, and one result per order
+     * is streamed back as NDJSON while the import runs.
+     * @param request request with an NDJSON or JSON array body of OrderRequest objects
+     * @param response response receiving NDJSON BulkOrderResult lines
+     * @throws IOException if reading the request or writing the response fails
+     */
+    @PostMapping(value = "/bulk", consumes = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public void placeOrdersBulk(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.OK.value());
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        bulkOrderService.ingest(request.getInputStream(), response.getOutputStream());
     }
 }
@@ -0,0 +1,80 @@
+package com.app.controller;
+
+import com.app.service.EvaluationCache;
+import com.app.service.RewardsService;
+import com.app.talonone.TalonOneBulkhead;
+import com.app.talonone.TalonOneCircuitBreaker;
+import com.app.talonone.TalonOneOperation;
+import com.app.talonone.TalonOnePriority;
+import com.app.talonone.TalonOneResilience;
+import com.app.talonone.TalonOneScheduler;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ResilienceReportController exposes the state of the Talon.One circuit breakers, bulkheads and request scheduler
+ * and how often rewards evaluations were degraded.
+ */
+@RestController
+@RequestMapping("/internal/resilience")
+@RequiredArgsConstructor
+public class ResilienceReportController {
+
+    private final TalonOneResilience talonOneResilience;
+    private final TalonOneScheduler talonOneScheduler;
+    private final RewardsService rewardsService;
+    private final EvaluationCache evaluationCache;
+
+    /**
+     * Fetch breaker, bulkhead, scheduler and fallback statistics recorded since startup.
+     * @return statistics per Talon.One operation and per priority class, plus fallback counts
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getResilience() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        for (TalonOneOperation operation : TalonOneOperation.values()) {
+            TalonOneCircuitBreaker breaker = talonOneResilience.getCircuitBreaker(operation);
+            TalonOneBulkhead bulkhead = talonOneResilience.getBulkhead(operation);
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("breakerState", breaker.getState());
+            stats.put("breakerOpened", breaker.getOpened());
+            stats.put("breakerRejected", breaker.getRejected());
+            stats.put("bulkheadLimit", bulkhead.getLimit());
+            stats.put("bulkheadInFlight", bulkhead.getInFlight());
+            stats.put("bulkheadRejected", bulkhead.getRejected());
+            stats.put("hedgeDelayMillis", talonOneResilience.getHedgePolicy(operation).getDelayNanos() / 1_000_000);
+            stats.put("hedgeBudgetExhausted", talonOneResilience.getHedgePolicy(operation).getBudgetExhausted());
+            report.put(operation.name(), stats);
+        }
+        report.put("hedges", talonOneResilience.getHedges());
+
+        Map<String, Object> scheduler = new LinkedHashMap<>();
+        for (TalonOnePriority priority : TalonOnePriority.values()) {
+            TalonOneScheduler.Lane lane = talonOneScheduler.getLane(priority);
+            Map<String, Object> stats = new LinkedHashMap<>();
+            stats.put("queued", talonOneScheduler.getQueued(priority));
+            stats.put("admitted", lane.getAdmitted());
+            stats.put("shedQueueFull", lane.getShedQueueFull());
+            stats.put("shedDeadline", lane.getShedDeadline());
+            stats.put("abandoned", lane.getAbandoned());
+            stats.put("meanWaitMillis", lane.getWaitTimer().mean(TimeUnit.MILLISECONDS));
+            stats.put("maxWaitMillis", lane.getWaitTimer().max(TimeUnit.MILLISECONDS));
+            scheduler.put(priority.name(), stats);
+        }
+        scheduler.put("availablePermits", talonOneScheduler.getAvailablePermits());
+        scheduler.put("pausedMillis", talonOneScheduler.getPausedMillis());
+        scheduler.put("rateLimited", talonOneScheduler.getRateLimited());
+        scheduler.put("rateLimitRetried", talonOneScheduler.getRateLimitRetried());
+        report.put("scheduler", scheduler);
+
+        report.put("staleFallbacks", rewardsService.getStaleFallbacks());
+        report.put("zeroDiscountFallbacks", rewardsService.getZeroDiscountFallbacks());
+        report.put("staleEvaluationsServed", evaluationCache.getStaleServed());
+        return ResponseEntity.ok(report);
+    }
+}
@@ -4,10 +4,12 @@ import com.app.model.CartRequest;
 import com.app.model.RewardsResponse;
 import com.app.service.RewardsService;
 import jakarta.validation.Valid;
-lombok.RequiredArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * RewardsController handles reward evaluation via Talon.One.
  */
@@ -19,14 +21,17 @@ public class RewardsController {
     private final RewardsService rewardsService;
 
     /**
-     * Evaluate rewards based on cart details.
+     * Evaluate rewards based on cart details, for display while browsing.
+     * The request thread is released while Talon.One evaluates the cart; the response is written on completion.
+     * With {@code talonone.rules.mode=LOCAL} the result is a provisional local evaluation; the order itself is
+     * always evaluated by Talon.One.
      * @param cartRequest CartRequest payload
      * @return RewardsResponse with applicable discounts and rewards
      */
     @PostMapping("/evaluate")
-    public ResponseEntity<RewardsResponse> evaluateRewards(
+    public CompletableFuture<ResponseEntity<RewardsResponse>> evaluateRewards(
             @Valid @RequestBody CartRequest cartRequest) {
-        RewardsResponse response = rewardsService.evaluateRewards(cartRequest);
-        return ResponseEntity.ok(response);
+        return rewardsService.previewRewardsAsync(cartRequest)
+                .thenApply(ResponseEntity::ok);
     }
 }
@@ -0,0 +1,45 @@
+package com.app.controller;
+
+import com.app.rules.LocalRulesEngine;
+import com.app.rules.ShadowComparator;
+import com.app.service.RewardsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * RulesReportController exposes the local rules snapshot and how the local evaluations compare with Talon.One.
+ */
+@RestController
+@RequestMapping("/internal/rules")
+@RequiredArgsConstructor
+public class RulesReportController {
+
+    private final LocalRulesEngine localRulesEngine;
+    private final ShadowComparator shadowComparator;
+    private final RewardsService rewardsService;
+
+    /**
+     * Fetch the snapshot state, local evaluation counts and shadow comparison results recorded since startup.
+     * @return snapshot, evaluation and divergence statistics, with the most recent divergences
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getRules() {
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("snapshotVersion", localRulesEngine.getVersion());
+        report.put("rules", localRulesEngine.getRuleCount());
+        report.put("snapshotAgeSeconds", localRulesEngine.getAgeSeconds());
+        report.put("refreshFailures", localRulesEngine.getRefreshFailures());
+        report.put("localEvaluations", rewardsService.getLocalEvaluations());
+        report.put("localMisses", rewardsService.getLocalMisses());
+        report.put("shadowMatches", shadowComparator.getMatches());
+        report.put("shadowDivergences", shadowComparator.getDivergences());
+        report.put("divergenceRatio", shadowComparator.getDivergenceRatio());
+        report.put("discountDeltaCents", shadowComparator.getDiscountDeltaCents());
+        report.put("recentDivergences", shadowComparator.getRecentDivergences());
+        return ResponseEntity.ok(report);
+    }
+}
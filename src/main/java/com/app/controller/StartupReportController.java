@@ -0,0 +1,29 @@
+package com.app.controller;
+
+import com.app.config.StartupTimingFilter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+/**
+ * StartupReportController exposes how long this instance took to start and to serve its first request,
+ * for comparing the JVM, AOT, CDS and native startup modes.
+ */
+@RestController
+@RequestMapping("/internal/startup")
+@RequiredArgsConstructor
+public class StartupReportController {
+
+    private final StartupTimingFilter startupTimingFilter;
+
+    /**
+     * Fetch the startup mode and timings of this instance.
+     * @return the mode, time to readiness and first-request latency
+     */
+    @GetMapping
+    public ResponseEntity<Map<String, Object>> getStartup() {
+        return ResponseEntity.ok(startupTimingFilter.snapshot());
+    }
+}
@@ -0,0 +1,58 @@
+package com.app.controller;
+
+import com.app.tracing.InMemorySpanExporter;
+import com.app.tracing.TailSamplingSpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TraceReportController exposes the spans held by the in-memory exporter ({@code tracing.exporter=memory}),
+ * for inspecting traces locally without a collector.
+ */
+@RestController
+@RequestMapping("/internal/traces")
+@RequiredArgsConstructor
+public class TraceReportController {
+
+    private final TailSamplingSpanProcessor tailSamplingSpanProcessor;
+
+    /**
+     * Fetch the most recent exported spans.
+     * @param traceId optional trace ID to filter by
+     * @return 200 OK with the spans, oldest first, or 404 Not Found if the in-memory exporter is not in use
+     */
+    @GetMapping
+    public ResponseEntity<List<Map<String, Object>>> getTraces(@RequestParam(required = false) String traceId) {
+        if (!(tailSamplingSpanProcessor.getExporter() instanceof InMemorySpanExporter exporter)) {
+            return ResponseEntity.notFound().build();
+        }
+        List<Map<String, Object>> spans = new ArrayList<>();
+        for (SpanData span : exporter.getFinishedSpans()) {
+            if (traceId != null && !traceId.equals(span.getTraceId())) {
+                continue;
+            }
+            Map<String, Object> view = new LinkedHashMap<>();
+            view.put("traceId", span.getTraceId());
+            view.put("spanId", span.getSpanId());
+            view.put("parentSpanId", span.getParentSpanId());
+            view.put("name", span.getName());
+            view.put("kind", span.getKind().name());
+            view.put("durationMicros",
+                    TimeUnit.NANOSECONDS.toMicros(span.getEndEpochNanos() - span.getStartEpochNanos()));
+            view.put("status", span.getStatus().getStatusCode().name());
+            Map<String, String> attributes = new LinkedHashMap<>();
+            span.getAttributes().forEach((key, value) -> attributes.put(key.getKey(), String.valueOf(value)));
+            view.put("attributes", attributes);
+            spans.add(view);
+        }
+        return ResponseEntity.ok(spans);
+    }
+}
@@ -1,5 +1,6 @@
 package com.app.controller;
 
+import com.app.model.OrderHistoryPage;
 import com.app.model.User;
 import com.app.model.OrderRequest;
 import com.app.model.CartRequest;
@@ -8,7 +9,7 @@ import com.app.service.UserService;
 import com.app.service.OrderService;
 import com.app.service.RewardsService;
 import jakarta.validation.Valid;
-lombok.RequiredArgsConstructor;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
@@ -22,6 +23,7 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
 
     private final UserService userService;
+    private final OrderService orderService;
 
     /**
      * Fetch user details by ID.
@@ -53,4 +55,26 @@ public class UserController {
         }
         return ResponseEntity.noContent().build();
     }
+
+    /**
+     * List a user's orders, newest first, one page at a time.
+     * @param id User ID
+     * @param cursor The nextCursor of the previous page; omit for the first page
+     * @param limit Page size; defaults to orders.history.default-page-size, capped at orders.history.max-page-size
+     * @return The page of orders with their items, 404 if the user is not found, 400 if the cursor is invalid
+     */
+    @GetMapping("/{id}/orders")
+    public ResponseEntity<OrderHistoryPage> getOrders(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        if (userService.getUserById(id) == null) {
+            return ResponseEntity.notFound().build();
+        }
+        try {
+            return ResponseEntity.ok(orderService.getOrderHistory(id, cursor, limit));
+        } catch (IllegalArgumentException ex) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
 }
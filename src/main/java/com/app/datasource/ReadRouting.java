@@ -0,0 +1,126 @@
+package com.app.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+
+/**
+ * Read-after-write stickiness for replica routing ({@code datasource.replica.enabled}).
+ * <p>
+ * After a user's data was written, reads for that user go to the primary for {@code datasource.replica.sticky-window},
+ * which should exceed the replication lag tolerated by {@link ReplicaMonitor}; otherwise a client could place an
+ * order and not find it in its order history. Reads declare their user with {@link #forUser(long)}; the routing
+ * decision itself is made by {@link ReplicaRoutingDataSource} when the transaction first touches the database.
+ * </p>
+ * <p>
+ * Writes are tracked per node, in a Caffeine cache that expires each user after the sticky window and holds at
+ * most {@code datasource.replica.sticky-max-users}. Writes made by other nodes become sticky here when their change
+ * notification arrives (see {@code UserChangeListener}).
+ * </p>
+ */
+@Component
+public class ReadRouting {
+
+    private static final ThreadLocal<Long> currentUser = new ThreadLocal<>();
+
+    @Value("${datasource.replica.enabled:false}")
+    private boolean enabled;
+
+    @Value("${datasource.replica.sticky-window:5s}")
+    private Duration stickyWindow;
+
+    @Value("${datasource.replica.sticky-max-users:100000}")
+    private int maxUsers;
+
+    private Cache<Long, Boolean> recentWrites;
+
+    /**
+     * Builds the cache of recently written users.
+     */
+    @PostConstruct
+    public void init() {
+        recentWrites = Caffeine.newBuilder()
+                .maximumSize(maxUsers)
+                .expireAfterWrite(stickyWindow)
+                .build();
+    }
+
+    /**
+     * Declares the user whose data the current thread is about to read, until the returned scope is closed.
+     * @param userId The user ID.
+     * @return the scope restoring the previous user on close
+     */
+    public Scope forUser(long userId) {
+        Long previous = currentUser.get();
+        currentUser.set(userId);
+        return new Scope(previous);
+    }
+
+    /**
+     * Pins reads of the user to the primary for the sticky window, starting when the current transaction commits.
+     * @param userId The user ID.
+     */
+    public void markWrittenAfterCommit(long userId) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    markWritten(userId);
+                }
+            });
+        } else {
+            markWritten(userId);
+        }
+    }
+
+    /**
+     * Pins reads of the user to the primary for the sticky window, starting now.
+     * @param userId The user ID.
+     */
+    public void markWritten(long userId) {
+        if (!enabled) {
+            return;
+        }
+        recentWrites.put(userId, Boolean.TRUE);
+    }
+
+    /**
+     * @return true if the current thread reads for a user written within the sticky window
+     */
+    public boolean isStickyToPrimary() {
+        Long userId = currentUser.get();
+        if (userId == null) {
+            return false;
+        }
+        return recentWrites.getIfPresent(userId) != null;
+    }
+
+    /**
+     * Restores the previously declared user on close.
+     */
+    public static final class Scope implements AutoCloseable {
+        private final Long previous;
+
+        private Scope(Long previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                currentUser.remove();
+            } else {
+                currentUser.set(previous);
+            }
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.app.datasource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tracks the replication lag of each read replica and picks a replica for the next read-only transaction.
+ * <p>
+ * Every {@code datasource.replica.lag-check-interval} the primary's current WAL position is compared with each
+ * replica's replayed position. A replica that has replayed everything has no lag, even if the primary has been
+ * idle for a while; otherwise the lag is the age of its last replayed transaction. Replicas lagging more than
+ * {@code datasource.replica.max-lag}, and replicas whose check fails, are taken out of rotation until a later
+ * check passes. The healthy replicas are used round-robin.
+ * </p>
+ */
+public class ReplicaMonitor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaMonitor.class);
+
+    private static final String PRIMARY_LSN_SQL = "SELECT pg_current_wal_lsn()::text";
+    private static final String REPLICA_LAG_SQL = "SELECT pg_last_wal_replay_lsn()::text, "
+            + "COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)";
+
+    private final JdbcTemplate primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagMillis;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile List<Replica> healthy = Collections.emptyList();
+
+    /**
+     * Constructs the monitor. All replicas start out of rotation until their first check.
+     * @param primary  the primary data source
+     * @param replicas the replica data sources by routing key
+     * @param maxLag   the largest tolerated replication lag
+     */
+    public ReplicaMonitor(DataSource primary, Map<String, DataSource> replicas, Duration maxLag) {
+        this.primary = new JdbcTemplate(primary);
+        this.maxLagMillis = maxLag.toMillis();
+        replicas.forEach((key, dataSource) -> this.replicas.add(new Replica(key, new JdbcTemplate(dataSource))));
+    }
+
+    /**
+     * @return the routing key of the next healthy replica, or null if none is healthy
+     */
+    public String pick() {
+        List<Replica> candidates = healthy;
+        if (candidates.isEmpty()) {
+            return null;
+        }
+        return candidates.get(Math.floorMod(next.getAndIncrement(), candidates.size())).key;
+    }
+
+    /**
+     * Measures the lag of every replica and updates the rotation.
+     */
+    @Scheduled(fixedDelayString = "${datasource.replica.lag-check-interval:1000}")
+    public void check() {
+        long primaryLsn;
+        try {
+            primaryLsn = parseLsn(primary.queryForObject(PRIMARY_LSN_SQL, String.class));
+        } catch (RuntimeException ex) {
+            logger.warn("Could not read the primary WAL position; keeping the current replica rotation", ex);
+            return;
+        }
+        List<Replica> inRotation = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try {
+                replica.lagMillis = replica.jdbcTemplate.queryForObject(REPLICA_LAG_SQL, (rs, rowNum) ->
+                        parseLsn(rs.getString(1)) >= primaryLsn ? 0L : (long) rs.getDouble(2));
+                replica.healthy = replica.lagMillis <= maxLagMillis;
+            } catch (RuntimeException ex) {
+                replica.lagMillis = -1;
+                replica.healthy = false;
+                logger.debug("Lag check of replica {} failed", replica.key, ex);
+            }
+            if (replica.healthy != wasHealthy) {
+                logger.info("Replica {} {} rotation (lag {} ms)", replica.key,
+                        replica.healthy ? "back in" : "taken out of", replica.lagMillis);
+            }
+            if (replica.healthy) {
+                inRotation.add(replica);
+            }
+        }
+        healthy = List.copyOf(inRotation);
+    }
+
+    /**
+     * @return the last measured lag per replica in millis, -1 if its check failed
+     */
+    public Map<String, Long> getLagMillis() {
+        Map<String, Long> lag = new LinkedHashMap<>();
+        for (Replica replica : replicas) {
+            lag.put(replica.key, replica.lagMillis);
+        }
+        return lag;
+    }
+
+    /**
+     * @param key the replica's routing key
+     * @return true if the replica is in rotation
+     */
+    public boolean isHealthy(String key) {
+        return healthy.stream().anyMatch(replica -> replica.key.equals(key));
+    }
+
+    /**
+     * @return the routing keys of all replicas
+     */
+    public List<String> getReplicaKeys() {
+        return replicas.stream().map(replica -> replica.key).toList();
+    }
+
+    /**
+     * Parses a PostgreSQL LSN ({@code XXXXXXXX/XXXXXXXX}) into a comparable number; null (not a replica, or
+     * nothing replayed yet) parses as 0.
+     */
+    private static long parseLsn(String lsn) {
+        if (lsn == null) {
+            return 0;
+        }
+        int slash = lsn.indexOf('/');
+        return (Long.parseLong(lsn.substring(0, slash), 16) << 32) | Long.parseLong(lsn.substring(slash + 1), 16);
+    }
+
+    private static final class Replica {
+        final String key;
+        final JdbcTemplate jdbcTemplate;
+        volatile long lagMillis = -1;
+        volatile boolean healthy;
+
+        Replica(String key, JdbcTemplate jdbcTemplate) {
+            this.key = key;
+            this.jdbcTemplate = jdbcTemplate;
+        }
+    }
+}
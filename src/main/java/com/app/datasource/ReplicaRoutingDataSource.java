@@ -0,0 +1,97 @@
+package com.app.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Routes read-only transactions to a healthy replica and everything else to the primary.
+ * <p>
+ * A connection goes to a replica only if the current transaction is read-only, the thread is not reading for a
+ * user written within the sticky window ({@link ReadRouting}) and {@link ReplicaMonitor} has a replica within
+ * the lag limit. Must be wrapped in a {@code LazyConnectionDataSourceProxy}: the transaction manager fetches its
+ * connection before the read-only flag is published, so the routing decision has to wait for the first statement.
+ * </p>
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    /** Routing key of the primary. */
+    public static final String PRIMARY = "primary";
+
+    private final ReplicaMonitor replicaMonitor;
+    private final ReadRouting readRouting;
+
+    private final LongAdder primaryWrites = new LongAdder();
+    private final LongAdder primaryStickyReads = new LongAdder();
+    private final LongAdder primaryFallbackReads = new LongAdder();
+    private final LongAdder replicaReads = new LongAdder();
+
+    /**
+     * Constructs the routing data source.
+     * @param primary        the primary
+     * @param replicas       the replicas by routing key
+     * @param replicaMonitor picks a healthy replica
+     * @param readRouting    the read-after-write stickiness
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas,
+                                    ReplicaMonitor replicaMonitor, ReadRouting readRouting) {
+        this.replicaMonitor = replicaMonitor;
+        this.readRouting = readRouting;
+        Map<Object, Object> targets = new HashMap<>(replicas);
+        targets.put(PRIMARY, primary);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            primaryWrites.increment();
+            return PRIMARY;
+        }
+        if (readRouting.isStickyToPrimary()) {
+            primaryStickyReads.increment();
+            return PRIMARY;
+        }
+        String replica = replicaMonitor.pick();
+        if (replica == null) {
+            primaryFallbackReads.increment();
+            return PRIMARY;
+        }
+        replicaReads.increment();
+        return replica;
+    }
+
+    /**
+     * @return the number of connections for read-write work or work outside a transaction
+     */
+    public long getPrimaryWrites() {
+        return primaryWrites.sum();
+    }
+
+    /**
+     * @return the number of read-only connections kept on the primary by read-after-write stickiness
+     */
+    public long getPrimaryStickyReads() {
+        return primaryStickyReads.sum();
+    }
+
+    /**
+     * @return the number of read-only connections sent to the primary because no replica was healthy
+     */
+    public long getPrimaryFallbackReads() {
+        return primaryFallbackReads.sum();
+    }
+
+    /**
+     * @return the number of read-only connections served by a replica
+     */
+    public long getReplicaReads() {
+        return replicaReads.sum();
+    }
+}
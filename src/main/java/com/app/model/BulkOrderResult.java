@@ -0,0 +1,24 @@
+package com.app.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+/**
+ * DTO representing the outcome of one order in a bulk import, streamed back as one NDJSON line.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkOrderResult {
+    public static final String STATUS_CREATED = "CREATED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    private long index; // Zero-based position of the order in the request body
+    private String status; // CREATED or FAILED
+    private Long orderId;
+    private double totalAmount;
+    private double discountApplied;
+    private String error;
+}
@@ -0,0 +1,29 @@
+package com.app.model;
+
+import lombok.*;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * DTO representing one simple Talon.One campaign rule in a local rules snapshot.
+ * <p>
+ * A rule applies when the cart total reaches {@code minTotal} and the current time is within the optional
+ * {@code startsAt}/{@code endsAt} window. {@code ITEM_PERCENT} rules apply per cart line whose SKU is listed
+ * in {@code skus} and whose quantity reaches {@code minQuantity}.
+ * </p>
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CampaignRule {
+    private String campaignName;
+    private CampaignRuleType type;
+    private double value;
+    private double minTotal;
+    private List<String> skus;
+    private int minQuantity;
+    private Instant startsAt;
+    private Instant endsAt;
+}
@@ -0,0 +1,27 @@
+package com.app.model;
+
+/**
+ * The simple campaign effects the local rules engine can evaluate.
+ */
+public enum CampaignRuleType {
+
+    /**
+     * Percentage off the cart total; {@code value} is the percentage.
+     */
+    CART_PERCENT,
+
+    /**
+     * Fixed amount off the cart total; {@code value} is the amount.
+     */
+    CART_AMOUNT,
+
+    /**
+     * Percentage off the matching cart lines; {@code value} is the percentage.
+     */
+    ITEM_PERCENT,
+
+    /**
+     * Loyalty points earned per unit of the cart total; {@code value} is the points per unit.
+     */
+    LOYALTY_POINTS
+}
@@ -0,0 +1,17 @@
+package com.app.model;
+
+import lombok.*;
+
+/**
+ * DTO representing a single line item in a cart.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class CartItemDTO {
+    private String sku;
+    private String name;
+    private int quantity;
+    private double price; // Unit price
+}
@@ -1,5 +1,6 @@
 package com.app.model;
 
+import jakarta.validation.constraints.NotNull;
 import lombok.*;
 import java.util.List;
 
@@ -11,6 +12,7 @@ import java.util.List;
 @AllArgsConstructor
 @Builder
 public class CartRequest {
+    @NotNull
     private Long userId;
     private List<CartItemDTO> items;
     private double totalAmount;
@@ -1,7 +1,8 @@
 package com.app.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
-lombok.*;
+import lombok.*;
 
 /**
  * Item entity representing a product within an order.
@@ -14,14 +15,22 @@ lombok.*;
 @Builder
 public class Item {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_seq")
+    @SequenceGenerator(name = "items_seq", sequenceName = "items_seq", allocationSize = 50)
     private Long id;
     private String sku;
     private String name;
     private int quantity;
     private double price;
-    // Foreign key to Order
+    // Copy of the order's createdAt: the partition key, so an order and its items land in the same month
+    @JsonIgnore
+    private long orderCreatedAt;
+    // Reference to Order; no database constraint, a foreign key cannot target the partitioned orders table by id
+    // alone (see db/migration/V6__partition_orders_items.sql)
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "order_id")
+    @JoinColumn(name = "order_id", foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private Order order;
 }
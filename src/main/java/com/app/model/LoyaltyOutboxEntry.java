@@ -0,0 +1,39 @@
+package com.app.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Outbox entry for a pending Talon.One loyalty confirmation.
+ * Written in the same transaction as the Order it belongs to and dispatched asynchronously.
+ */
+@Entity
+@Table(name = "loyalty_outbox", indexes = {
+        @Index(name = "idx_loyalty_outbox_status_next_attempt", columnList = "status, nextAttemptAt")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LoyaltyOutboxEntry {
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_DISPATCHED = "DISPATCHED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loyalty_outbox_seq")
+    @SequenceGenerator(name = "loyalty_outbox_seq", sequenceName = "loyalty_outbox_seq", allocationSize = 50)
+    private Long id;
+    // One confirmation per order; the unique constraint deduplicates by order id
+    @Column(nullable = false, unique = true)
+    private Long orderId;
+    @Column(nullable = false)
+    private Long userId;
+    private double totalAmount;
+    @Column(nullable = false)
+    private String status; // PENDING, DISPATCHED or FAILED
+    private int attempts;
+    private long nextAttemptAt; // Unix epoch millis; also the claim lease while a dispatch is in flight
+    private long createdAt; // Unix epoch millis
+    private String lastError;
+}
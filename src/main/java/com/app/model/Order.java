@@ -1,11 +1,16 @@
 package com.app.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
-lombok.*;
+import lombok.*;
 import java.util.List;
 
 /**
  * Order entity representing a purchase made by a user.
+ * <p>
+ * The orders and items tables are range-partitioned by month on the creation time (see
+ * {@code com.app.partition.OrderPartitionManager}); the id alone identifies an order.
+ * </p>
  */
 @Entity
 @Table(name = "orders")
@@ -15,16 +20,21 @@ import java.util.List;
 @Builder
 public class Order {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // allocationSize matches INCREMENT BY of the sequences in V1__pooled_id_sequences.sql
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
-    // Foreign key to User
+    // Reference to User; no database constraint on the partitioned table, saveOrder verifies the user exists
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
     @ManyToOne(fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id", nullable = false)
+    @JoinColumn(name = "user_id", nullable = false, foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private User user;
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<Item> items;
     private double totalAmount;
     private double discountApplied;
     private String status; // e.g., PLACED, CANCELLED, etc.
-    private long createdAt; // Unix timestamp for order creation
+    private long createdAt; // Unix timestamp (epoch millis) for order creation; the partition key of orders
 }
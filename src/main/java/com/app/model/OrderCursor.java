@@ -0,0 +1,39 @@
+package com.app.model;
+
+import lombok.Value;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in a user's order history: the {@code (createdAt, id)} of the last order of a page.
+ * Encoded as an opaque URL-safe token so clients cannot depend on its contents.
+ */
+@Value
+public class OrderCursor {
+    long createdAt; // Creation time of the last order returned
+    long id; // Id of the last order returned; breaks ties between orders created in the same millisecond
+
+    /**
+     * @return the cursor as an opaque token
+     */
+    public String encode() {
+        String raw = createdAt + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    /**
+     * @param token a token produced by {@link #encode()}
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static OrderCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+            int separator = raw.indexOf(':');
+            return new OrderCursor(Long.parseLong(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("Invalid order history cursor: " + token, ex);
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.app.model;
+
+import lombok.*;
+import java.util.List;
+
+/**
+ * DTO for one page of a user's order history, newest first.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderHistoryPage {
+    private List<OrderSummaryDTO> orders;
+    private String nextCursor; // Pass as ?cursor= to fetch the next page; null on the last page
+}
@@ -0,0 +1,20 @@
+package com.app.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.*;
+
+/**
+ * DTO representing one line of an order in the order history.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderItemDTO {
+    @JsonIgnore
+    private Long orderId; // Groups the items of a page by order; not part of the response
+    private String sku;
+    private String name;
+    private int quantity;
+    private double price; // Unit price
+}
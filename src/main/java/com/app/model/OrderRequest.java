@@ -1,5 +1,7 @@
 package com.app.model;
 
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
 /**
@@ -10,6 +12,9 @@ import lombok.*;
 @AllArgsConstructor
 @Builder
 public class OrderRequest {
+    @NotNull
     private Long userId;
+    @NotNull
+    @Valid
     private CartRequest cart;
 }
@@ -0,0 +1,29 @@
+package com.app.model;
+
+import lombok.*;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO representing one order in the order history, projected directly from the query rather than loaded as an entity.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OrderSummaryDTO {
+    private Long id;
+    private double totalAmount;
+    private double discountApplied;
+    private String status;
+    private long createdAt; // Unix timestamp (epoch millis)
+    @Builder.Default
+    private List<OrderItemDTO> items = new ArrayList<>();
+
+    /**
+     * Constructor used by the JPQL projection; items are attached per page afterwards.
+     */
+    public OrderSummaryDTO(Long id, double totalAmount, double discountApplied, String status, long createdAt) {
+        this(id, totalAmount, discountApplied, status, createdAt, new ArrayList<>());
+    }
+}
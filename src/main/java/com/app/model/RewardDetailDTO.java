@@ -0,0 +1,16 @@
+package com.app.model;
+
+import lombok.*;
+
+/**
+ * DTO representing a single reward or discount effect returned by Talon.One.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RewardDetailDTO {
+    private String campaignName;
+    private String type; // e.g., DISCOUNT, LOYALTY_POINTS, FREE_ITEM
+    private double value;
+}
@@ -0,0 +1,17 @@
+package com.app.model;
+
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * DTO representing an export of the simple Talon.One campaign rules, evaluated locally by the rules engine.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RulesSnapshot {
+    private String version;
+    private List<CampaignRule> rules;
+}
@@ -1,5 +1,6 @@
 package com.app.model;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 import java.util.List;
 import java.util.Map;
@@ -17,4 +18,6 @@ public class SessionDTO {
     private List<CartItemDTO> items;
     private double totalAmount;
     private Map<String, Object> sessionAttributes; // e.g., device, channel, etc.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Map<String, Object> profileAttributes; // Set only when the profile is sent inline with the session
 }
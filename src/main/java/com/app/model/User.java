@@ -1,14 +1,21 @@
 package com.app.model;
 
 import jakarta.persistence.*;
-lombok.*;
+import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.util.List;
 
 /**
  * User entity representing a customer in the e-commerce system.
+ * <p>
+ * Cached in the second-level cache (see {@code UserCacheConfig}); the orders collection is not cached and stays lazy.
+ * </p>
  */
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,247 @@
+package com.app.partition;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves order partitions past the retention out of the database ({@code orders.archive.enabled}).
+ * <p>
+ * Every {@code orders.archive.check-interval}, each month that ended more than {@code orders.archive.retention-months}
+ * months ago is archived, oldest first, the legacy partitions once the cutover is past the retention:
+ * </p>
+ * <ol>
+ *     <li>its {@code orders} and {@code items} partitions are detached with {@code DETACH PARTITION CONCURRENTLY},
+ *     which never blocks order inserts or reads;</li>
+ *     <li>each detached table is exported with {@code COPY} to a gzip-compressed CSV file with a header,
+ *     {@code <orders.archive.directory>/<table>.csv.gz}, written under a temporary name, synced and then renamed;</li>
+ *     <li>once the exported row count matches the table's, the table is dropped.</li>
+ * </ol>
+ * <p>
+ * Each step is picked up again after a crash: detaches left pending are finalized, detached tables still present
+ * are exported again. With several nodes, an advisory lock lets one of them do it. Archived orders are no longer
+ * in the order history; restore a month with {@code COPY ... FROM PROGRAM 'gunzip -c ...' (FORMAT csv, HEADER)}
+ * into a table attached for its range.
+ * </p>
+ */
+@Component
+public class OrderPartitionArchiver {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderPartitionArchiver.class);
+
+    private static final long LOCK_KEY = OrderPartitionManager.LOCK_KEY + 1;
+
+    private final DataSource dataSource;
+    private final boolean postgres;
+
+    @Value("${orders.archive.enabled:false}")
+    private boolean enabled;
+
+    @Value("${orders.archive.retention-months:24}")
+    private int retentionMonths;
+
+    @Value("${orders.archive.directory:order-archive}")
+    private Path directory;
+
+    private final LongAdder archivedPartitions = new LongAdder();
+    private final LongAdder archivedRows = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Constructs the archiver.
+     * @param dataSource           the application data source; each run uses one connection of the primary
+     * @param dataSourceProperties the connection settings, to recognize PostgreSQL
+     */
+    public OrderPartitionArchiver(DataSource dataSource, DataSourceProperties dataSourceProperties) {
+        this.dataSource = dataSource;
+        String url = dataSourceProperties.determineUrl();
+        this.postgres = url != null && url.startsWith("jdbc:postgresql:");
+    }
+
+    /**
+     * Archives every partition past the retention.
+     */
+    @Scheduled(fixedDelayString = "${orders.archive.check-interval:3600000}")
+    public void archive() {
+        if (!enabled || !postgres) {
+            return;
+        }
+        // Autocommit: DETACH ... CONCURRENTLY cannot run inside a transaction
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(true);
+            JdbcTemplate jdbc = new JdbcTemplate(new SingleConnectionDataSource(connection, true));
+            if (!OrderPartitions.isPartitioned(jdbc)) {
+                return;
+            }
+            if (!Boolean.TRUE.equals(jdbc.queryForObject("SELECT pg_try_advisory_lock(?)", Boolean.class, LOCK_KEY))) {
+                return;
+            }
+            try {
+                for (String suffix : dueSuffixes(jdbc)) {
+                    archive(jdbc, connection, suffix);
+                }
+            } finally {
+                jdbc.queryForObject("SELECT pg_advisory_unlock(?)", Boolean.class, LOCK_KEY);
+            }
+        } catch (SQLException | IOException | RuntimeException ex) {
+            failures.increment();
+            logger.warn("Order partition archiving failed; it is resumed on the next run", ex);
+        }
+    }
+
+    /**
+     * @return the suffixes of the partitions past the retention, oldest first, attached or not
+     */
+    private List<String> dueSuffixes(JdbcTemplate jdbc) {
+        long retainFrom = OrderPartitions.startMillis(OrderPartitions.currentMonth().minusMonths(retentionMonths));
+        Map<Long, String> due = new TreeMap<>();
+        List<String> tables = jdbc.queryForList("SELECT relname FROM pg_class WHERE relkind = 'r' "
+                + "AND relname ~ '^(orders|items)_(p[0-9]{6}|legacy)$'", String.class);
+        for (String table : tables) {
+            String suffix = table.substring(table.indexOf('_') + 1);
+            long end = OrderPartitions.LEGACY.equals(suffix)
+                    ? OrderPartitions.cutover(jdbc)
+                    : OrderPartitions.startMillis(OrderPartitions.month(suffix).plusMonths(1));
+            if (end <= retainFrom) {
+                due.put(end, suffix);
+            }
+        }
+        return new ArrayList<>(due.values());
+    }
+
+    private void archive(JdbcTemplate jdbc, Connection connection, String suffix) throws SQLException, IOException {
+        for (String parent : OrderPartitions.PARENTS) {
+            detach(jdbc, parent, parent + "_" + suffix);
+        }
+        long rows = 0;
+        for (String parent : OrderPartitions.PARENTS) {
+            String table = parent + "_" + suffix;
+            if (exists(jdbc, table)) {
+                rows += export(jdbc, connection, table);
+                jdbc.execute("DROP TABLE " + table);
+            }
+        }
+        archivedPartitions.increment();
+        archivedRows.add(rows);
+        logger.info("Archived order partitions {} ({} rows) to {}", suffix, rows, directory);
+    }
+
+    private static void detach(JdbcTemplate jdbc, String parent, String table) {
+        List<Boolean> pending = jdbc.queryForList(
+                "SELECT inhdetachpending FROM pg_inherits WHERE inhrelid = to_regclass(?)", Boolean.class, table);
+        if (pending.isEmpty()) {
+            // Not attached (any more)
+            return;
+        }
+        if (Boolean.TRUE.equals(pending.get(0))) {
+            // An earlier concurrent detach was interrupted
+            jdbc.execute("ALTER TABLE " + parent + " DETACH PARTITION " + table + " FINALIZE");
+        } else {
+            jdbc.execute("ALTER TABLE " + parent + " DETACH PARTITION " + table + " CONCURRENTLY");
+        }
+    }
+
+    private long export(JdbcTemplate jdbc, Connection connection, String table) throws SQLException, IOException {
+        CopyManager copy = connection.unwrap(PGConnection.class).getCopyAPI();
+        long count = jdbc.queryForObject("SELECT count(*) FROM " + table, Long.class);
+        return writeArchive(directory, table, count,
+                out -> copy.copyOut("COPY " + table + " TO STDOUT (FORMAT csv, HEADER)", out));
+    }
+
+    /**
+     * Writes {@code <directory>/<table>.csv.gz} under a temporary name, syncs it to disk and renames it once
+     * the written row count matches the expected one.
+     *
+     * @param directory the archive directory, created if missing
+     * @param table     the table, naming the file
+     * @param expected  the number of rows the table holds
+     * @param writer    writes the rows as CSV to the uncompressed stream and returns how many it wrote
+     * @return the number of rows written
+     * @throws IOException if writing fails or the row count does not match; no archive file is left
+     */
+    static long writeArchive(Path directory, String table, long expected, ArchiveWriter writer)
+            throws SQLException, IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(table + ".csv.gz");
+        Path temporary = directory.resolve(table + ".csv.gz.tmp");
+        long exported;
+        try (FileOutputStream file = new FileOutputStream(temporary.toFile());
+             GZIPOutputStream out = new GZIPOutputStream(new BufferedOutputStream(file, 1 << 16), 1 << 16)) {
+            exported = writer.write(out);
+            // Sync while the file is still open: the descriptor is invalid once the streams are closed
+            out.finish();
+            out.flush();
+            file.getFD().sync();
+        } catch (SQLException | IOException | RuntimeException ex) {
+            Files.deleteIfExists(temporary);
+            throw ex;
+        }
+        if (exported != expected) {
+            Files.deleteIfExists(temporary);
+            throw new IOException("Exported " + exported + " of " + expected + " rows of " + table);
+        }
+        Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return exported;
+    }
+
+    private static boolean exists(JdbcTemplate jdbc, String table) {
+        return jdbc.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table);
+    }
+
+    /**
+     * Writes the rows of one table to an archive stream.
+     */
+    @FunctionalInterface
+    interface ArchiveWriter {
+        /**
+         * @param out the uncompressed archive stream; not to be closed
+         * @return the number of rows written
+         */
+        long write(OutputStream out) throws SQLException, IOException;
+    }
+
+    /**
+     * @return the number of months archived by this node
+     */
+    public long getArchivedPartitions() {
+        return archivedPartitions.sum();
+    }
+
+    /**
+     * @return the number of order and item rows archived by this node
+     */
+    public long getArchivedRows() {
+        return archivedRows.sum();
+    }
+
+    /**
+     * @return the number of failed runs
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+}
@@ -0,0 +1,161 @@
+package com.app.partition;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.YearMonth;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps monthly partitions of {@code orders} and {@code items} created ahead of time, so an order insert never
+ * finds its month missing and never waits on partition DDL.
+ * <p>
+ * Every {@code orders.partitions.check-interval} the partitions for the current month and the next
+ * {@code orders.partitions.premake-months} are created if missing: an empty table is created and attached, which
+ * locks the parent only in a mode that does not block inserts or reads, under a short lock timeout. With several
+ * nodes, a transaction-scoped advisory lock lets one of them do it. Nothing is done until the partitioning
+ * migrations (V4 to V6) have been applied, or on databases other than PostgreSQL.
+ * </p>
+ * <p>
+ * {@link #getMonthsAhead()} is the number of future months already covered; alert well before it reaches zero.
+ * </p>
+ */
+@Component
+public class OrderPartitionManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(OrderPartitionManager.class);
+
+    /** Advisory lock key shared by all nodes; arbitrary, unique within the application. */
+    static final long LOCK_KEY = 0x6f72_6465_7273_0001L;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean postgres;
+
+    @Value("${orders.partitions.enabled:true}")
+    private boolean enabled;
+
+    @Value("${orders.partitions.premake-months:3}")
+    private int premakeMonths;
+
+    private volatile int monthsAhead = -1;
+    private final LongAdder created = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+
+    /**
+     * Constructs the manager.
+     * @param jdbcTemplate         the JDBC template of the primary database
+     * @param transactionManager   the transaction manager the partitions are created in
+     * @param dataSourceProperties the connection settings, to recognize PostgreSQL
+     */
+    public OrderPartitionManager(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                 DataSourceProperties dataSourceProperties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        String url = dataSourceProperties.determineUrl();
+        this.postgres = url != null && url.startsWith("jdbc:postgresql:");
+    }
+
+    /**
+     * Creates the missing partitions from the current month to {@code orders.partitions.premake-months} ahead.
+     */
+    @Scheduled(fixedDelayString = "${orders.partitions.check-interval:3600000}")
+    public void ensurePartitions() {
+        if (!enabled || !postgres) {
+            return;
+        }
+        try {
+            Boolean partitioned = transactionTemplate.execute(status -> {
+                if (!OrderPartitions.isPartitioned(jdbcTemplate)) {
+                    return false;
+                }
+                Boolean locked = jdbcTemplate.queryForObject("SELECT pg_try_advisory_xact_lock(?)", Boolean.class, LOCK_KEY);
+                if (!Boolean.TRUE.equals(locked)) {
+                    // Another node is on it
+                    return true;
+                }
+                jdbcTemplate.execute("SET LOCAL lock_timeout = '2s'");
+                long cutover = OrderPartitions.cutover(jdbcTemplate);
+                YearMonth current = OrderPartitions.currentMonth();
+                for (int i = 0; i <= premakeMonths; i++) {
+                    YearMonth month = current.plusMonths(i);
+                    // Months before the cutover are covered by the legacy partitions
+                    if (OrderPartitions.startMillis(month.plusMonths(1)) <= cutover) {
+                        continue;
+                    }
+                    for (String parent : OrderPartitions.PARENTS) {
+                        createIfMissing(parent, month);
+                    }
+                }
+                return true;
+            });
+            if (Boolean.TRUE.equals(partitioned)) {
+                monthsAhead = countMonthsAhead();
+            }
+        } catch (RuntimeException ex) {
+            failures.increment();
+            logger.warn("Could not create order partitions; {} months ahead are covered", monthsAhead, ex);
+        }
+    }
+
+    private void createIfMissing(String parent, YearMonth month) {
+        String table = parent + "_" + OrderPartitions.suffix(month);
+        if (exists(table)) {
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE " + table + " (LIKE " + parent + " INCLUDING DEFAULTS)");
+        // ATTACH takes SHARE UPDATE EXCLUSIVE on the parent; CREATE TABLE ... PARTITION OF would block inserts
+        jdbcTemplate.execute("ALTER TABLE " + parent + " ATTACH PARTITION " + table + " FOR VALUES FROM ("
+                + OrderPartitions.startMillis(month) + ") TO (" + OrderPartitions.startMillis(month.plusMonths(1)) + ")");
+        created.increment();
+        logger.info("Created partition {}", table);
+    }
+
+    private int countMonthsAhead() {
+        long cutover = OrderPartitions.cutover(jdbcTemplate);
+        YearMonth current = OrderPartitions.currentMonth();
+        int ahead = 0;
+        while (ahead < 120) {
+            YearMonth month = current.plusMonths(ahead + 1);
+            boolean covered = OrderPartitions.startMillis(month.plusMonths(1)) <= cutover
+                    || exists("orders_" + OrderPartitions.suffix(month));
+            if (!covered) {
+                break;
+            }
+            ahead++;
+        }
+        return ahead;
+    }
+
+    private boolean exists(String table) {
+        return jdbcTemplate.queryForObject("SELECT to_regclass(?) IS NOT NULL", Boolean.class, table);
+    }
+
+    /**
+     * @return the number of future months with partitions, or -1 before the first successful check
+     */
+    public int getMonthsAhead() {
+        return monthsAhead;
+    }
+
+    /**
+     * @return the number of partitions created by this node
+     */
+    public long getCreated() {
+        return created.sum();
+    }
+
+    /**
+     * @return the number of failed checks
+     */
+    public long getFailures() {
+        return failures.sum();
+    }
+}
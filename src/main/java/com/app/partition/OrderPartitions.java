@@ -0,0 +1,73 @@
+package com.app.partition;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+
+/**
+ * Naming and bounds of the monthly partitions of {@code orders} and {@code items}, shared by
+ * {@link OrderPartitionManager} and {@link OrderPartitionArchiver}.
+ * <p>
+ * Months are UTC. The partition of a month is named after it ({@code orders_p202611}, {@code items_p202611}) and
+ * holds creation times from the first millisecond of the month up to, excluding, the first of the next. The tables
+ * that existed before partitioning are the {@code _legacy} partitions, holding everything before the cutover
+ * recorded in {@code order_partitioning} (see {@code db/migration/V5__prepare_order_partitioning.sql}).
+ * </p>
+ */
+final class OrderPartitions {
+
+    static final String[] PARENTS = {"orders", "items"};
+    static final String LEGACY = "legacy";
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private OrderPartitions() {
+    }
+
+    /**
+     * @return the partition suffix of the month, e.g. {@code p202611}
+     */
+    static String suffix(YearMonth month) {
+        return month.format(SUFFIX);
+    }
+
+    /**
+     * @return the month of a {@code p202611} suffix
+     */
+    static YearMonth month(String suffix) {
+        return YearMonth.parse(suffix, SUFFIX);
+    }
+
+    /**
+     * @return the first Unix epoch millisecond of the month
+     */
+    static long startMillis(YearMonth month) {
+        return month.atDay(1).atStartOfDay().toInstant(ZoneOffset.UTC).toEpochMilli();
+    }
+
+    /**
+     * @return the current month in UTC
+     */
+    static YearMonth currentMonth() {
+        return YearMonth.now(ZoneOffset.UTC);
+    }
+
+    /**
+     * @return whether {@code orders} is a partitioned table, i.e. the partitioning migrations have been applied
+     */
+    static boolean isPartitioned(JdbcTemplate jdbcTemplate) {
+        List<Boolean> partitioned = jdbcTemplate.queryForList(
+                "SELECT relkind = 'p' FROM pg_class WHERE oid = to_regclass('orders')", Boolean.class);
+        return !partitioned.isEmpty() && Boolean.TRUE.equals(partitioned.get(0));
+    }
+
+    /**
+     * @return the upper bound of the legacy partitions in Unix epoch millis
+     */
+    static long cutover(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT cutover FROM order_partitioning", Long.class);
+    }
+}
@@ -0,0 +1,65 @@
+package com.app.repository;
+
+import com.app.model.LoyaltyOutboxEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+
+/**
+ * Repository interface for the LoyaltyOutboxEntry entity.
+ * <p>
+ * Entries are claimed with {@code FOR UPDATE SKIP LOCKED}, so several application nodes can drain
+ * the outbox concurrently without dispatching the same entry twice.
+ * </p>
+ */
+public interface LoyaltyOutboxRepository extends JpaRepository<LoyaltyOutboxEntry, Long> {
+
+    /**
+     * Locks a batch of pending entries that are due for dispatch. Must run inside a transaction.
+     * @param now   the current time in epoch millis
+     * @param limit the maximum batch size
+     * @return the locked entries, oldest first
+     */
+    @Query(value = "SELECT * FROM loyalty_outbox WHERE status = 'PENDING' AND next_attempt_at <= :now "
+            + "ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<LoyaltyOutboxEntry> lockDueBatch(@Param("now") long now, @Param("limit") int limit);
+
+    /**
+     * Pushes the next attempt of the given entries to the lease deadline, so other dispatchers skip them
+     * while they are in flight and pick them up again if this node dies mid-dispatch.
+     */
+    @Modifying
+    @Query("UPDATE LoyaltyOutboxEntry e SET e.nextAttemptAt = :leaseUntil WHERE e.id IN :ids")
+    int lease(@Param("ids") List<Long> ids, @Param("leaseUntil") long leaseUntil);
+
+    /**
+     * Marks the entry as dispatched, unless its lease expired and another dispatcher claimed it since.
+     * @return 1 if marked, 0 if the lease was lost
+     */
+    @Modifying
+    @Query("UPDATE LoyaltyOutboxEntry e SET e.status = 'DISPATCHED', e.lastError = null "
+            + "WHERE e.id = :id AND e.status = 'PENDING' AND e.nextAttemptAt = :leaseUntil")
+    int markDispatched(@Param("id") Long id, @Param("leaseUntil") long leaseUntil);
+
+    /**
+     * Records a failed attempt of the entry, unless its lease expired and another dispatcher claimed it since.
+     * @return 1 if recorded, 0 if the lease was lost
+     */
+    @Modifying
+    @Query("UPDATE LoyaltyOutboxEntry e SET e.status = :status, e.attempts = :attempts, "
+            + "e.nextAttemptAt = :nextAttemptAt, e.lastError = :lastError "
+            + "WHERE e.id = :id AND e.status = 'PENDING' AND e.nextAttemptAt = :leaseUntil")
+    int reschedule(@Param("id") Long id, @Param("leaseUntil") long leaseUntil, @Param("status") String status,
+                   @Param("attempts") int attempts, @Param("nextAttemptAt") long nextAttemptAt,
+                   @Param("lastError") String lastError);
+
+    /**
+     * Returns the number of pending entries and the creation time of the oldest one.
+     * @return a single row of [count, min(createdAt)]
+     */
+    @Query("SELECT COUNT(e), MIN(e.createdAt) FROM LoyaltyOutboxEntry e WHERE e.status = 'PENDING'")
+    List<Object[]> pendingStats();
+}
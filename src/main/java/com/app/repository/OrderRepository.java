@@ -1,7 +1,15 @@
 package com.app.repository;
 
 import com.app.model.Order;
+import com.app.model.OrderItemDTO;
+import com.app.model.OrderSummaryDTO;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Repository interface for the Order entity.
@@ -11,9 +19,57 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * default implementation for common database operations.
  * </p>
  * <p>
- * No custom query methods are defined; default methods are sufficient.
+ * The order history queries project straight into DTOs and page by keyset on {@code (created_at, id)}: each page
+ * seeks into the {@code orders_user_created_id_idx} index (see {@code db/migration/V3__order_history_indexes.sql})
+ * instead of skipping an OFFSET of rows, so its cost does not grow with the depth of the history.
+ * Only the page size of the {@link Pageable} is used; it must be an unsorted first page.
+ * </p>
+ * <p>
+ * The tables are range-partitioned by month on the creation time. Ordered by {@code created_at} like the
+ * partitions, a history page is an ordered append that reads the newest partitions first and stops once the page
+ * is full; the cursor bound prunes the newer partitions. Item lookups carry the page's creation time range, so
+ * only the partitions holding the page are searched.
  * </p>
  */
 public interface OrderRepository extends JpaRepository<Order, Long> {
-    // Default query methods provided by JpaRepository are sufficient.
+
+    /**
+     * Returns the user's most recent orders.
+     * @param userId   the user ID
+     * @param pageable the page size
+     * @return orders newest first, without items
+     */
+    @Query("SELECT new com.app.model.OrderSummaryDTO(o.id, o.totalAmount, o.discountApplied, o.status, o.createdAt) "
+            + "FROM Order o WHERE o.user.id = :userId "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryDTO> findHistory(@Param("userId") Long userId, Pageable pageable);
+
+    /**
+     * Returns the user's orders that come after the given position, i.e. created earlier.
+     * @param userId    the user ID
+     * @param createdAt the creation time of the last order already returned
+     * @param id        the id of the last order already returned
+     * @param pageable  the page size
+     * @return orders newest first, without items
+     */
+    // The redundant createdAt <= bound gives the planner an index range; the OR only filters the boundary millisecond
+    @Query("SELECT new com.app.model.OrderSummaryDTO(o.id, o.totalAmount, o.discountApplied, o.status, o.createdAt) "
+            + "FROM Order o WHERE o.user.id = :userId AND o.createdAt <= :createdAt "
+            + "AND (o.createdAt < :createdAt OR o.id < :id) "
+            + "ORDER BY o.createdAt DESC, o.id DESC")
+    List<OrderSummaryDTO> findHistoryAfter(@Param("userId") Long userId, @Param("createdAt") long createdAt,
+                                           @Param("id") Long id, Pageable pageable);
+
+    /**
+     * Returns the items of several orders in one query, instead of one lazy collection per order.
+     * @param orderIds the order IDs of a page
+     * @param from     the earliest creation time of the orders
+     * @param to       the latest creation time of the orders
+     * @return the items, grouped by order
+     */
+    @Query("SELECT new com.app.model.OrderItemDTO(i.order.id, i.sku, i.name, i.quantity, i.price) "
+            + "FROM Item i WHERE i.order.id IN :orderIds AND i.orderCreatedAt BETWEEN :from AND :to "
+            + "ORDER BY i.order.id, i.id")
+    List<OrderItemDTO> findItemsByOrderIds(@Param("orderIds") Collection<Long> orderIds,
+                                           @Param("from") long from, @Param("to") long to);
 }
@@ -11,9 +11,9 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * default implementation for common database operations.
  * </p>
  * <p>
- * No custom query methods are defined; default methods are sufficient.
+ * Order statistics are updated by {@code UserService} through JDBC rather than a bulk JPQL UPDATE here, which
+ * would evict every user from the second-level cache.
  * </p>
  */
 public interface UserRepository extends JpaRepository<User, Long> {
-    // Default query methods provided by JpaRepository are sufficient.
 }
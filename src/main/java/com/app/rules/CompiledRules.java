@@ -0,0 +1,202 @@
+package com.app.rules;
+
+import com.app.model.CampaignRule;
+import com.app.model.CampaignRuleType;
+import com.app.model.CartItemDTO;
+import com.app.model.CartRequest;
+import com.app.model.RewardDetailDTO;
+import com.app.model.RewardsResponse;
+import com.app.model.RulesSnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An immutable rules snapshot compiled for evaluation, so a request does no rule interpretation.
+ * <p>
+ * Line rules are indexed by SKU: a cart line costs one hash lookup, and only the rules naming its SKU are
+ * checked. Cart rules are sorted by their minimum total; a binary search over the thresholds finds the rules
+ * the cart total reaches, and only those are applied.
+ * </p>
+ */
+public final class CompiledRules {
+
+    static final CompiledRules EMPTY = new CompiledRules(null, new CampaignRule[0], Collections.emptyMap(), 0);
+
+    private final String version;
+    private final CampaignRule[] cartRules;
+    private final double[] thresholds;
+    private final Map<String, CampaignRule[]> lineRules;
+    private final int ruleCount;
+
+    private CompiledRules(String version, CampaignRule[] cartRules, Map<String, CampaignRule[]> lineRules,
+                          int ruleCount) {
+        this.version = version;
+        this.cartRules = cartRules;
+        this.thresholds = new double[cartRules.length];
+        for (int i = 0; i < cartRules.length; i++) {
+            thresholds[i] = cartRules[i].getMinTotal();
+        }
+        this.lineRules = lineRules;
+        this.ruleCount = ruleCount;
+    }
+
+    /**
+     * Compiles a snapshot. Rules without a type or campaign name, and line rules without SKUs, are rejected.
+     *
+     * @param snapshot the snapshot
+     * @return the compiled rules
+     * @throws IllegalArgumentException if a rule is invalid
+     */
+    public static CompiledRules compile(RulesSnapshot snapshot) {
+        List<CampaignRule> rules = snapshot.getRules() != null ? snapshot.getRules() : Collections.emptyList();
+        List<CampaignRule> cartRules = new ArrayList<>();
+        Map<String, List<CampaignRule>> lineRules = new HashMap<>();
+        for (CampaignRule rule : rules) {
+            if (rule.getType() == null || rule.getCampaignName() == null) {
+                throw new IllegalArgumentException("Rule without type or campaign name: " + rule);
+            }
+            if (rule.getType() == CampaignRuleType.ITEM_PERCENT) {
+                if (rule.getSkus() == null || rule.getSkus().isEmpty()) {
+                    throw new IllegalArgumentException("Line rule without SKUs: " + rule.getCampaignName());
+                }
+                for (String sku : rule.getSkus()) {
+                    lineRules.computeIfAbsent(sku, key -> new ArrayList<>()).add(rule);
+                }
+            } else {
+                cartRules.add(rule);
+            }
+        }
+        cartRules.sort(Comparator.comparingDouble(CampaignRule::getMinTotal));
+
+        Map<String, CampaignRule[]> index = new HashMap<>(lineRules.size() * 2);
+        lineRules.forEach((sku, skuRules) -> index.put(sku, skuRules.toArray(new CampaignRule[0])));
+        return new CompiledRules(snapshot.getVersion(), cartRules.toArray(new CampaignRule[0]), index, rules.size());
+    }
+
+    /**
+     * Evaluates the cart the way Talon.One would with the same campaigns: line discounts first, then cart
+     * discounts on the total, with the total discount capped at the cart total.
+     *
+     * @param cart       the cart
+     * @param nowMillis  the current time, for the campaign windows
+     * @return the provisional evaluation
+     */
+    public RewardsResponse evaluate(CartRequest cart, long nowMillis) {
+        double total = cart.getTotalAmount();
+        List<RewardDetailDTO> rewards = new ArrayList<>(4);
+        double discount = 0;
+        int points = 0;
+
+        if (!lineRules.isEmpty() && cart.getItems() != null) {
+            for (CartItemDTO item : cart.getItems()) {
+                CampaignRule[] candidates = lineRules.get(item.getSku());
+                if (candidates == null) {
+                    continue;
+                }
+                for (CampaignRule rule : candidates) {
+                    if (item.getQuantity() >= rule.getMinQuantity() && total >= rule.getMinTotal()
+                            && isActive(rule, nowMillis)) {
+                        double lineDiscount = item.getPrice() * item.getQuantity() * rule.getValue() / 100.0;
+                        discount += lineDiscount;
+                        addReward(rewards, rule.getCampaignName(), "DISCOUNT", lineDiscount);
+                    }
+                }
+            }
+        }
+
+        // Rules [0, reached) have a minimum total the cart reaches
+        int reached = upperBound(thresholds, total);
+        for (int i = 0; i < reached; i++) {
+            CampaignRule rule = cartRules[i];
+            if (!isActive(rule, nowMillis)) {
+                continue;
+            }
+            switch (rule.getType()) {
+                case CART_PERCENT: {
+                    double cartDiscount = total * rule.getValue() / 100.0;
+                    discount += cartDiscount;
+                    addReward(rewards, rule.getCampaignName(), "DISCOUNT", cartDiscount);
+                    break;
+                }
+                case CART_AMOUNT:
+                    discount += rule.getValue();
+                    addReward(rewards, rule.getCampaignName(), "DISCOUNT", rule.getValue());
+                    break;
+                case LOYALTY_POINTS: {
+                    int earned = (int) Math.floor(total * rule.getValue());
+                    points += earned;
+                    addReward(rewards, rule.getCampaignName(), "LOYALTY_POINTS", earned);
+                    break;
+                }
+                default:
+                    break;
+            }
+        }
+
+        return RewardsResponse.builder()
+                .discountAmount(roundCents(Math.min(discount, total)))
+                .rewards(rewards)
+                .appliedCoupons(Collections.emptyList())
+                .loyaltyPointsUsed(0)
+                .loyaltyPointsEarned(points)
+                .build();
+    }
+
+    /**
+     * @return the snapshot version, or null for the empty rule set
+     */
+    public String getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the number of rules in the snapshot
+     */
+    public int getRuleCount() {
+        return ruleCount;
+    }
+
+    private static boolean isActive(CampaignRule rule, long nowMillis) {
+        return (rule.getStartsAt() == null || rule.getStartsAt().toEpochMilli() <= nowMillis)
+                && (rule.getEndsAt() == null || nowMillis < rule.getEndsAt().toEpochMilli());
+    }
+
+    /**
+     * Adds the effect, merging it into an earlier effect of the same campaign (a line rule matching several lines).
+     */
+    private static void addReward(List<RewardDetailDTO> rewards, String campaignName, String type, double value) {
+        for (RewardDetailDTO reward : rewards) {
+            if (reward.getCampaignName().equals(campaignName) && reward.getType().equals(type)) {
+                reward.setValue(roundCents(reward.getValue() + value));
+                return;
+            }
+        }
+        rewards.add(RewardDetailDTO.builder().campaignName(campaignName).type(type).value(roundCents(value)).build());
+    }
+
+    /**
+     * @return the number of thresholds less than or equal to the value
+     */
+    private static int upperBound(double[] sorted, double value) {
+        int low = 0;
+        int high = sorted.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sorted[mid] <= value) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static double roundCents(double amount) {
+        return Math.round(amount * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,153 @@
+package com.app.rules;
+
+import com.app.model.CartRequest;
+import com.app.model.RewardsResponse;
+import com.app.model.RulesSnapshot;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Evaluates carts in process against a synced snapshot of the simple Talon.One campaigns (percentage and fixed
+ * discounts, cart thresholds, SKU discounts, loyalty points), giving a provisional {@link RewardsResponse} in
+ * microseconds instead of a round trip.
+ * <p>
+ * The snapshot is a {@link RulesSnapshot} JSON document read from {@code talonone.rules.snapshot-location}
+ * (any Spring resource location: {@code https:}, {@code file:}, {@code classpath:}), exported by the campaign
+ * sync job. It is re-read every {@code talonone.rules.refresh-interval} and compiled into {@link CompiledRules};
+ * requests only ever see a fully compiled snapshot. A snapshot that fails to load or compile keeps the previous
+ * one in place. A snapshot not refreshed within {@code talonone.rules.max-age} is treated as absent, so callers
+ * fall back to Talon.One rather than apply long-ended campaigns.
+ * </p>
+ * <p>
+ * Campaigns with conditions the snapshot format cannot express must be left out of the export; shadow mode
+ * (see {@code LocalRulesMode}) shows whether the local results still match Talon.One.
+ * </p>
+ */
+@Component
+public class LocalRulesEngine {
+
+    private static final Logger logger = LoggerFactory.getLogger(LocalRulesEngine.class);
+
+    private final ResourceLoader resourceLoader;
+    private final ObjectMapper objectMapper;
+    private final String location;
+    private final long maxAgeMillis;
+
+    private volatile CompiledRules rules = CompiledRules.EMPTY;
+    private volatile long loadedAtMillis;
+
+    private final LongAdder refreshFailures = new LongAdder();
+
+    /**
+     * Constructs the engine. No snapshot is loaded until the first refresh.
+     *
+     * @param resourceLoader the loader resolving the snapshot location
+     * @param objectMapper   the mapper reading the snapshot
+     * @param location       the snapshot location; empty to disable syncing
+     * @param maxAge         how long a snapshot is used without a successful refresh
+     */
+    public LocalRulesEngine(ResourceLoader resourceLoader,
+                            ObjectMapper objectMapper,
+                            @Value("${talonone.rules.snapshot-location:}") String location,
+                            @Value("${talonone.rules.max-age:10m}") Duration maxAge) {
+        this.resourceLoader = resourceLoader;
+        this.objectMapper = objectMapper;
+        this.location = location;
+        this.maxAgeMillis = maxAge.toMillis();
+    }
+
+    /**
+     * Evaluates the cart against the current snapshot.
+     *
+     * @param cart the cart
+     * @return the provisional evaluation, or null if no current snapshot is loaded
+     */
+    public RewardsResponse evaluate(CartRequest cart) {
+        CompiledRules current = rules;
+        long now = System.currentTimeMillis();
+        if (current == CompiledRules.EMPTY || now - loadedAtMillis > maxAgeMillis) {
+            return null;
+        }
+        return current.evaluate(cart, now);
+    }
+
+    /**
+     * Re-reads and recompiles the snapshot; keeps the current one on failure.
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${talonone.rules.refresh-interval:60000}")
+    public void refresh() {
+        if (location.isEmpty()) {
+            return;
+        }
+        try {
+            Resource resource = resourceLoader.getResource(location);
+            RulesSnapshot snapshot;
+            try (InputStream in = resource.getInputStream()) {
+                snapshot = objectMapper.readValue(in, RulesSnapshot.class);
+            }
+            install(snapshot);
+        } catch (IOException | RuntimeException ex) {
+            refreshFailures.increment();
+            logger.warn("Could not refresh the local rules snapshot from {}; keeping version {}",
+                    location, rules.getVersion(), ex);
+        }
+    }
+
+    /**
+     * Compiles the snapshot and makes it current.
+     *
+     * @param snapshot the snapshot
+     * @throws IllegalArgumentException if a rule is invalid; the current snapshot is kept
+     */
+    public void install(RulesSnapshot snapshot) {
+        CompiledRules compiled = CompiledRules.compile(snapshot);
+        String previous = rules.getVersion();
+        rules = compiled;
+        loadedAtMillis = System.currentTimeMillis();
+        if (!Objects.equals(previous, compiled.getVersion())) {
+            logger.info("Local rules snapshot {} installed with {} rules", compiled.getVersion(), compiled.getRuleCount());
+        }
+    }
+
+    /**
+     * @return the version of the current snapshot, or null if none is loaded
+     */
+    public String getVersion() {
+        return rules.getVersion();
+    }
+
+    /**
+     * @return the number of rules in the current snapshot
+     */
+    public int getRuleCount() {
+        return rules.getRuleCount();
+    }
+
+    /**
+     * @return the time since the snapshot was last refreshed in seconds, or -1 if none is loaded
+     */
+    public double getAgeSeconds() {
+        return rules == CompiledRules.EMPTY ? -1 : (System.currentTimeMillis() - loadedAtMillis) / 1000.0;
+    }
+
+    /**
+     * @return the number of failed refreshes
+     */
+    public long getRefreshFailures() {
+        return refreshFailures.sum();
+    }
+}
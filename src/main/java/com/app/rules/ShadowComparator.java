@@ -0,0 +1,128 @@
+package com.app.rules;
+
+import com.app.model.RewardDetailDTO;
+import com.app.model.RewardsResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compares local rules evaluations with the Talon.One evaluations of the same carts in shadow mode.
+ * <p>
+ * Two evaluations match when their discounts are within a cent, they earn the same loyalty points and the same
+ * campaigns applied, in any order. The most recent divergences are kept for {@code /internal/rules}.
+ * </p>
+ */
+@Component
+public class ShadowComparator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ShadowComparator.class);
+
+    private static final double DISCOUNT_TOLERANCE = 0.01;
+    private static final int RECENT_DIVERGENCES = 20;
+
+    private final LongAdder matches = new LongAdder();
+    private final LongAdder divergences = new LongAdder();
+    private final LongAdder discountDeltaCents = new LongAdder();
+    private final Deque<Map<String, Object>> recent = new ArrayDeque<>(RECENT_DIVERGENCES);
+
+    /**
+     * Records whether the local evaluation matches Talon.One's.
+     *
+     * @param userId the user the cart belongs to
+     * @param local  the local evaluation
+     * @param remote the Talon.One evaluation
+     * @return true if they match
+     */
+    public boolean compare(Long userId, RewardsResponse local, RewardsResponse remote) {
+        double delta = Math.abs(local.getDiscountAmount() - remote.getDiscountAmount());
+        TreeSet<String> localCampaigns = campaigns(local);
+        TreeSet<String> remoteCampaigns = campaigns(remote);
+        boolean match = delta <= DISCOUNT_TOLERANCE
+                && local.getLoyaltyPointsEarned() == remote.getLoyaltyPointsEarned()
+                && localCampaigns.equals(remoteCampaigns);
+        if (match) {
+            matches.increment();
+            return true;
+        }
+        divergences.increment();
+        discountDeltaCents.add(Math.round(delta * 100));
+
+        Map<String, Object> divergence = new LinkedHashMap<>();
+        divergence.put("userId", userId);
+        divergence.put("localDiscount", local.getDiscountAmount());
+        divergence.put("remoteDiscount", remote.getDiscountAmount());
+        divergence.put("localPoints", local.getLoyaltyPointsEarned());
+        divergence.put("remotePoints", remote.getLoyaltyPointsEarned());
+        divergence.put("localCampaigns", localCampaigns);
+        divergence.put("remoteCampaigns", remoteCampaigns);
+        synchronized (recent) {
+            if (recent.size() == RECENT_DIVERGENCES) {
+                recent.removeLast();
+            }
+            recent.addFirst(divergence);
+        }
+        logger.debug("Local rules diverged from Talon.One: {}", divergence);
+        return false;
+    }
+
+    /**
+     * @return the number of matching comparisons
+     */
+    public long getMatches() {
+        return matches.sum();
+    }
+
+    /**
+     * @return the number of diverging comparisons
+     */
+    public long getDivergences() {
+        return divergences.sum();
+    }
+
+    /**
+     * @return the summed absolute discount difference of diverging comparisons, in cents
+     */
+    public long getDiscountDeltaCents() {
+        return discountDeltaCents.sum();
+    }
+
+    /**
+     * @return the fraction of comparisons that diverged, 0 before the first comparison
+     */
+    public double getDivergenceRatio() {
+        long diverged = getDivergences();
+        long total = diverged + getMatches();
+        return total == 0 ? 0.0 : (double) diverged / total;
+    }
+
+    /**
+     * @return the most recent divergences, newest first
+     */
+    public List<Map<String, Object>> getRecentDivergences() {
+        synchronized (recent) {
+            return new ArrayList<>(recent);
+        }
+    }
+
+    private static TreeSet<String> campaigns(RewardsResponse response) {
+        TreeSet<String> names = new TreeSet<>();
+        List<RewardDetailDTO> rewards = response.getRewards() != null ? response.getRewards() : Collections.emptyList();
+        for (RewardDetailDTO reward : rewards) {
+            if (reward.getCampaignName() != null) {
+                names.add(reward.getCampaignName());
+            }
+        }
+        return names;
+    }
+}
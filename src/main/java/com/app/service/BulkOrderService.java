@@ -0,0 +1,224 @@
+package com.app.service;
+
+import com.app.model.BulkOrderResult;
+import com.app.model.Order;
+import com.app.model.OrderRequest;
+import com.app.model.RewardsResponse;
+import com.app.talonone.TalonOnePriority;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Service layer for bulk order ingestion.
+ * <p>
+ * The request body (NDJSON or a JSON array of {@link OrderRequest}s) is parsed incrementally and processed in
+ * chunks of {@code orders.bulk.chunk-size}: rewards for a chunk are evaluated concurrently through the async
+ * Talon.One path (bounded by its limiter, scheduled as {@code BULK} behind live checkouts), the chunk is persisted
+ * in one transaction with batched inserts, and one {@link BulkOrderResult} per order is streamed back as NDJSON.
+ * Only one chunk is held in memory at a time.
+ * </p>
+ * <p>
+ * If a chunk's transaction fails, its orders are retried one transaction each, so a single bad order
+ * does not fail the rest of the chunk.
+ * </p>
+ */
+@Service
+public class BulkOrderService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BulkOrderService.class);
+
+    private final OrderService orderService;
+    private final RewardsService rewardsService;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${orders.bulk.chunk-size:200}")
+    private int chunkSize;
+
+    /**
+     * Constructs the bulk order service.
+     * @param orderService       the order service used to persist each order
+     * @param rewardsService     the rewards service used to evaluate each cart
+     * @param objectMapper       the JSON mapper for the streamed request and response
+     * @param entityManager      the shared entity manager, cleared after each chunk
+     * @param validator          the bean validator applying the same constraints as {@code POST /orders}
+     * @param transactionManager the transaction manager for per-chunk transactions
+     */
+    public BulkOrderService(OrderService orderService,
+                            RewardsService rewardsService,
+                            ObjectMapper objectMapper,
+                            EntityManager entityManager,
+                            Validator validator,
+                            PlatformTransactionManager transactionManager) {
+        this.orderService = orderService;
+        this.rewardsService = rewardsService;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Imports all orders from the input and streams one result line per order to the output.
+     * @param in The request body: NDJSON or a JSON array of OrderRequest objects.
+     * @param out The response body; receives NDJSON BulkOrderResult lines.
+     * @throws IOException if reading the request or writing the response fails
+     */
+    public void ingest(InputStream in, OutputStream out) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in);
+             SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+
+            JsonToken first = parser.nextToken();
+            boolean array = first == JsonToken.START_ARRAY;
+            if (array) {
+                parser.nextToken();
+            }
+
+            long index = 0;
+            List<OrderRequest> chunk = new ArrayList<>(chunkSize);
+            while (parser.currentToken() == JsonToken.START_OBJECT) {
+                chunk.add(objectMapper.readValue(parser, OrderRequest.class));
+                parser.nextToken();
+                if (chunk.size() == chunkSize) {
+                    writeAll(writer, processChunk(index, chunk));
+                    index += chunk.size();
+                    chunk.clear();
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writeAll(writer, processChunk(index, chunk));
+            }
+            if (array ? parser.currentToken() != JsonToken.END_ARRAY : parser.currentToken() != null) {
+                throw new IOException("Malformed bulk order payload at " + parser.currentLocation());
+            }
+        }
+    }
+
+    private List<BulkOrderResult> processChunk(long firstIndex, List<OrderRequest> chunk) {
+        // Evaluate all valid carts of the chunk concurrently, behind live checkouts
+        List<CompletableFuture<RewardsResponse>> evaluations = new ArrayList<>(chunk.size());
+        for (OrderRequest request : chunk) {
+            CompletableFuture<RewardsResponse> evaluation;
+            try {
+                validate(request);
+                evaluation = rewardsService.evaluateRewardsAsync(request.getCart(), TalonOnePriority.BULK);
+            } catch (RuntimeException ex) {
+                evaluation = CompletableFuture.failedFuture(ex);
+            }
+            evaluations.add(evaluation);
+        }
+
+        List<BulkOrderResult> results = new ArrayList<>(chunk.size());
+        List<Integer> evaluated = new ArrayList<>(chunk.size());
+        List<RewardsResponse> rewards = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            try {
+                rewards.add(evaluations.get(i).join());
+                evaluated.add(i);
+                results.add(null);
+            } catch (CompletionException ex) {
+                rewards.add(null);
+                results.add(failed(firstIndex + i, ex.getCause() != null ? ex.getCause() : ex));
+            }
+        }
+
+        try {
+            List<Order> orders = transactionTemplate.execute(status -> {
+                List<Order> saved = new ArrayList<>(evaluated.size());
+                for (int i : evaluated) {
+                    saved.add(orderService.saveOrder(chunk.get(i), rewards.get(i)));
+                }
+                return saved;
+            });
+            for (int j = 0; j < evaluated.size(); j++) {
+                int i = evaluated.get(j);
+                results.set(i, created(firstIndex + i, orders.get(j)));
+            }
+        } catch (RuntimeException chunkFailure) {
+            logger.warn("Bulk chunk at index {} failed, retrying its orders individually", firstIndex, chunkFailure);
+            entityManager.clear();
+            for (int i : evaluated) {
+                results.set(i, saveOne(firstIndex + i, chunk.get(i), rewards.get(i)));
+            }
+        } finally {
+            // The persistence context may outlive the transaction (open-in-view); keep it from growing per chunk
+            entityManager.clear();
+        }
+        return results;
+    }
+
+    /**
+     * Applies the bean validation {@code POST /orders} applies through {@code @Valid}.
+     */
+    private void validate(OrderRequest request) {
+        if (request == null) {
+            throw new IllegalArgumentException("Order request must not be null");
+        }
+        Set<ConstraintViolation<OrderRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            StringBuilder message = new StringBuilder("Invalid order request:");
+            for (ConstraintViolation<OrderRequest> violation : violations) {
+                message.append(' ').append(violation.getPropertyPath())
+                        .append(' ').append(violation.getMessage()).append(';');
+            }
+            throw new IllegalArgumentException(message.toString());
+        }
+    }
+
+    private BulkOrderResult saveOne(long index, OrderRequest request, RewardsResponse rewards) {
+        try {
+            Order order = transactionTemplate.execute(status -> orderService.saveOrder(request, rewards));
+            return created(index, order);
+        } catch (RuntimeException ex) {
+            entityManager.clear();
+            return failed(index, ex);
+        }
+    }
+
+    private static BulkOrderResult created(long index, Order order) {
+        return BulkOrderResult.builder()
+                .index(index)
+                .status(BulkOrderResult.STATUS_CREATED)
+                .orderId(order.getId())
+                .totalAmount(order.getTotalAmount())
+                .discountApplied(order.getDiscountApplied())
+                .build();
+    }
+
+    private static BulkOrderResult failed(long index, Throwable error) {
+        return BulkOrderResult.builder()
+                .index(index)
+                .status(BulkOrderResult.STATUS_FAILED)
+                .error(String.valueOf(error.getMessage()))
+                .build();
+    }
+
+    private static void writeAll(SequenceWriter writer, List<BulkOrderResult> results) throws IOException {
+        for (BulkOrderResult result : results) {
+            writer.write(result);
+        }
+        writer.flush();
+    }
+}
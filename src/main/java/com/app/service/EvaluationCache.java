@@ -0,0 +1,289 @@
+package com.app.service;
+
+import com.app.model.CartItemDTO;
+import com.app.model.RewardsResponse;
+import com.app.model.SessionDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived memoization of Talon.One session evaluations, keyed by a canonical cart fingerprint.
+ * <p>
+ * The fingerprint covers the user id, the profile hash, the cart lines sorted by SKU, the total and the sorted
+ * session attributes, so repeated evaluations of the same cart by the same user (page refreshes, the cart drawer,
+ * checkout) share one result for {@code talonone.evaluation-cache.ttl}. Concurrent identical evaluations are
+ * coalesced: the first caller starts the upstream call and the others wait on the same future.
+ * </p>
+ * <p>
+ * Invalidation is per user: {@link #invalidate(long)} bumps a generation counter that is part of the
+ * fingerprint, so all earlier entries of that user stop matching. Generations are kept in a fixed striped array;
+ * a bump may also invalidate other users on the same stripe, which only costs them a cache miss.
+ * </p>
+ * <p>
+ * Independently of the TTL and of invalidation, the last successful evaluation of each cart is kept for
+ * {@code talonone.evaluation-cache.stale-ttl} so it can be served by {@link #getStale(String)} as a degraded
+ * answer while Talon.One is unavailable.
+ * </p>
+ * <p>
+ * Both maps are Caffeine caches bounded by {@code talonone.evaluation-cache.max-entries}, which expire and evict
+ * entries in amortized constant time; a full cache never scans its entries on the request path.
+ * </p>
+ */
+@Component
+public class EvaluationCache {
+
+    private static final int GENERATION_STRIPES = 4096;
+
+    private final Cache<String, Entry> entries;
+    private final Cache<String, RewardsResponse> lastKnown;
+    private final AtomicLongArray generations = new AtomicLongArray(GENERATION_STRIPES);
+    private final long ttlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+
+    /**
+     * Constructs the cache.
+     *
+     * @param ttl        how long a completed evaluation is reused
+     * @param staleTtl   how long the last successful evaluation of a cart may be served while Talon.One is down
+     * @param maxEntries the maximum number of cached evaluations, and of last known ones
+     */
+    public EvaluationCache(@Value("${talonone.evaluation-cache.ttl:10s}") Duration ttl,
+                           @Value("${talonone.evaluation-cache.stale-ttl:10m}") Duration staleTtl,
+                           @Value("${talonone.evaluation-cache.max-entries:100000}") int maxEntries) {
+        this.ttlNanos = ttl.toNanos();
+        this.entries = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfter(new EntryExpiry())
+                .build();
+        this.lastKnown = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(staleTtl)
+                .build();
+    }
+
+    /**
+     * Returns the cached evaluation for the fingerprint, joins an in-flight one, or starts a new one.
+     *
+     * @param fingerprint the cart fingerprint, see {@link #fingerprint}
+     * @param loader      starts the upstream evaluation
+     * @return a future completed with the evaluation result
+     */
+    public CompletableFuture<RewardsResponse> get(String fingerprint, Supplier<CompletableFuture<RewardsResponse>> loader) {
+        long now = System.nanoTime();
+        Entry existing = entries.getIfPresent(fingerprint);
+        if (existing != null && existing.isLive(now)) {
+            return reuse(existing);
+        }
+
+        Entry fresh = new Entry();
+        Entry winner = entries.asMap().compute(fingerprint, (key, current) ->
+                current != null && current.isLive(now) ? current : fresh);
+        if (winner != fresh) {
+            return reuse(winner);
+        }
+
+        misses.increment();
+        load(loader).whenComplete((response, ex) -> {
+            if (ex != null) {
+                entries.asMap().remove(fingerprint, fresh);
+                fresh.future.completeExceptionally(ex);
+            } else {
+                fresh.expiresAt = System.nanoTime() + ttlNanos;
+                // Re-put so the cache schedules the expiry; a no-op if the entry was already evicted
+                entries.asMap().replace(fingerprint, fresh, fresh);
+                fresh.future.complete(response);
+                lastKnown.put(staleKey(fingerprint), response);
+            }
+        });
+        return fresh.future;
+    }
+
+    /**
+     * Returns the last successful evaluation of the same cart, ignoring the TTL and invalidations, as long as it
+     * is younger than the stale TTL. Meant only as a degraded answer while Talon.One is unavailable.
+     *
+     * @param fingerprint the cart fingerprint, see {@link #fingerprint}
+     * @return the last known evaluation, or null if there is none
+     */
+    public RewardsResponse getStale(String fingerprint) {
+        RewardsResponse known = lastKnown.getIfPresent(staleKey(fingerprint));
+        if (known == null) {
+            return null;
+        }
+        staleServed.increment();
+        return known;
+    }
+
+    /**
+     * Drops all cached evaluations of the user, e.g. after an order was placed or the profile changed.
+     *
+     * @param userId the user ID
+     */
+    public void invalidate(long userId) {
+        generations.incrementAndGet(stripe(userId));
+    }
+
+    /**
+     * Builds the canonical fingerprint of a session evaluation.
+     *
+     * @param userId      the user ID
+     * @param profileHash the hash of the user's profile attributes
+     * @param session     the session about to be evaluated
+     * @return the fingerprint
+     */
+    public String fingerprint(long userId, long profileHash, SessionDTO session) {
+        StringBuilder sb = new StringBuilder(64)
+                .append(userId).append('|')
+                .append(generations.get(stripe(userId))).append('|')
+                .append(profileHash).append('|');
+
+        List<CartItemDTO> items = session.getItems() != null ? new ArrayList<>(session.getItems()) : new ArrayList<>();
+        items.sort(Comparator.comparing(CartItemDTO::getSku, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparingInt(CartItemDTO::getQuantity)
+                .thenComparingDouble(CartItemDTO::getPrice));
+        for (CartItemDTO item : items) {
+            sb.append(item.getSku()).append(':').append(item.getQuantity()).append(':').append(item.getPrice()).append(';');
+        }
+
+        sb.append('|').append(session.getTotalAmount()).append('|');
+        if (session.getSessionAttributes() != null) {
+            for (Map.Entry<String, Object> attribute : new TreeMap<>(session.getSessionAttributes()).entrySet()) {
+                sb.append(attribute.getKey()).append('=').append(attribute.getValue()).append(';');
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * The fingerprint without the generation and profile hash, so a stale evaluation of the cart survives
+     * invalidation and the profile changes caused by the user's own orders.
+     */
+    private static String staleKey(String fingerprint) {
+        int userEnd = fingerprint.indexOf('|');
+        int profileEnd = fingerprint.indexOf('|', fingerprint.indexOf('|', userEnd + 1) + 1);
+        return fingerprint.substring(0, userEnd) + fingerprint.substring(profileEnd);
+    }
+
+    private CompletableFuture<RewardsResponse> reuse(Entry entry) {
+        if (entry.future.isDone()) {
+            hits.increment();
+        } else {
+            coalesced.increment();
+        }
+        return entry.future;
+    }
+
+    private static CompletableFuture<RewardsResponse> load(Supplier<CompletableFuture<RewardsResponse>> loader) {
+        try {
+            return loader.get();
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private static int stripe(long userId) {
+        return (int) (userId ^ (userId >>> 32)) & (GENERATION_STRIPES - 1);
+    }
+
+    /**
+     * @return the number of evaluations served from a completed cache entry
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of evaluations that joined an identical in-flight evaluation
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    /**
+     * @return the number of evaluations that went upstream to Talon.One
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of upstream calls avoided (hits plus coalesced evaluations)
+     */
+    public long getUpstreamCallsAvoided() {
+        return hits.sum() + coalesced.sum();
+    }
+
+    /**
+     * @return the number of stale evaluations served while Talon.One was unavailable
+     */
+    public long getStaleServed() {
+        return staleServed.sum();
+    }
+
+    /**
+     * @return the approximate number of cached or in-flight evaluations
+     */
+    public long size() {
+        return entries.estimatedSize();
+    }
+
+    /**
+     * A cached or in-flight evaluation.
+     */
+    private static final class Entry {
+        final CompletableFuture<RewardsResponse> future = new CompletableFuture<>();
+        // In-flight entries never expire; the deadline is set when the evaluation completes
+        volatile long expiresAt = Long.MAX_VALUE;
+
+        boolean isLive(long now) {
+            return !isExpired(now) && !future.isCompletedExceptionally();
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != Long.MAX_VALUE && now - expiresAt >= 0;
+        }
+
+        long remaining(long now) {
+            return expiresAt == Long.MAX_VALUE ? Long.MAX_VALUE : Math.max(0, expiresAt - now);
+        }
+    }
+
+    /**
+     * Expires an entry at its own deadline, measured on the same {@link System#nanoTime()} clock Caffeine uses.
+     */
+    private static final class EntryExpiry implements Expiry<String, Entry> {
+
+        @Override
+        public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return entry.remaining(currentTime);
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return entry.remaining(currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.app.service;
+
+/**
+ * How the Talon.One profile update is ordered relative to the session evaluation
+ * in {@link RewardsService#evaluateRewards}.
+ */
+public enum EvaluationMode {
+
+    /**
+     * Update the profile, then evaluate the session. Two round trips; rules always see the fresh profile.
+     */
+    SEQUENTIAL,
+
+    /**
+     * Update the profile and evaluate the session at the same time, and wait for both.
+     * One round trip; rules may see the previous profile attributes.
+     */
+    CONCURRENT,
+
+    /**
+     * Send the profile update in the background and return as soon as the session is evaluated.
+     * Profile update failures are logged, not propagated.
+     */
+    FIRE_AND_FORGET,
+
+    /**
+     * Send no separate profile update; the profile attributes ride on the session payload.
+     */
+    INLINE
+}
@@ -0,0 +1,24 @@
+package com.app.service;
+
+/**
+ * How browsing evaluations ({@link RewardsService#previewRewardsAsync}) use the local rules engine.
+ * Orders are always evaluated by Talon.One.
+ */
+public enum LocalRulesMode {
+
+    /**
+     * Evaluate every cart with Talon.One.
+     */
+    OFF,
+
+    /**
+     * Answer from the local rules snapshot; fall back to Talon.One while no current snapshot is loaded.
+     */
+    LOCAL,
+
+    /**
+     * Evaluate with Talon.One and answer with its result, and compare it with the local result to report
+     * divergence before switching to {@code LOCAL}.
+     */
+    SHADOW
+}
@@ -0,0 +1,285 @@
+package com.app.service;
+
+import com.app.model.LoyaltyOutboxEntry;
+import com.app.repository.LoyaltyOutboxRepository;
+import com.app.talonone.AsyncTalonOneClient;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Transactional outbox for Talon.One loyalty confirmations.
+ * <p>
+ * {@link #enqueue} writes the confirmation in the caller's transaction, so it is persisted atomically with the
+ * order and checkout no longer waits on Talon.One. {@link #dispatch} drains due entries in batches: a batch is
+ * claimed with {@code FOR UPDATE SKIP LOCKED} and leased, confirmed concurrently through the
+ * {@link AsyncTalonOneClient} (whose limiter bounds concurrency), and each entry is marked dispatched or
+ * rescheduled with exponential backoff as soon as its own confirmation completes. Entries that exhaust their
+ * attempts are marked failed.
+ * </p>
+ * <p>
+ * The lease ({@code talonone.loyalty.outbox.lease}) must outlast the longest a single confirmation can take: the
+ * scheduler's loyalty max-wait plus the response timeout of every attempt, which is checked at startup. A
+ * confirmation still unanswered shortly before the lease ends is given up and rescheduled, and an entry whose
+ * lease was lost is not overwritten.
+ * </p>
+ * <p>
+ * Delivery is at-least-once: a node that dies or gives up after Talon.One accepted a confirmation but before
+ * marking it dispatched will have it re-sent once the lease expires. Every confirmation carries the order's
+ * {@link #idempotencyKey}, so Talon.One applies a re-sent one only once.
+ * </p>
+ */
+@Service
+public class LoyaltyOutboxService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LoyaltyOutboxService.class);
+
+    // Left at the end of a lease to record the outcomes before another dispatcher may claim the entries
+    private static final Duration LEASE_MARGIN = Duration.ofSeconds(5);
+
+    private final LoyaltyOutboxRepository outboxRepository;
+    private final AsyncTalonOneClient asyncTalonOneClient;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${talonone.loyalty.outbox.batch-size:100}")
+    private int batchSize;
+
+    @Value("${talonone.loyalty.outbox.lease:30s}")
+    private Duration lease;
+
+    @Value("${talonone.loyalty.outbox.initial-backoff:1s}")
+    private Duration initialBackoff;
+
+    @Value("${talonone.loyalty.outbox.max-backoff:5m}")
+    private Duration maxBackoff;
+
+    @Value("${talonone.loyalty.outbox.max-attempts:10}")
+    private int maxAttempts;
+
+    @Value("${talonone.scheduler.max-wait.loyalty:5s}")
+    private Duration schedulerMaxWait;
+
+    @Value("${talonone.scheduler.rate-limit-retries:1}")
+    private int rateLimitRetries;
+
+    @Value("${talonone.http.response-timeout.confirm-loyalty:5s}")
+    private Duration confirmTimeout;
+
+    private final AtomicLong queueDepth = new AtomicLong();
+    private final AtomicLong dispatchLagMillis = new AtomicLong();
+    private final LongAdder dispatched = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+
+    /**
+     * Constructs the outbox service.
+     * @param outboxRepository    the outbox repository
+     * @param asyncTalonOneClient the client used to confirm loyalty
+     * @param transactionManager  the transaction manager for claiming and completing batches
+     */
+    public LoyaltyOutboxService(LoyaltyOutboxRepository outboxRepository,
+                                AsyncTalonOneClient asyncTalonOneClient,
+                                PlatformTransactionManager transactionManager) {
+        this.outboxRepository = outboxRepository;
+        this.asyncTalonOneClient = asyncTalonOneClient;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * Fails startup if a confirmation could outlive its lease.
+     */
+    @PostConstruct
+    public void validateLease() {
+        Duration worstCase = schedulerMaxWait.plus(confirmTimeout.multipliedBy(1L + Math.max(0, rateLimitRetries)));
+        if (lease.compareTo(worstCase.plus(LEASE_MARGIN)) <= 0) {
+            throw new IllegalStateException("talonone.loyalty.outbox.lease (" + lease + ") must exceed the longest "
+                    + "loyalty confirmation (" + worstCase + ") by more than " + LEASE_MARGIN);
+        }
+    }
+
+    /**
+     * @param orderId The order ID.
+     * @return the idempotency key of the order's loyalty confirmation
+     */
+    public static String idempotencyKey(Long orderId) {
+        return "loyalty-" + orderId;
+    }
+
+    /**
+     * Records a loyalty confirmation for an order. Must be called inside the transaction that saves the order.
+     * @param orderId The order ID; at most one confirmation is recorded per order.
+     * @param userId The user ID.
+     * @param total The total amount for which loyalty points may be used.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(Long orderId, Long userId, double total) {
+        long now = System.currentTimeMillis();
+        outboxRepository.save(LoyaltyOutboxEntry.builder()
+                .orderId(orderId)
+                .userId(userId)
+                .totalAmount(total)
+                .status(LoyaltyOutboxEntry.STATUS_PENDING)
+                .nextAttemptAt(now)
+                .createdAt(now)
+                .build());
+    }
+
+    /**
+     * Drains due outbox entries, one batch at a time, until none are due.
+     */
+    @Scheduled(fixedDelayString = "${talonone.loyalty.outbox.poll-interval:1000}")
+    public void dispatch() {
+        List<LoyaltyOutboxEntry> batch;
+        do {
+            long leaseUntil = System.currentTimeMillis() + lease.toMillis();
+            batch = claimBatch(leaseUntil);
+            if (!batch.isEmpty()) {
+                dispatchBatch(batch, leaseUntil);
+            }
+        } while (batch.size() == batchSize);
+        refreshStats();
+    }
+
+    private List<LoyaltyOutboxEntry> claimBatch(long leaseUntil) {
+        return transactionTemplate.execute(status -> {
+            List<LoyaltyOutboxEntry> due = outboxRepository.lockDueBatch(System.currentTimeMillis(), batchSize);
+            if (!due.isEmpty()) {
+                outboxRepository.lease(due.stream().map(LoyaltyOutboxEntry::getId).toList(), leaseUntil);
+            }
+            return due;
+        });
+    }
+
+    /**
+     * Sends the batch concurrently and records each outcome on this thread as it arrives, so finished entries
+     * never wait for the slowest one of their batch.
+     */
+    private void dispatchBatch(List<LoyaltyOutboxEntry> batch, long leaseUntil) {
+        long giveUpAfter = Math.max(0, leaseUntil - LEASE_MARGIN.toMillis() - System.currentTimeMillis());
+        BlockingQueue<Outcome> outcomes = new LinkedBlockingQueue<>();
+        for (LoyaltyOutboxEntry entry : batch) {
+            asyncTalonOneClient.confirmLoyalty(entry.getUserId().toString(), idempotencyKey(entry.getOrderId()),
+                            entry.getTotalAmount())
+                    .orTimeout(giveUpAfter, TimeUnit.MILLISECONDS)
+                    .whenComplete((ignored, ex) -> outcomes.add(new Outcome(entry,
+                            ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex)));
+        }
+        for (int i = 0; i < batch.size(); i++) {
+            Outcome outcome;
+            try {
+                outcome = outcomes.take();
+            } catch (InterruptedException ex) {
+                // The remaining entries are picked up again once their lease expires
+                Thread.currentThread().interrupt();
+                return;
+            }
+            complete(outcome.entry, outcome.error, leaseUntil);
+        }
+    }
+
+    private void complete(LoyaltyOutboxEntry entry, Throwable error, long leaseUntil) {
+        int updated;
+        if (error == null) {
+            updated = transactionTemplate.execute(status -> outboxRepository.markDispatched(entry.getId(), leaseUntil));
+            if (updated > 0) {
+                dispatched.increment();
+            }
+        } else {
+            reschedule(entry, error);
+            updated = transactionTemplate.execute(status -> outboxRepository.reschedule(entry.getId(), leaseUntil,
+                    entry.getStatus(), entry.getAttempts(), entry.getNextAttemptAt(), entry.getLastError()));
+        }
+        if (updated == 0) {
+            logger.warn("Lease on the loyalty confirmation for order {} expired before its outcome was recorded",
+                    entry.getOrderId());
+        }
+    }
+
+    private void reschedule(LoyaltyOutboxEntry entry, Throwable error) {
+        int attempts = entry.getAttempts() + 1;
+        entry.setAttempts(attempts);
+        entry.setLastError(String.valueOf(error.getMessage()));
+        if (attempts >= maxAttempts) {
+            entry.setStatus(LoyaltyOutboxEntry.STATUS_FAILED);
+            failed.increment();
+            logger.error("Loyalty confirmation for order {} failed after {} attempts", entry.getOrderId(), attempts, error);
+            return;
+        }
+        long backoff = Math.min(maxBackoff.toMillis(), initialBackoff.toMillis() << Math.min(attempts - 1, 20));
+        entry.setNextAttemptAt(System.currentTimeMillis() + backoff);
+        retries.increment();
+        logger.warn("Loyalty confirmation for order {} failed (attempt {}), retrying in {} ms",
+                entry.getOrderId(), attempts, backoff);
+    }
+
+    private void refreshStats() {
+        List<Object[]> rows = outboxRepository.pendingStats();
+        Object[] row = rows.isEmpty() ? new Object[]{0L, null} : rows.get(0);
+        queueDepth.set(((Number) row[0]).longValue());
+        dispatchLagMillis.set(row[1] == null ? 0 : System.currentTimeMillis() - ((Number) row[1]).longValue());
+    }
+
+    /**
+     * @return the number of pending confirmations as of the last dispatch run
+     */
+    public long getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return the age in millis of the oldest pending confirmation as of the last dispatch run
+     */
+    public long getDispatchLagMillis() {
+        return dispatchLagMillis.get();
+    }
+
+    /**
+     * @return the total number of confirmations dispatched by this node
+     */
+    public long getDispatched() {
+        return dispatched.sum();
+    }
+
+    /**
+     * @return the total number of failed attempts that were rescheduled
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * @return the total number of confirmations that exhausted their attempts
+     */
+    public long getFailed() {
+        return failed.sum();
+    }
+
+    /**
+     * The result of one confirmation.
+     */
+    private static final class Outcome {
+        final LoyaltyOutboxEntry entry;
+        final Throwable error;
+
+        Outcome(LoyaltyOutboxEntry entry, Throwable error) {
+            this.entry = entry;
+            this.error = error;
+        }
+    }
+}
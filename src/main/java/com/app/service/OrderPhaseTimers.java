@@ -0,0 +1,105 @@
+package com.app.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.Ordered;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers for the phases of {@link OrderService#saveOrder}, published as {@code orders.save.phase}
+ * tagged by {@code phase}, with percentile histograms.
+ * <p>
+ * Hibernate defers the order and item INSERTs to the flush at commit, so {@code PERSIST} only covers handing the
+ * order to the persistence context; the INSERTs and the commit itself are timed as {@code COMMIT}, once per
+ * transaction (see {@link #timeCommit()}).
+ * </p>
+ * <p>
+ * Usage:
+ * <pre>
+ *     long phaseStart = System.nanoTime();
+ *     ...
+ *     phaseStart = orderPhaseTimers.record(Phase.PRICE_CALC, phaseStart);
+ * </pre>
+ * </p>
+ */
+@Component
+public class OrderPhaseTimers {
+
+    /**
+     * The phases of placing an order.
+     */
+    public enum Phase { PRICE_CALC, STATS_UPDATE, PERSIST, LOYALTY_CONFIRM, COMMIT }
+
+    private final Map<Phase, Timer> timers = new EnumMap<>(Phase.class);
+
+    /**
+     * Registers one timer per phase.
+     *
+     * @param meterRegistry the registry timers are registered with
+     */
+    public OrderPhaseTimers(MeterRegistry meterRegistry) {
+        for (Phase phase : Phase.values()) {
+            timers.put(phase, Timer.builder("orders.save.phase")
+                    .description("Duration of each phase of saving an order")
+                    .tag("phase", phase.name().toLowerCase(Locale.ROOT))
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Records a phase that started at {@code phaseStart} and ends now.
+     *
+     * @param phase      the phase that just ended
+     * @param phaseStart the {@link System#nanoTime()} at which the phase started
+     * @return the current {@link System#nanoTime()}, i.e. the start of the next phase
+     */
+    public long record(Phase phase, long phaseStart) {
+        long now = System.nanoTime();
+        timers.get(phase).record(now - phaseStart, TimeUnit.NANOSECONDS);
+        return now;
+    }
+
+    /**
+     * Times the flush and commit of the current transaction as {@code COMMIT}, unless already timed. Does
+     * nothing without a transaction.
+     */
+    public void timeCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()
+                || TransactionSynchronizationManager.hasResource(this)) {
+            return;
+        }
+        TransactionSynchronizationManager.bindResource(this, Boolean.TRUE);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long commitStart;
+
+            @Override
+            public int getOrder() {
+                // First to start and first to finish, so other callbacks stay out of the measurement
+                return Ordered.HIGHEST_PRECEDENCE;
+            }
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                commitStart = System.nanoTime();
+            }
+
+            @Override
+            public void afterCommit() {
+                timers.get(Phase.COMMIT).record(System.nanoTime() - commitStart, TimeUnit.NANOSECONDS);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(OrderPhaseTimers.this);
+            }
+        });
+    }
+}
@@ -1,14 +1,27 @@
 package com.app.service;
 
-import com.app.model.User;
+import com.app.datasource.ReadRouting;
+import com.app.model.CartItemDTO;
+import com.app.model.Item;
 import com.app.model.Order;
+import com.app.model.OrderCursor;
+import com.app.model.OrderHistoryPage;
+import com.app.model.OrderItemDTO;
 import com.app.model.OrderRequest;
+import com.app.model.OrderSummaryDTO;
 import com.app.model.RewardsResponse;
-import com.app.service.UserService;
-import com.app.service.RewardsService;
 import com.app.repository.OrderRepository;
-lombok.RequiredArgsConstructor;
+import com.app.service.OrderPhaseTimers.Phase;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Service layer for managing orders.
@@ -20,43 +33,144 @@ public class OrderService {
     private final UserService userService;
     private final RewardsService rewardsService;
     private final OrderRepository orderRepository;
+    private final LoyaltyOutboxService loyaltyOutboxService;
+    private final OrderPhaseTimers orderPhaseTimers;
+    private final ReadRouting readRouting;
+
+    @Value("${orders.history.default-page-size:20}")
+    private int defaultPageSize;
+
+    @Value("${orders.history.max-page-size:100}")
+    private int maxPageSize;
 
     /**
      * Places an order: evaluates rewards, applies discounts, saves the order, and updates user stats.
+     * The loyalty confirmation is recorded in the outbox within the same transaction and sent to Talon.One
+     * asynchronously by {@link LoyaltyOutboxService}.
+     * <p>
+     * Runs in one transaction with a fixed statement count: one UPDATE of the user's stats (which also
+     * verifies the user exists and locks the row), one INSERT of the order, one INSERT per item and one
+     * INSERT into the outbox. The user is never SELECTed.
+     * </p>
+     * <p>
+     * Each phase is timed by {@link OrderPhaseTimers}, including the flush and commit after this method returns.
+     * </p>
      * @param orderRequest The order request payload.
      * @param rewards The rewards/discounts to apply.
      * @return The saved Order.
      */
+    @Transactional
     public Order saveOrder(OrderRequest orderRequest, RewardsResponse rewards) {
-        // Retrieve user
-        User user = userService.getUserById(orderRequest.getUserId());
-        if (user == null) {
-            throw new IllegalArgumentException("User not found for ID: " + orderRequest.getUserId());
-        }
+        Long userId = orderRequest.getUserId();
+        orderPhaseTimers.timeCommit();
+        long phaseStart = System.nanoTime();
 
         // Calculate final price after applying rewards/discounts
         double discount = rewards != null ? rewards.getDiscountAmount() : 0.0;
         double total = orderRequest.getCart().getTotalAmount() - discount;
+        phaseStart = orderPhaseTimers.record(Phase.PRICE_CALC, phaseStart);
+
+        // Update user statistics atomically; zero rows means the user does not exist
+        if (!userService.incrementOrderStats(userId, total)) {
+            throw new IllegalArgumentException("User not found for ID: " + userId);
+        }
+        phaseStart = orderPhaseTimers.record(Phase.STATS_UPDATE, phaseStart);
 
         // Create Order entity
         Order order = new Order();
-        order.setUserId(user.getId());
-        order.setItems(orderRequest.getCart().getItems());
+        order.setUser(userService.getReference(userId));
+        // Set first: the items copy it as their partition key
+        order.setCreatedAt(System.currentTimeMillis());
+        order.setItems(toItems(orderRequest.getCart().getItems(), order));
         order.setTotalAmount(total);
         order.setDiscountApplied(discount);
         order.setStatus("PLACED");
 
-        // Save order
+        // Save order; the INSERTs are flushed at commit
         Order savedOrder = orderRepository.save(order);
+        phaseStart = orderPhaseTimers.record(Phase.PERSIST, phaseStart);
 
-        // Update user statistics
-        int newTotalOrders = user.getTotalOrders() + 1;
-        double newTotalSpent = user.getTotalSpent() + total;
-        userService.updateUserStats(user.getId(), newTotalOrders, newTotalSpent);
+        // Memoized evaluations of this cart must not be reused for the next order
+        rewardsService.invalidateEvaluations(userId);
+        // The user's next reads must see this order, not a lagging replica
+        readRouting.markWrittenAfterCommit(userId);
 
-        // Confirm loyalty point usage if applicable
-        rewardsService.confirmLoyalty(user.getId().toString(), total);
+        // Queue loyalty point confirmation; dispatched after commit
+        loyaltyOutboxService.enqueue(savedOrder.getId(), userId, total);
+        orderPhaseTimers.record(Phase.LOYALTY_CONFIRM, phaseStart);
 
         return savedOrder;
     }
+
+    /**
+     * Returns one page of the user's orders, newest first, with their items.
+     * <p>
+     * Runs two queries per page regardless of the history's depth: a keyset seek for the page's order summaries
+     * and one batched fetch of their items. No entities are loaded. Served by a read replica when routing is
+     * enabled, unless the user placed an order within the sticky window.
+     * </p>
+     * @param userId The user ID.
+     * @param cursor The {@code nextCursor} of the previous page, or null for the first page.
+     * @param limit The requested page size, or null for the default; capped at {@code orders.history.max-page-size}.
+     * @return The page and the cursor of the next one.
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    @Transactional(readOnly = true)
+    public OrderHistoryPage getOrderHistory(Long userId, String cursor, Integer limit) {
+        int pageSize = Math.max(1, Math.min(limit != null ? limit : defaultPageSize, maxPageSize));
+        // One extra row tells whether there is a next page without a count query
+        PageRequest fetch = PageRequest.ofSize(pageSize + 1);
+        try (ReadRouting.Scope scope = readRouting.forUser(userId)) {
+            List<OrderSummaryDTO> orders;
+            if (cursor == null || cursor.isEmpty()) {
+                orders = orderRepository.findHistory(userId, fetch);
+            } else {
+                OrderCursor position = OrderCursor.decode(cursor);
+                orders = orderRepository.findHistoryAfter(userId, position.getCreatedAt(), position.getId(), fetch);
+            }
+
+            String nextCursor = null;
+            if (orders.size() > pageSize) {
+                orders = new ArrayList<>(orders.subList(0, pageSize));
+                OrderSummaryDTO last = orders.get(pageSize - 1);
+                nextCursor = new OrderCursor(last.getCreatedAt(), last.getId()).encode();
+            }
+            attachItems(orders);
+            return OrderHistoryPage.builder().orders(orders).nextCursor(nextCursor).build();
+        }
+    }
+
+    private void attachItems(List<OrderSummaryDTO> orders) {
+        if (orders.isEmpty()) {
+            return;
+        }
+        Map<Long, OrderSummaryDTO> byId = new HashMap<>(orders.size() * 2);
+        for (OrderSummaryDTO order : orders) {
+            byId.put(order.getId(), order);
+        }
+        // Pages are newest first; the creation time range limits the item lookup to the page's partitions
+        long from = orders.get(orders.size() - 1).getCreatedAt();
+        long to = orders.get(0).getCreatedAt();
+        for (OrderItemDTO item : orderRepository.findItemsByOrderIds(byId.keySet(), from, to)) {
+            byId.get(item.getOrderId()).getItems().add(item);
+        }
+    }
+
+    private static List<Item> toItems(List<CartItemDTO> cartItems, Order order) {
+        List<Item> items = new ArrayList<>();
+        if (cartItems == null) {
+            return items;
+        }
+        for (CartItemDTO cartItem : cartItems) {
+            items.add(Item.builder()
+                    .sku(cartItem.getSku())
+                    .name(cartItem.getName())
+                    .quantity(cartItem.getQuantity())
+                    .price(cartItem.getPrice())
+                    .orderCreatedAt(order.getCreatedAt())
+                    .order(order)
+                    .build());
+        }
+        return items;
+    }
 }
@@ -0,0 +1,244 @@
+package com.app.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Bounded cache of the last profile hash pushed to Talon.One per user, used to skip redundant
+ * {@code updateProfile} calls.
+ * <p>
+ * The cache is set-associative: a user id maps to one set of {@value #WAYS} slots, and a full set evicts its
+ * least recently used slot. Keys, hashes and timestamps are kept in primitive arrays allocated once at startup,
+ * so the heap cost is fixed at 24 bytes per slot regardless of load (e.g. 2M slots = 48 MB).
+ * Entries also expire {@code talonone.profile-cache.ttl} after they were written, which forces a periodic
+ * re-push in case the profile was changed in Talon.One by another system.
+ * </p>
+ */
+@Component
+public class ProfileHashCache {
+
+    private static final int WAYS = 8;
+    private static final int LOCK_STRIPES = 256;
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    private final long[] keys;
+    private final long[] hashes;
+    private final int[] writtenAt;  // seconds since startBase; 0 marks an empty slot
+    private final int[] accessedAt; // seconds since startBase
+    private final int setMask;
+    private final ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+    private final long startBase = System.nanoTime();
+    private final long ttlSeconds;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Constructs the cache.
+     *
+     * @param maxEntries the number of users to track; rounded up to a power-of-two multiple of the set size
+     * @param ttl        how long a pushed profile is trusted before it is sent again
+     */
+    public ProfileHashCache(@Value("${talonone.profile-cache.max-entries:1048576}") int maxEntries,
+                            @Value("${talonone.profile-cache.ttl:1h}") Duration ttl) {
+        int sets = Integer.highestOneBit(Math.max(1, (maxEntries + WAYS - 1) / WAYS - 1) << 1);
+        this.setMask = sets - 1;
+        this.keys = new long[sets * WAYS];
+        this.hashes = new long[sets * WAYS];
+        this.writtenAt = new int[sets * WAYS];
+        this.accessedAt = new int[sets * WAYS];
+        this.ttlSeconds = ttl.toSeconds();
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Checks whether the given profile hash is the one last pushed for the user.
+     *
+     * @param userId      the user ID
+     * @param profileHash the hash of the profile about to be sent, see {@link #hash(Map)}
+     * @return true if the same profile was pushed within the TTL and the update can be skipped
+     */
+    public boolean isUnchanged(long userId, long profileHash) {
+        int set = setOf(userId);
+        int now = now();
+        ReentrantLock lock = lockFor(set);
+        lock.lock();
+        try {
+            int slot = find(set, userId, now);
+            if (slot >= 0 && hashes[slot] == profileHash) {
+                accessedAt[slot] = now;
+                hits.increment();
+                return true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        misses.increment();
+        return false;
+    }
+
+    /**
+     * Records the hash of a profile that Talon.One has accepted.
+     *
+     * @param userId      the user ID
+     * @param profileHash the hash of the pushed profile
+     */
+    public void put(long userId, long profileHash) {
+        int set = setOf(userId);
+        int now = now();
+        ReentrantLock lock = lockFor(set);
+        lock.lock();
+        try {
+            int slot = find(set, userId, now);
+            if (slot < 0) {
+                slot = victim(set, now);
+                keys[slot] = userId;
+            }
+            hashes[slot] = profileHash;
+            writtenAt[slot] = now;
+            accessedAt[slot] = now;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Forgets the last pushed profile for the user, e.g. after a failed update.
+     *
+     * @param userId the user ID
+     */
+    public void invalidate(long userId) {
+        int set = setOf(userId);
+        ReentrantLock lock = lockFor(set);
+        lock.lock();
+        try {
+            int slot = find(set, userId, now());
+            if (slot >= 0) {
+                writtenAt[slot] = 0;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash of the profile attributes, independent of map iteration order.
+     *
+     * @param attributes the profile attributes
+     * @return the profile hash
+     */
+    public static long hash(Map<String, Object> attributes) {
+        long hash = FNV_OFFSET;
+        if (attributes == null) {
+            return hash;
+        }
+        for (Map.Entry<String, Object> entry : new TreeMap<>(attributes).entrySet()) {
+            hash = fnv(hash, entry.getKey());
+            hash = fnv(hash, String.valueOf(entry.getValue()));
+        }
+        return hash;
+    }
+
+    private static long fnv(long hash, String value) {
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b & 0xff;
+            hash *= FNV_PRIME;
+        }
+        // Field separator, so ("ab", "c") and ("a", "bc") hash differently
+        hash ^= 0xff;
+        return hash * FNV_PRIME;
+    }
+
+    /**
+     * Returns the live slot holding the user, or -1. Expired slots are cleared on the way.
+     */
+    private int find(int set, long userId, int now) {
+        int base = set * WAYS;
+        for (int slot = base; slot < base + WAYS; slot++) {
+            if (writtenAt[slot] != 0 && keys[slot] == userId) {
+                if (now - writtenAt[slot] >= ttlSeconds) {
+                    writtenAt[slot] = 0;
+                    evictions.increment();
+                    return -1;
+                }
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Picks an empty slot in the set, or evicts the least recently used one.
+     */
+    private int victim(int set, int now) {
+        int base = set * WAYS;
+        int lru = base;
+        for (int slot = base; slot < base + WAYS; slot++) {
+            if (writtenAt[slot] == 0) {
+                return slot;
+            }
+            if (now - writtenAt[slot] >= ttlSeconds) {
+                evictions.increment();
+                return slot;
+            }
+            if (accessedAt[slot] < accessedAt[lru]) {
+                lru = slot;
+            }
+        }
+        evictions.increment();
+        return lru;
+    }
+
+    private int setOf(long userId) {
+        long h = userId * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32)) & setMask;
+    }
+
+    private ReentrantLock lockFor(int set) {
+        return locks[set & (LOCK_STRIPES - 1)];
+    }
+
+    private int now() {
+        // Starts at 1 so that 0 can mark empty slots
+        return (int) ((System.nanoTime() - startBase) / 1_000_000_000L) + 1;
+    }
+
+    /**
+     * @return the number of skipped profile updates
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return the number of profile updates that had to be sent
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return the number of entries evicted by the LRU policy or expired by the TTL
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of slots, i.e. the maximum number of users tracked
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+}
@@ -1,19 +1,135 @@
 package com.app.service;
 
 import com.app.model.CartRequest;
+import com.app.model.ProfileDTO;
 import com.app.model.RewardsResponse;
+import com.app.model.SessionDTO;
+import com.app.model.User;
+import com.app.rules.LocalRulesEngine;
+import com.app.rules.ShadowComparator;
+import com.app.talonone.AsyncTalonOneClient;
+import com.app.talonone.TalonOneBatcher;
 import com.app.talonone.TalonOneClient;
-lombok.RequiredArgsConstructor;
+import com.app.talonone.TalonOneClientException;
+import com.app.talonone.TalonOnePriority;
+import com.app.talonone.TalonOneUnavailableException;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
 /**
  * Service layer for integrating with Talon.One for rewards and discounts.
+ * <p>
+ * The ordering of the profile update relative to the session evaluation is configured with
+ * {@code talonone.evaluation.mode} (see {@link EvaluationMode}). Use {@code SEQUENTIAL} when campaign rules
+ * depend on profile attributes written by the same request.
+ * </p>
+ * <p>
+ * Profile updates are skipped when the profile is unchanged since the last successful push
+ * (see {@link ProfileHashCache}), and identical cart evaluations are memoized for a few seconds
+ * (see {@link EvaluationCache}).
+ * </p>
+ * <p>
+ * When Talon.One is unavailable (circuit open, bulkhead full, no response, 5xx or 429) and
+ * {@code talonone.evaluation.degraded-enabled} is set, evaluations degrade instead of failing: the last successful
+ * evaluation of the same cart is returned if there is one, otherwise a zero-discount response, so orders still flow.
+ * </p>
+ * <p>
+ * Browsing evaluations ({@link #previewRewardsAsync}) may instead be answered by the in-process
+ * {@link LocalRulesEngine}, configured with {@code talonone.rules.mode} (see {@link LocalRulesMode}). Orders are
+ * always evaluated by Talon.One, which stays authoritative for the discount actually granted.
+ * </p>
+ * <p>
+ * Talon.One calls are scheduled with the {@link TalonOnePriority} of their purpose: order evaluations, including
+ * their profile updates, as {@code CHECKOUT}, browsing evaluations as {@code BROWSE}, background profile updates as
+ * {@code PROFILE_SYNC}, bulk imports as {@code BULK}, so browsing is shed first when the request budget runs out.
+ * Background profile updates are coalesced by the {@link TalonOneBatcher} into bulk requests.
+ * </p>
+ * <p>
+ * The async evaluations load the user for the profile on a bounded pool
+ * ({@code talonone.evaluation.profile-loader.*}) rather than on the calling thread, so a slow database does not hold
+ * servlet threads. Loads beyond its queue fail the evaluation instead of piling up.
+ * </p>
  */
 @Service
 @RequiredArgsConstructor
 public class RewardsService {
 
+    private static final Logger logger = LoggerFactory.getLogger(RewardsService.class);
+
     private final TalonOneClient talonOneClient;
+    private final AsyncTalonOneClient asyncTalonOneClient;
+    private final TalonOneBatcher talonOneBatcher;
+    private final UserService userService;
+    private final ProfileHashCache profileHashCache;
+    private final EvaluationCache evaluationCache;
+    private final LocalRulesEngine localRulesEngine;
+    private final ShadowComparator shadowComparator;
+    private final ObservationRegistry observationRegistry;
+
+    @Value("${talonone.evaluation.mode:SEQUENTIAL}")
+    private EvaluationMode evaluationMode;
+
+    @Value("${talonone.evaluation.degraded-enabled:true}")
+    private boolean degradedEnabled;
+
+    @Value("${talonone.rules.mode:OFF}")
+    private LocalRulesMode localRulesMode;
+
+    @Value("${talonone.evaluation.profile-loader.threads:20}")
+    private int profileLoaderThreads;
+
+    @Value("${talonone.evaluation.profile-loader.max-queued:1000}")
+    private int profileLoaderMaxQueued;
+
+    private ExecutorService profileLoader;
+
+    private final LongAdder staleFallbacks = new LongAdder();
+    private final LongAdder zeroDiscountFallbacks = new LongAdder();
+    private final LongAdder localEvaluations = new LongAdder();
+    private final LongAdder localMisses = new LongAdder();
+
+    /**
+     * Starts the pool that loads users for async evaluations.
+     */
+    @PostConstruct
+    public void startProfileLoader() {
+        AtomicInteger threadCount = new AtomicInteger();
+        profileLoader = new ThreadPoolExecutor(profileLoaderThreads, profileLoaderThreads, 0, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(profileLoaderMaxQueued), runnable -> {
+                    Thread thread = new Thread(runnable, "profile-loader-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /**
+     * Stops the profile loader; queued loads are abandoned.
+     */
+    @PreDestroy
+    public void stopProfileLoader() {
+        profileLoader.shutdownNow();
+    }
 
     /**
      * Evaluates the cart for applicable rewards and discounts via Talon.One.
@@ -21,21 +137,355 @@ public class RewardsService {
      * @return RewardsResponse containing discounts and rewards.
      */
     public RewardsResponse evaluateRewards(CartRequest cartRequest) {
-        // Update user profile in Talon.One
-        talonOneClient.updateProfile(cartRequest.getUserId(), cartRequest);
+        String userId = cartRequest.getUserId().toString();
+        ProfileDTO profile = toProfile(cartRequest);
+        SessionDTO session = toSession(cartRequest);
 
-        // Evaluate session for discounts/rewards
-        RewardsResponse response = talonOneClient.evaluateSession(cartRequest.getUserId(), cartRequest);
+        String fingerprint = fingerprint(cartRequest, profile, session);
 
-        return response;
+        return newObservation().observe(() -> {
+            try {
+                return join(evaluationCache.get(fingerprint,
+                        () -> CompletableFuture.completedFuture(evaluate(userId, profile, session))));
+            } catch (TalonOneClientException ex) {
+                return degrade(fingerprint, ex);
+            }
+        });
+    }
+
+    /**
+     * Evaluates the cart for applicable rewards and discounts via Talon.One without blocking the calling thread,
+     * for an order.
+     * @param cartRequest The cart details.
+     * @return A future completed with the RewardsResponse containing discounts and rewards.
+     */
+    public CompletableFuture<RewardsResponse> evaluateRewardsAsync(CartRequest cartRequest) {
+        return evaluateRewardsAsync(cartRequest, TalonOnePriority.CHECKOUT);
+    }
+
+    /**
+     * Evaluates the cart for an order without blocking the calling thread, scheduled in the given class,
+     * e.g. {@code BULK} for imported orders so they yield to live checkouts.
+     * @param cartRequest The cart details.
+     * @param priority The priority class of the Talon.One calls.
+     * @return A future completed with the RewardsResponse containing discounts and rewards.
+     */
+    public CompletableFuture<RewardsResponse> evaluateRewardsAsync(CartRequest cartRequest, TalonOnePriority priority) {
+        return evaluateRewardsAsync(cartRequest, null, priority);
+    }
+
+    /**
+     * Evaluates the cart for display while the user browses. Depending on {@code talonone.rules.mode}, the result
+     * is a provisional evaluation by the local rules engine, or the Talon.One evaluation (compared with the local
+     * one in shadow mode). Never use it for an order.
+     * @param cartRequest The cart details.
+     * @return A future completed with the RewardsResponse containing discounts and rewards.
+     */
+    public CompletableFuture<RewardsResponse> previewRewardsAsync(CartRequest cartRequest) {
+        switch (localRulesMode) {
+            case LOCAL: {
+                RewardsResponse local = localRulesEngine.evaluate(cartRequest);
+                if (local != null) {
+                    localEvaluations.increment();
+                    return CompletableFuture.completedFuture(local);
+                }
+                localMisses.increment();
+                return evaluateRewardsAsync(cartRequest, null, TalonOnePriority.BROWSE);
+            }
+            case SHADOW: {
+                RewardsResponse local = localRulesEngine.evaluate(cartRequest);
+                if (local == null) {
+                    localMisses.increment();
+                }
+                return evaluateRewardsAsync(cartRequest, local, TalonOnePriority.BROWSE);
+            }
+            case OFF:
+            default:
+                return evaluateRewardsAsync(cartRequest, null, TalonOnePriority.BROWSE);
+        }
+    }
+
+    /**
+     * Evaluates the cart upstream; a shadow evaluation, if given, is compared with the upstream result.
+     * Degraded answers are not compared, they say nothing about the campaigns.
+     */
+    private CompletableFuture<RewardsResponse> evaluateRewardsAsync(CartRequest cartRequest, RewardsResponse shadow,
+                                                                    TalonOnePriority priority) {
+        String userId = cartRequest.getUserId().toString();
+        SessionDTO session = toSession(cartRequest);
+
+        Observation observation = newObservation().start();
+        return toProfileAsync(cartRequest)
+                .thenCompose(profile -> {
+                    String fingerprint = fingerprint(cartRequest, profile, session);
+                    CompletableFuture<RewardsResponse> evaluation;
+                    try (Observation.Scope scope = observation.openScope()) {
+                        evaluation = evaluationCache.get(fingerprint,
+                                () -> evaluateAsync(userId, profile, session, priority));
+                    }
+                    if (shadow != null) {
+                        evaluation.thenAccept(remote ->
+                                shadowComparator.compare(cartRequest.getUserId(), shadow, remote));
+                    }
+                    return evaluation.exceptionally(ex -> {
+                        Throwable cause = ex instanceof CompletionException && ex.getCause() != null
+                                ? ex.getCause() : ex;
+                        if (cause instanceof TalonOneClientException) {
+                            return degrade(fingerprint, (TalonOneClientException) cause);
+                        }
+                        throw ex instanceof CompletionException
+                                ? (CompletionException) ex : new CompletionException(ex);
+                    });
+                })
+                .whenComplete((response, ex) -> {
+                    if (ex != null) {
+                        observation.error(ex);
+                    }
+                    observation.stop();
+                });
+    }
+
+    /**
+     * Drops memoized evaluations of the user, e.g. after an order was placed.
+     * @param userId The user ID.
+     */
+    public void invalidateEvaluations(Long userId) {
+        evaluationCache.invalidate(userId);
     }
 
     /**
      * Confirms loyalty point usage with Talon.One after order placement.
      * @param userId The user ID.
+     * @param orderId The order ID; identifies the confirmation so a retried one is applied only once.
      * @param total The total amount for which loyalty points may be used.
      */
-    public void confirmLoyalty(String userId, double total) {
-        talonOneClient.confirmLoyalty(userId, total);
+    public void confirmLoyalty(String userId, Long orderId, double total) {
+        talonOneClient.confirmLoyalty(userId, LoyaltyOutboxService.idempotencyKey(orderId), total);
+    }
+
+    /**
+     * @return the number of evaluations answered with a stale cached evaluation while Talon.One was unavailable
+     */
+    public long getStaleFallbacks() {
+        return staleFallbacks.sum();
+    }
+
+    /**
+     * @return the number of evaluations answered with a zero-discount response while Talon.One was unavailable
+     */
+    public long getZeroDiscountFallbacks() {
+        return zeroDiscountFallbacks.sum();
+    }
+
+    /**
+     * @return the number of browsing evaluations answered by the local rules engine
+     */
+    public long getLocalEvaluations() {
+        return localEvaluations.sum();
+    }
+
+    /**
+     * @return the number of browsing evaluations the local rules engine could not answer for lack of a current snapshot
+     */
+    public long getLocalMisses() {
+        return localMisses.sum();
+    }
+
+    private Observation newObservation() {
+        return Observation.createNotStarted("rewards.evaluate", observationRegistry)
+                .lowCardinalityKeyValue("mode", evaluationMode.name());
+    }
+
+    /**
+     * Answers an evaluation that failed because Talon.One is unavailable; rethrows any other failure.
+     */
+    private RewardsResponse degrade(String fingerprint, TalonOneClientException ex) {
+        boolean unavailable = ex instanceof TalonOneUnavailableException || ex.isUpstreamFailure();
+        if (!degradedEnabled || !unavailable) {
+            throw ex;
+        }
+        RewardsResponse stale = evaluationCache.getStale(fingerprint);
+        if (stale != null) {
+            staleFallbacks.increment();
+            logger.debug("Talon.One unavailable, serving last known evaluation: {}", ex.getMessage());
+            return stale;
+        }
+        zeroDiscountFallbacks.increment();
+        logger.debug("Talon.One unavailable, serving zero-discount evaluation: {}", ex.getMessage());
+        return RewardsResponse.builder()
+                .discountAmount(0)
+                .rewards(Collections.emptyList())
+                .appliedCoupons(Collections.emptyList())
+                .loyaltyPointsUsed(0)
+                .loyaltyPointsEarned(0)
+                .build();
+    }
+
+    /**
+     * Evaluates the session upstream, ordering the profile update according to the evaluation mode.
+     */
+    private RewardsResponse evaluate(String userId, ProfileDTO profile, SessionDTO session) {
+        switch (evaluationMode) {
+            case CONCURRENT: {
+                // Profile update runs on the async client while this thread evaluates the session
+                CompletableFuture<Void> profileUpdate =
+                        updateProfileIfChangedAsync(userId, profile, TalonOnePriority.CHECKOUT);
+                RewardsResponse response = talonOneClient.evaluateSession(session, TalonOnePriority.CHECKOUT);
+                join(profileUpdate);
+                return response;
+            }
+            case FIRE_AND_FORGET:
+                updateProfileInBackground(userId, profile);
+                return talonOneClient.evaluateSession(session, TalonOnePriority.CHECKOUT);
+            case INLINE:
+                session.setProfileAttributes(profile.getAttributes());
+                return talonOneClient.evaluateSession(session, TalonOnePriority.CHECKOUT);
+            case SEQUENTIAL:
+            default:
+                // Update user profile in Talon.One
+                updateProfileIfChanged(userId, profile);
+
+                // Evaluate session for discounts/rewards
+                return talonOneClient.evaluateSession(session, TalonOnePriority.CHECKOUT);
+        }
+    }
+
+    /**
+     * Async variant of {@link #evaluate}; the profile update and the evaluation are scheduled with the given priority.
+     */
+    private CompletableFuture<RewardsResponse> evaluateAsync(String userId, ProfileDTO profile, SessionDTO session,
+                                                             TalonOnePriority priority) {
+        switch (evaluationMode) {
+            case CONCURRENT: {
+                CompletableFuture<Void> profileUpdate = updateProfileIfChangedAsync(userId, profile, priority);
+                return asyncTalonOneClient.evaluateSession(session, priority)
+                        .thenCombine(profileUpdate, (response, ignored) -> response);
+            }
+            case FIRE_AND_FORGET:
+                updateProfileInBackground(userId, profile);
+                return asyncTalonOneClient.evaluateSession(session, priority);
+            case INLINE:
+                session.setProfileAttributes(profile.getAttributes());
+                return asyncTalonOneClient.evaluateSession(session, priority);
+            case SEQUENTIAL:
+            default:
+                return updateProfileIfChangedAsync(userId, profile, priority)
+                        .thenCompose(ignored -> asyncTalonOneClient.evaluateSession(session, priority));
+        }
+    }
+
+    /**
+     * Pushes the profile to Talon.One unless the same profile was already pushed.
+     */
+    private void updateProfileIfChanged(String userId, ProfileDTO profile) {
+        long id = Long.parseLong(userId);
+        long hash = ProfileHashCache.hash(profile.getAttributes());
+        if (profileHashCache.isUnchanged(id, hash)) {
+            return;
+        }
+        try {
+            talonOneClient.updateProfile(userId, profile, TalonOnePriority.CHECKOUT);
+        } catch (RuntimeException ex) {
+            profileHashCache.invalidate(id);
+            throw ex;
+        }
+        profileHashCache.put(id, hash);
+    }
+
+    /**
+     * Async variant of {@link #updateProfileIfChanged}; completes immediately when the profile is unchanged.
+     * Background ({@code PROFILE_SYNC}) updates go through the batcher.
+     */
+    private CompletableFuture<Void> updateProfileIfChangedAsync(String userId, ProfileDTO profile,
+                                                                TalonOnePriority priority) {
+        long id = Long.parseLong(userId);
+        long hash = ProfileHashCache.hash(profile.getAttributes());
+        if (profileHashCache.isUnchanged(id, hash)) {
+            return CompletableFuture.completedFuture(null);
+        }
+        CompletableFuture<Void> update = priority == TalonOnePriority.PROFILE_SYNC
+                ? talonOneBatcher.submitProfile(profile).thenAccept(result -> {
+                    if (!result.isSuccess()) {
+                        throw new TalonOneClientException("Failed to update profile: " + result.getError());
+                    }
+                })
+                : asyncTalonOneClient.updateProfile(userId, profile, priority);
+        return update
+                .whenComplete((ignored, ex) -> {
+                    if (ex != null) {
+                        profileHashCache.invalidate(id);
+                    } else {
+                        profileHashCache.put(id, hash);
+                    }
+                });
+    }
+
+    private void updateProfileInBackground(String userId, ProfileDTO profile) {
+        updateProfileIfChangedAsync(userId, profile, TalonOnePriority.PROFILE_SYNC)
+                .exceptionally(ex -> {
+                    logger.warn("Background Talon.One profile update failed for user {}", userId, ex);
+                    return null;
+                });
+    }
+
+    /**
+     * Waits for an async call from a blocking caller, unwrapping its failure.
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw ex;
+        }
+    }
+
+    private String fingerprint(CartRequest cartRequest, ProfileDTO profile, SessionDTO session) {
+        return evaluationCache.fingerprint(cartRequest.getUserId(), ProfileHashCache.hash(profile.getAttributes()), session);
+    }
+
+    /**
+     * Async variant of {@link #toProfile}, loading the user on the profile loader.
+     */
+    private CompletableFuture<ProfileDTO> toProfileAsync(CartRequest cartRequest) {
+        try {
+            return CompletableFuture.supplyAsync(() -> toProfile(cartRequest), profileLoader);
+        } catch (RejectedExecutionException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    /**
+     * Builds the Talon.One profile payload from the user's stored attributes.
+     */
+    private ProfileDTO toProfile(CartRequest cartRequest) {
+        Map<String, Object> attributes = new HashMap<>();
+        User user = userService.getUserById(cartRequest.getUserId());
+        if (user != null) {
+            attributes.put("name", user.getName());
+            attributes.put("email", user.getEmail());
+            attributes.put("totalOrders", user.getTotalOrders());
+            attributes.put("totalSpent", user.getTotalSpent());
+            attributes.put("loyaltyPoints", user.getLoyaltyPoints());
+        }
+        return ProfileDTO.builder()
+                .userId(cartRequest.getUserId().toString())
+                .attributes(attributes)
+                .build();
+    }
+
+    /**
+     * Builds the Talon.One session payload for the cart.
+     */
+    private SessionDTO toSession(CartRequest cartRequest) {
+        return SessionDTO.builder()
+                .sessionId(UUID.randomUUID().toString())
+                .userId(cartRequest.getUserId().toString())
+                .items(cartRequest.getItems())
+                .totalAmount(cartRequest.getTotalAmount())
+                .sessionAttributes(new HashMap<>())
+                .build();
     }
 }
@@ -0,0 +1,172 @@
+package com.app.service;
+
+import com.app.config.UserCacheConfig;
+import com.app.model.User;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.cache.CacheManager;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * Invalidation and statistics of the {@code User} second-level cache (see {@link UserCacheConfig}).
+ * <p>
+ * Changes Hibernate makes to users keep the cache up to date by themselves. Changes it does not see must evict
+ * the user explicitly: statistics updated through JDBC ({@link #evictAfterCommit}) and writes from other nodes,
+ * which {@link UserChangeListener} receives as notifications ({@link #onNotification}).
+ * </p>
+ * <p>
+ * The hit, miss and load counts come from Hibernate statistics; {@link #getDatabaseLoads()} against
+ * {@link #getHits()} shows how many user reads the cache keeps away from PostgreSQL.
+ * </p>
+ */
+@Component
+public class UserCache {
+
+    private final jakarta.persistence.Cache cache;
+    private final Statistics statistics;
+    private final CacheManager cacheManager;
+
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder notifications = new LongAdder();
+    private final LongAdder fullEvictions = new LongAdder();
+
+    /**
+     * Constructs the cache facade.
+     * @param entityManagerFactory the entity manager factory owning the second-level cache
+     * @param userCacheManager     the cache manager holding the region, for its weighted size
+     */
+    public UserCache(EntityManagerFactory entityManagerFactory, CacheManager userCacheManager) {
+        this.cache = entityManagerFactory.getCache();
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        this.cacheManager = userCacheManager;
+    }
+
+    /**
+     * Evicts the user once the current transaction commits, or immediately without one. Evicting before the
+     * commit would let a concurrent reader cache the old row again.
+     * @param userId The user ID.
+     */
+    public void evictAfterCommit(long userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict(userId);
+                }
+            });
+        } else {
+            evict(userId);
+        }
+    }
+
+    /**
+     * Evicts the user now, e.g. after a committed JDBC update.
+     * @param userId The user ID.
+     */
+    public void evict(long userId) {
+        cache.evict(User.class, userId);
+        evictions.increment();
+    }
+
+    /**
+     * Evicts a user changed by any node, as announced by a database notification.
+     * @param userId The user ID.
+     */
+    public void onNotification(long userId) {
+        cache.evict(User.class, userId);
+        notifications.increment();
+    }
+
+    /**
+     * Evicts all users, e.g. when notifications may have been missed.
+     */
+    public void evictAll() {
+        cache.evict(User.class);
+        fullEvictions.increment();
+    }
+
+    /**
+     * @return the number of lookups served from the cache
+     */
+    public long getHits() {
+        return regionCount(CacheRegionStatistics::getHitCount);
+    }
+
+    /**
+     * @return the number of lookups that missed the cache
+     */
+    public long getMisses() {
+        return regionCount(CacheRegionStatistics::getMissCount);
+    }
+
+    /**
+     * @return the number of users put into the cache
+     */
+    public long getPuts() {
+        return regionCount(CacheRegionStatistics::getPutCount);
+    }
+
+    /**
+     * @return the number of users loaded from the database
+     */
+    public long getDatabaseLoads() {
+        return statistics.getEntityStatistics(User.class.getName()).getLoadCount();
+    }
+
+    /**
+     * @return the fraction of lookups served from the cache, 0 before the first lookup
+     */
+    public double getHitRatio() {
+        long hits = getHits();
+        long total = hits + getMisses();
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    /**
+     * @return the estimated heap footprint of the cached users in bytes, see {@code UserCacheWeigher}
+     */
+    public long getWeightedSize() {
+        javax.cache.Cache<Object, Object> region = cacheManager.getCache(UserCacheConfig.REGION);
+        if (region == null) {
+            return 0;
+        }
+        com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine =
+                region.unwrap(com.github.benmanes.caffeine.cache.Cache.class);
+        return caffeine.policy().eviction()
+                .map(eviction -> eviction.weightedSize().orElse(0L))
+                .orElse(0L);
+    }
+
+    /**
+     * @return the number of users evicted after local JDBC updates
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return the number of users evicted on database notifications
+     */
+    public long getNotifications() {
+        return notifications.sum();
+    }
+
+    /**
+     * @return the number of times the whole cache was evicted
+     */
+    public long getFullEvictions() {
+        return fullEvictions.sum();
+    }
+
+    private long regionCount(ToLongFunction<CacheRegionStatistics> count) {
+        CacheRegionStatistics region = statistics.getCacheRegionStatistics(UserCacheConfig.REGION);
+        return region != null ? count.applyAsLong(region) : 0;
+    }
+}
@@ -0,0 +1,252 @@
+package com.app.service;
+
+import com.app.datasource.ReadRouting;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Evicts users from the second-level cache when any node changes them ({@code users.cache.listen.enabled}).
+ * <p>
+ * A trigger on the users table ({@code db/migration/V7__users_change_notify_profile_only.sql}) sends the id of
+ * every user whose profile changed or who was deleted on the {@value #CHANNEL} channel. PostgreSQL delivers
+ * notifications only after the writing transaction commits, so an eviction can never be followed by a reload of
+ * the old row. This node's own writes are announced too; evicting them twice is harmless. With replica routing, a
+ * notified user is also read from the primary for the sticky window, so the cache is not refilled from a replica
+ * that has not replayed the change yet.
+ * </p>
+ * <p>
+ * Order statistics change on every checkout and do not fire the trigger: a notification per order would serialize
+ * all checkout commits on the database-wide notify lock. Their writers call {@link #announceAfterCommit} instead,
+ * and the committed ids are sent every {@code users.cache.listen.announce-interval} millis as comma-separated
+ * payloads, outside any checkout transaction. Other nodes see statistics up to one interval late.
+ * </p>
+ * <p>
+ * The listener holds one dedicated connection outside the pool. Notifications sent while it is not listening are
+ * lost, so the whole region is evicted after every (re)connect.
+ * </p>
+ */
+@Component
+public class UserChangeListener {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserChangeListener.class);
+
+    static final String CHANNEL = "users_changed";
+
+    private static final long VALIDATION_INTERVAL_NANOS = Duration.ofSeconds(30).toNanos();
+
+    /** Stays below PostgreSQL's 8000 byte payload limit. */
+    private static final int MAX_PAYLOAD_LENGTH = 7900;
+
+    private static final String NOTIFY_SQL = "SELECT pg_notify(?, ?)";
+
+    private final UserCache userCache;
+    private final ReadRouting readRouting;
+    private final DataSourceProperties dataSourceProperties;
+    private final JdbcTemplate jdbcTemplate;
+    private final Set<Long> unannounced = ConcurrentHashMap.newKeySet();
+
+    @Value("${users.cache.enabled:true}")
+    private boolean cacheEnabled;
+
+    @Value("${users.cache.listen.enabled:true}")
+    private boolean enabled;
+
+    @Value("${users.cache.listen.poll-timeout:500ms}")
+    private Duration pollTimeout;
+
+    @Value("${users.cache.listen.retry-delay:5s}")
+    private Duration retryDelay;
+
+    private volatile boolean running;
+    private volatile boolean announcing;
+    private Thread thread;
+
+    /**
+     * Constructs the listener.
+     * @param userCache            the cache to evict from
+     * @param readRouting          the read-after-write stickiness of replica routing
+     * @param dataSourceProperties the connection settings of the application's (primary) database
+     * @param jdbcTemplate         the JDBC template for announcing statistics changes
+     */
+    public UserChangeListener(UserCache userCache, ReadRouting readRouting, DataSourceProperties dataSourceProperties,
+                              JdbcTemplate jdbcTemplate) {
+        this.userCache = userCache;
+        this.readRouting = readRouting;
+        this.dataSourceProperties = dataSourceProperties;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Starts listening, unless disabled or the database is not PostgreSQL.
+     */
+    @PostConstruct
+    public void start() {
+        String url = dataSourceProperties.determineUrl();
+        if (!cacheEnabled || !enabled || url == null || !url.startsWith("jdbc:postgresql:")) {
+            logger.info("User change notifications disabled; cached users are only refreshed by local writes and the TTL");
+            return;
+        }
+        running = true;
+        announcing = true;
+        thread = new Thread(() -> listen(url), "users-change-listener");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Queues the user for the next coalesced notification once the current transaction commits, or immediately
+     * without one. For changes the trigger does not announce, i.e. order statistics.
+     * @param userId The user ID.
+     */
+    public void announceAfterCommit(long userId) {
+        if (!announcing) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    unannounced.add(userId);
+                }
+            });
+        } else {
+            unannounced.add(userId);
+        }
+    }
+
+    /**
+     * Sends the ids queued since the last run, as few notifications as the payload limit allows.
+     */
+    @Scheduled(fixedDelayString = "${users.cache.listen.announce-interval:1000}")
+    public void announce() {
+        if (unannounced.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>();
+        for (Iterator<Long> it = unannounced.iterator(); it.hasNext(); ) {
+            ids.add(it.next());
+            it.remove();
+        }
+        StringBuilder payload = new StringBuilder();
+        try {
+            for (Long id : ids) {
+                String next = id.toString();
+                if (payload.length() > 0 && payload.length() + 1 + next.length() > MAX_PAYLOAD_LENGTH) {
+                    send(payload.toString());
+                    payload.setLength(0);
+                }
+                if (payload.length() > 0) {
+                    payload.append(',');
+                }
+                payload.append(next);
+            }
+            send(payload.toString());
+        } catch (RuntimeException ex) {
+            // Other nodes fall back to the cache TTL for these users
+            logger.warn("Failed to announce statistics changes of up to {} users", ids.size(), ex);
+        }
+    }
+
+    /**
+     * Stops listening, after announcing the remaining statistics changes.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        announce();
+        announcing = false;
+        running = false;
+        if (thread != null) {
+            thread.join(pollTimeout.toMillis() * 2);
+        }
+    }
+
+    private void listen(String url) {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(url,
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+                 Statement statement = connection.createStatement()) {
+                statement.execute("LISTEN " + CHANNEL);
+                // Anything changed before LISTEN took effect went unannounced
+                userCache.evictAll();
+                logger.info("Listening for user changes on channel {}", CHANNEL);
+                receive(connection);
+            } catch (SQLException ex) {
+                if (!running) {
+                    return;
+                }
+                userCache.evictAll();
+                logger.warn("User change notifications interrupted; evicted all cached users, reconnecting in {}",
+                        retryDelay, ex);
+                sleep(retryDelay);
+            }
+        }
+    }
+
+    private void receive(Connection connection) throws SQLException {
+        PGConnection pgConnection = connection.unwrap(PGConnection.class);
+        int timeoutMillis = (int) Math.max(1, pollTimeout.toMillis());
+        long lastValidated = System.nanoTime();
+        while (running) {
+            PGNotification[] notifications = pgConnection.getNotifications(timeoutMillis);
+            if (notifications != null && notifications.length > 0) {
+                for (PGNotification notification : notifications) {
+                    handle(notification.getParameter());
+                }
+                lastValidated = System.nanoTime();
+            } else if (System.nanoTime() - lastValidated >= VALIDATION_INTERVAL_NANOS) {
+                // A silently dropped connection would otherwise just look idle
+                if (!connection.isValid(5)) {
+                    throw new SQLException("Notification connection is no longer valid");
+                }
+                lastValidated = System.nanoTime();
+            }
+        }
+    }
+
+    private void send(String payload) {
+        jdbcTemplate.queryForList(NOTIFY_SQL, CHANNEL, payload);
+    }
+
+    private void handle(String payload) {
+        for (String id : payload.split(",")) {
+            try {
+                long userId = Long.parseLong(id);
+                readRouting.markWritten(userId);
+                userCache.onNotification(userId);
+            } catch (NumberFormatException ex) {
+                logger.warn("Ignoring malformed user change notification '{}'", payload);
+                return;
+            }
+        }
+    }
+
+    private static void sleep(Duration delay) {
+        try {
+            Thread.sleep(delay.toMillis());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -1,28 +1,81 @@
 package com.app.service;
 
+import com.app.datasource.ReadRouting;
 import com.app.model.User;
 import com.app.repository.UserRepository;
-lombok.RequiredArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.Optional;
 
 /**
  * Service layer for managing users.
+ * <p>
+ * Users are read through the second-level cache (see {@link UserCache}). Order statistics are updated with a
+ * plain JDBC UPDATE followed by an eviction of that one user: a bulk JPQL UPDATE would make Hibernate evict the
+ * whole users region on every order.
+ * </p>
  */
 @Service
 @RequiredArgsConstructor
 public class UserService {
 
+    private static final String INCREMENT_STATS_SQL =
+            "UPDATE users SET total_orders = total_orders + 1, total_spent = total_spent + ? WHERE id = ?";
+
     private final UserRepository userRepository;
+    private final UserStatsAccumulator userStatsAccumulator;
+    private final UserCache userCache;
+    private final JdbcTemplate jdbcTemplate;
+    private final ReadRouting readRouting;
+    private final UserChangeListener userChangeListener;
 
     /**
      * Fetches a user by their ID.
+     * In write-behind mode, order statistics not yet flushed are merged into the returned copy.
+     * A cache miss is loaded from a read replica, unless the user was written within the sticky window.
      * @param id The ID of the user.
      * @return The User object if found, otherwise null.
      */
     public User getUserById(Long id) {
-        return userRepository.findById(id).orElse(null);
+        if (!userStatsAccumulator.isEnabled()) {
+            return loadUser(id);
+        }
+        for (;;) {
+            UserStatsAccumulator.Pending before = userStatsAccumulator.pending(id);
+            User user = loadUser(id);
+            if (user == null) {
+                return null;
+            }
+            UserStatsAccumulator.Pending pending = userStatsAccumulator.pending(id);
+            if (!pending.sameFlushAs(before)) {
+                // A flush committed meanwhile; the row may or may not include the deltas it moved
+                continue;
+            }
+            if (pending.getOrders() == 0) {
+                return user;
+            }
+            // Merge into a copy; the loaded entity may still be managed and must not be dirtied
+            return User.builder()
+                    .id(user.getId())
+                    .email(user.getEmail())
+                    .name(user.getName())
+                    .totalOrders(user.getTotalOrders() + (int) pending.getOrders())
+                    .totalSpent(user.getTotalSpent() + pending.getSpent())
+                    .loyaltyPoints(user.getLoyaltyPoints())
+                    .orders(user.getOrders())
+                    .build();
+        }
+    }
+
+    private User loadUser(Long id) {
+        try (ReadRouting.Scope scope = readRouting.forUser(id)) {
+            return userRepository.findById(id).orElse(null);
+        }
     }
 
     /**
@@ -32,6 +85,7 @@ public class UserService {
      * @param totalSpent The new total spent amount.
      * @return true if the user was updated, false if not found.
      */
+    @Transactional
     public boolean updateUserStats(Long id, int totalOrders, double totalSpent) {
         Optional<User> userOpt = userRepository.findById(id);
         if (userOpt.isEmpty()) {
@@ -41,9 +95,55 @@ public class UserService {
         user.setTotalOrders(totalOrders);
         user.setTotalSpent(totalSpent);
         userRepository.save(user);
+        readRouting.markWrittenAfterCommit(id);
+        userChangeListener.announceAfterCommit(id);
         return true;
     }
 
+    /**
+     * Counts one more order for the user and adds its total to the amount spent, in a single UPDATE.
+     * In write-behind mode the delta is accumulated in memory and flushed in batches instead.
+     * @param id The user ID.
+     * @param orderTotal The order total to add to totalSpent.
+     * @return true if the user was updated, false if not found.
+     */
+    @Transactional
+    public boolean incrementOrderStats(Long id, double orderTotal) {
+        if (userStatsAccumulator.isEnabled()) {
+            // Served from the second-level cache; existsById would always query
+            if (userRepository.findById(id).isEmpty()) {
+                return false;
+            }
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                // Only count the order once its transaction commits; a rolled-back order must leave no delta
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        userStatsAccumulator.record(id, orderTotal);
+                    }
+                });
+            } else {
+                userStatsAccumulator.record(id, orderTotal);
+            }
+            return true;
+        }
+        if (jdbcTemplate.update(INCREMENT_STATS_SQL, orderTotal, id) == 0) {
+            return false;
+        }
+        userCache.evictAfterCommit(id);
+        userChangeListener.announceAfterCommit(id);
+        return true;
+    }
+
+    /**
+     * Returns a reference to the user without loading it, e.g. to set a foreign key.
+     * @param id The user ID.
+     * @return An uninitialized proxy for the User.
+     */
+    public User getReference(Long id) {
+        return userRepository.getReferenceById(id);
+    }
+
     /**
      * Saves or updates a user entity.
      * @param user The User object to save.
@@ -0,0 +1,289 @@
+package com.app.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Write-behind accumulator for per-user order statistics ({@code users.stats.write-behind.enabled=true}).
+ * <p>
+ * Instead of one UPDATE per order on the same hot user rows, stat deltas are added to striped
+ * {@link LongAdder}/{@link DoubleAdder} cells keyed by user id and flushed every
+ * {@code users.stats.write-behind.flush-interval} millis in one batched UPDATE per flush.
+ * Flushed amounts are subtracted from the cells only after the flush commits, so the cells always cover every order
+ * not yet visible in the database.
+ * </p>
+ * <p>
+ * Between that commit and the subtraction, the database and the cells both hold the flushed orders. Each cell
+ * carries a flush epoch that is odd during that window, seqlock style: a reader merging the cells into a loaded row
+ * takes a {@link #pending} snapshot before and after loading it and retries unless both carry the same even epoch.
+ * </p>
+ * <p>
+ * Durability tradeoff: deltas accumulated since the last flush are lost if the process crashes. They are
+ * flushed on orderly shutdown. A shorter flush interval narrows the window at the cost of more UPDATEs.
+ * </p>
+ */
+@Component
+public class UserStatsAccumulator {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserStatsAccumulator.class);
+
+    private static final String FLUSH_SQL =
+            "UPDATE users SET total_orders = total_orders + ?, total_spent = total_spent + ? WHERE id = ?";
+
+    // Reads retried while a writer is inside the cell before its amounts are taken as they are
+    private static final int MAX_WRITER_SPINS = 64;
+
+    // How long a reader waits between checks while a flush of its cell commits
+    private static final long FLUSH_WAIT_NANOS = 100_000;
+
+    private final ConcurrentMap<Long, Cell> cells = new ConcurrentHashMap<>();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final UserCache userCache;
+    private final UserChangeListener userChangeListener;
+
+    @Value("${users.stats.write-behind.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * Constructs the accumulator.
+     * @param jdbcTemplate       the JDBC template for batched flushes
+     * @param transactionManager the transaction manager for flushes
+     * @param userCache          the user cache, evicted for flushed users
+     * @param userChangeListener announces flushed users to the other nodes
+     */
+    public UserStatsAccumulator(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                UserCache userCache, UserChangeListener userChangeListener) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.userCache = userCache;
+        this.userChangeListener = userChangeListener;
+    }
+
+    /**
+     * @return true if order statistics are written behind instead of per order
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Records one order for the user.
+     * @param userId The user ID.
+     * @param orderTotal The order total to add to totalSpent.
+     */
+    public void record(long userId, double orderTotal) {
+        add(userId, 1, orderTotal);
+    }
+
+    /**
+     * Takes a consistent snapshot of the orders recorded for the user but not yet flushed. Waits while a flush of
+     * the user's deltas is between its commit and the subtraction of the flushed amounts.
+     * @param userId The user ID.
+     * @return the pending orders and amount, tagged with the cell's flush epoch
+     */
+    public Pending pending(long userId) {
+        int writerSpins = 0;
+        for (;;) {
+            Cell cell = cells.get(userId);
+            if (cell == null) {
+                return new Pending(null, 0, 0, 0.0);
+            }
+            long epoch = cell.epoch.get();
+            if ((epoch & 1) != 0) {
+                LockSupport.parkNanos(FLUSH_WAIT_NANOS);
+                continue;
+            }
+            // Writers add spent before orders, so every order read here has its amount included
+            long orders = cell.orders.sum();
+            double spent = cell.spent.sum();
+            if (cell.state.get() > 0 && ++writerSpins < MAX_WRITER_SPINS) {
+                // An order is being recorded; its amount may be in without its count
+                Thread.onSpinWait();
+                continue;
+            }
+            if (cell.epoch.get() == epoch) {
+                return new Pending(cell, epoch, orders, spent);
+            }
+        }
+    }
+
+    /**
+     * Flushes all pending deltas to the users table in one batch.
+     */
+    @Scheduled(fixedDelayString = "${users.stats.write-behind.flush-interval:1000}")
+    public void flush() {
+        if (cells.isEmpty()) {
+            return;
+        }
+        List<Object[]> batch = new ArrayList<>();
+        List<Cell> flushed = new ArrayList<>();
+        List<Map.Entry<Long, Cell>> idle = new ArrayList<>();
+        for (Map.Entry<Long, Cell> entry : cells.entrySet()) {
+            Cell cell = entry.getValue();
+            // Orders are read before spent and written after it, so any order counted here has its amount included
+            long orders = cell.orders.sum();
+            double spent = cell.spent.sum();
+            if (orders == 0) {
+                idle.add(entry);
+                continue;
+            }
+            batch.add(new Object[]{orders, spent, entry.getKey()});
+            flushed.add(cell);
+        }
+
+        if (!batch.isEmpty()) {
+            // From here until the subtraction, readers cannot tell whether the database holds these deltas yet
+            flushed.forEach(cell -> cell.epoch.incrementAndGet());
+            try {
+                transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(FLUSH_SQL, batch));
+            } catch (RuntimeException ex) {
+                flushed.forEach(cell -> cell.epoch.incrementAndGet());
+                logger.error("Failed to flush order statistics for {} users; retrying on next flush", batch.size(), ex);
+                return;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                Object[] row = batch.get(i);
+                Cell cell = flushed.get(i);
+                userCache.evict((Long) row[2]);
+                userChangeListener.announceAfterCommit((Long) row[2]);
+                cell.spent.add(-(double) row[1]);
+                cell.orders.add(-(long) row[0]);
+                cell.epoch.incrementAndGet();
+            }
+        }
+
+        for (Map.Entry<Long, Cell> entry : idle) {
+            retire(entry.getKey(), entry.getValue());
+        }
+    }
+
+    /**
+     * Flushes pending deltas on orderly shutdown.
+     */
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void add(long userId, long orders, double spent) {
+        for (;;) {
+            Cell cell = cells.computeIfAbsent(userId, id -> new Cell());
+            if (cell.enter()) {
+                try {
+                    cell.spent.add(spent);
+                    cell.orders.add(orders);
+                } finally {
+                    cell.exit();
+                }
+                return;
+            }
+            // The cell was retired concurrently; replace it and retry
+            cells.remove(userId, cell);
+        }
+    }
+
+    /**
+     * Removes an idle cell. Retiring only succeeds while no writer is inside the cell; any order that completed
+     * since the idle check is carried over into a fresh cell.
+     */
+    private void retire(long userId, Cell cell) {
+        if (!cell.retire()) {
+            return;
+        }
+        cells.remove(userId, cell);
+        long orders = cell.orders.sum();
+        if (orders != 0) {
+            add(userId, orders, cell.spent.sum());
+        }
+    }
+
+    /**
+     * Pending orders of one user as of one flush epoch of its cell.
+     */
+    public static final class Pending {
+        private final Cell cell;
+        private final long epoch;
+        private final long orders;
+        private final double spent;
+
+        Pending(Cell cell, long epoch, long orders, double spent) {
+            this.cell = cell;
+            this.epoch = epoch;
+            this.orders = orders;
+            this.spent = spent;
+        }
+
+        /**
+         * @return the number of orders recorded but not yet flushed
+         */
+        public long getOrders() {
+            return orders;
+        }
+
+        /**
+         * @return the amount recorded but not yet flushed
+         */
+        public double getSpent() {
+            return spent;
+        }
+
+        /**
+         * @param earlier a snapshot of the same user taken before this one
+         * @return true if no flush of the user's deltas committed between the two snapshots
+         */
+        public boolean sameFlushAs(Pending earlier) {
+            return cell == earlier.cell && epoch == earlier.epoch;
+        }
+    }
+
+    /**
+     * Pending deltas of one user. The state word only guards retirement: it counts writers inside the cell,
+     * and is -1 once the cell is retired. The epoch counts flush boundaries and is odd while a flush of the cell
+     * is between its commit and the subtraction.
+     */
+    private static final class Cell {
+        final LongAdder orders = new LongAdder();
+        final DoubleAdder spent = new DoubleAdder();
+        final AtomicInteger state = new AtomicInteger();
+        final AtomicLong epoch = new AtomicLong();
+
+        boolean enter() {
+            for (;;) {
+                int current = state.get();
+                if (current < 0) {
+                    return false;
+                }
+                if (state.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
+
+        void exit() {
+            state.decrementAndGet();
+        }
+
+        boolean retire() {
+            return state.compareAndSet(0, -1);
+        }
+    }
+}
@@ -0,0 +1,300 @@
+package com.app.talonone;
+
+import com.app.model.ProfileDTO;
+import com.app.model.RewardsResponse;
+import com.app.model.SessionDTO;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.transport.RequestReplySenderContext;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking counterpart of {@link TalonOneClient}.
+ * <p>
+ * Calls are sent with {@link HttpClient#sendAsync} on the shared Talon.One HTTP client, so no request thread
+ * is parked for the round trip; results are delivered as {@link CompletableFuture}s. Concurrency toward
+ * Talon.One is bounded by a {@link TalonOneAsyncLimiter} configured via {@code talonone.async.*}.
+ * </p>
+ * <p>
+ * Calls are admitted by the {@link TalonOneScheduler} according to their {@link TalonOnePriority}, then run under
+ * the {@link TalonOneResilience} circuit breaker and bulkhead for their operation. Idempotent calls (profile updates
+ * and session evaluations) are hedged when the request budget has room; loyalty confirmations are never sent twice.
+ * Each attempt is traced as a {@code talonone.client.exchange} span whose context is propagated to Talon.One
+ * in the request headers.
+ * </p>
+ * <p>
+ * Bodies are written and read by {@link TalonOneJsonCodec}.
+ * </p>
+ * <p>
+ * Usage example:
+ * <pre>
+ *     asyncTalonOneClient.evaluateSession(sessionDto)
+ *             .thenApply(rewards -&gt; ...);
+ * </pre>
+ */
+@Component
+public class AsyncTalonOneClient {
+
+    private static final String EXCHANGE_OBSERVATION = "talonone.client.exchange";
+
+    @Value("${talonone.base-url}")
+    private String baseUrl;
+
+    @Value("${talonone.api-key}")
+    private String apiKey;
+
+    @Value("${talonone.batch.profiles-path:/v2/customer_profiles}")
+    private String batchProfilesPath;
+
+    @Value("${talonone.http.response-timeout.update-profile:${talonone.http.response-timeout:5s}}")
+    private Duration updateProfileTimeout;
+
+    @Value("${talonone.http.response-timeout.evaluate-session:${talonone.http.response-timeout:5s}}")
+    private Duration evaluateSessionTimeout;
+
+    @Value("${talonone.http.response-timeout.confirm-loyalty:${talonone.http.response-timeout:5s}}")
+    private Duration confirmLoyaltyTimeout;
+
+    private final HttpClient httpClient;
+    private final TalonOneJsonCodec codec;
+    private final TalonOneAsyncLimiter limiter;
+    private final TalonOneResilience resilience;
+    private final TalonOneScheduler scheduler;
+    private final ObservationRegistry observationRegistry;
+
+    // Derived from the injected API key on first use; a racy initialization only builds the same string twice
+    private String authorization;
+
+    /**
+     * Constructs an AsyncTalonOneClient.
+     *
+     * @param httpClient     the shared Talon.One HTTP client
+     * @param codec          the request and response body codec
+     * @param maxConcurrency the maximum number of calls in flight toward Talon.One
+     * @param maxQueued      the maximum number of calls waiting for a slot before new calls are rejected
+     * @param resilience     the circuit breakers and bulkheads guarding each operation
+     * @param scheduler      admits calls within the request budget by priority
+     * @param observationRegistry the registry client exchange spans are recorded with
+     */
+    public AsyncTalonOneClient(HttpClient httpClient,
+                               TalonOneJsonCodec codec,
+                               TalonOneResilience resilience,
+                               TalonOneScheduler scheduler,
+                               ObservationRegistry observationRegistry,
+                               @Value("${talonone.async.max-concurrency:256}") int maxConcurrency,
+                               @Value("${talonone.async.max-queued:4096}") int maxQueued) {
+        this.httpClient = httpClient;
+        this.codec = codec;
+        this.limiter = new TalonOneAsyncLimiter(maxConcurrency, maxQueued);
+        this.resilience = resilience;
+        this.scheduler = scheduler;
+        this.observationRegistry = observationRegistry;
+    }
+
+    /**
+     * Updates a user profile in Talon.One as a background profile sync.
+     *
+     * @param userId the unique identifier of the user
+     * @param dto    the profile data to update (ProfileDTO)
+     * @return a future completed when Talon.One has accepted the update,
+     * or exceptionally with a TalonOneClientException
+     */
+    public CompletableFuture<Void> updateProfile(String userId, ProfileDTO dto) {
+        return updateProfile(userId, dto, TalonOnePriority.PROFILE_SYNC);
+    }
+
+    /**
+     * Updates a user profile in Talon.One.
+     *
+     * @param userId   the unique identifier of the user
+     * @param dto      the profile data to update (ProfileDTO)
+     * @param priority the priority class the update is scheduled in
+     * @return a future completed when Talon.One has accepted the update,
+     * or exceptionally with a TalonOneClientException
+     */
+    public CompletableFuture<Void> updateProfile(String userId, ProfileDTO dto, TalonOnePriority priority) {
+        URI uri = UriComponentsBuilder.fromHttpUrl(baseUrl)
+                .path("/v1/profiles/{userId}")
+                .buildAndExpand(userId)
+                .toUri();
+
+        HttpRequest.Builder request = newRequest(uri, updateProfileTimeout).PUT(body(codec.writeProfile(dto)));
+        return exchange(TalonOneOperation.UPDATE_PROFILE, priority, request, "update profile", true)
+                .thenApply(body -> null);
+    }
+
+    /**
+     * Updates several user profiles in Talon.One with one request to the bulk profile endpoint.
+     * The whole batch is accepted or rejected as one.
+     *
+     * @param profiles the profiles to update
+     * @return a future completed when Talon.One has accepted the batch,
+     * or exceptionally with a TalonOneClientException
+     */
+    public CompletableFuture<Void> updateProfiles(List<ProfileDTO> profiles) {
+        URI uri = UriComponentsBuilder.fromHttpUrl(baseUrl)
+                .path(batchProfilesPath)
+                .build()
+                .toUri();
+
+        HttpRequest.Builder request = newRequest(uri, updateProfileTimeout)
+                .PUT(body(codec.writeProfiles(profiles)));
+        return exchange(TalonOneOperation.UPDATE_PROFILE, TalonOnePriority.PROFILE_SYNC, request, "update profiles",
+                false)
+                .thenApply(body -> null);
+    }
+
+    /**
+     * Evaluates a session in Talon.One to determine applicable rewards and discounts, with checkout priority.
+     *
+     * @param dto the session data to evaluate (SessionDTO)
+     * @return a future completed with the RewardsResponse, or exceptionally with a TalonOneClientException
+     */
+    public CompletableFuture<RewardsResponse> evaluateSession(SessionDTO dto) {
+        return evaluateSession(dto, TalonOnePriority.CHECKOUT);
+    }
+
+    /**
+     * Evaluates a session in Talon.One to determine applicable rewards and discounts.
+     *
+     * @param dto      the session data to evaluate (SessionDTO)
+     * @param priority the priority class the evaluation is scheduled in
+     * @return a future completed with the RewardsResponse, or exceptionally with a TalonOneClientException
+     */
+    public CompletableFuture<RewardsResponse> evaluateSession(SessionDTO dto, TalonOnePriority priority) {
+        URI uri = UriComponentsBuilder.fromHttpUrl(baseUrl)
+                .path("/v1/sessions")
+                .build()
+                .toUri();
+
+        HttpRequest.Builder request = newRequest(uri, evaluateSessionTimeout).POST(body(codec.writeSession(dto)));
+        return exchange(TalonOneOperation.EVALUATE_SESSION, priority, request, "evaluate session", true)
+                .thenApply(codec::readRewards);
+    }
+
+    /**
+     * Confirms loyalty points for a user in Talon.One after a successful order.
+     *
+     * @param userId         the unique identifier of the user
+     * @param idempotencyKey identifies the confirmation, e.g. by order, so a re-sent one is applied only once
+     * @param totalAmount    the total amount of the order to confirm
+     * @return a future completed when Talon.One has confirmed, or exceptionally with a TalonOneClientException
+     */
+    public CompletableFuture<Void> confirmLoyalty(String userId, String idempotencyKey, double totalAmount) {
+        URI uri = UriComponentsBuilder.fromHttpUrl(baseUrl)
+                .path("/v1/loyalty/{userId}/confirm")
+                .buildAndExpand(userId)
+                .toUri();
+
+        HttpRequest.Builder request = newRequest(uri, confirmLoyaltyTimeout)
+                .POST(body(codec.writeLoyaltyConfirmation(idempotencyKey, totalAmount)));
+        // Not hedged: the idempotency key makes a duplicate harmless, but not free
+        return exchange(TalonOneOperation.CONFIRM_LOYALTY, TalonOnePriority.LOYALTY, request, "confirm loyalty", false)
+                .thenApply(responseBody -> null);
+    }
+
+    /**
+     * @return the concurrency limiter, exposed for monitoring
+     */
+    public TalonOneAsyncLimiter getLimiter() {
+        return limiter;
+    }
+
+    private HttpRequest.Builder newRequest(URI uri, Duration timeout) {
+        return HttpRequest.newBuilder(uri)
+                .timeout(timeout)
+                .header(HttpHeaders.AUTHORIZATION, authorization())
+                .header(HttpHeaders.ACCEPT, MediaType.APPLICATION_JSON_VALUE)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE);
+    }
+
+    private String authorization() {
+        String cached = authorization;
+        if (cached == null) {
+            cached = "Bearer " + apiKey;
+            authorization = cached;
+        }
+        return cached;
+    }
+
+    private static HttpRequest.BodyPublisher body(byte[] json) {
+        return HttpRequest.BodyPublishers.ofByteArray(json);
+    }
+
+    /**
+     * Runs the request once the scheduler admits it, under the operation's breaker, bulkhead and concurrency limit.
+     * The admitted permit covers the first attempt; a hedge takes a spare permit or is not sent.
+     * Every attempt is a separate client span, child of the observation current at call time.
+     */
+    private CompletableFuture<byte[]> exchange(TalonOneOperation operation, TalonOnePriority priority,
+                                               HttpRequest.Builder request, String action, boolean idempotent) {
+        Observation parent = observationRegistry.getCurrentObservation();
+        Supplier<CompletableFuture<byte[]>> attempt =
+                () -> limiter.submit(() -> send(request.copy(), operation, action, parent));
+        return scheduler.submit(priority, idempotent
+                ? () -> resilience.callHedged(operation, attempt, scheduler::tryAcquire)
+                : () -> resilience.callAsync(operation, attempt));
+    }
+
+    /**
+     * Sends the request and completes with the response body for 2xx responses.
+     * The trace context is injected into the request headers when the exchange observation starts.
+     */
+    private CompletableFuture<byte[]> send(HttpRequest.Builder builder, TalonOneOperation operation,
+                                           String action, Observation parent) {
+        RequestReplySenderContext<HttpRequest.Builder, HttpResponse<byte[]>> context =
+                new RequestReplySenderContext<>(HttpRequest.Builder::header);
+        context.setCarrier(builder);
+        context.setRemoteServiceName("talon-one");
+        Observation observation = Observation.createNotStarted(EXCHANGE_OBSERVATION, () -> context, observationRegistry)
+                .parentObservation(parent)
+                .contextualName("talonone " + action)
+                .lowCardinalityKeyValue("operation", operation.name().toLowerCase(Locale.ROOT))
+                .lowCardinalityKeyValue("status", "NONE")
+                .start();
+        HttpRequest request = builder.build();
+        observation.highCardinalityKeyValue("http.url", request.uri().toString());
+
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+                .handle((response, error) -> {
+                    try {
+                        if (error != null) {
+                            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                                    ? error.getCause() : error;
+                            throw new TalonOneClientException("Unexpected error trying to " + action, cause);
+                        }
+                        context.setResponse(response);
+                        observation.lowCardinalityKeyValue("status", String.valueOf(response.statusCode()));
+                        if (response.statusCode() == 429) {
+                            scheduler.onRateLimited(
+                                    response.headers().firstValue(HttpHeaders.RETRY_AFTER).orElse(null));
+                        }
+                        if (response.statusCode() / 100 != 2) {
+                            throw new TalonOneClientException("Failed to " + action + ": HTTP " + response.statusCode()
+                                    + " " + new String(response.body()), response.statusCode(), null);
+                        }
+                        return response.body();
+                    } catch (TalonOneClientException ex) {
+                        observation.error(ex);
+                        throw ex;
+                    } finally {
+                        observation.stop();
+                    }
+                });
+    }
+}
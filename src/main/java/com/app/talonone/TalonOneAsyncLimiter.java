@@ -0,0 +1,121 @@
+package com.app.talonone;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Non-blocking concurrency limiter for asynchronous Talon.One calls.
+ * <p>
+ * At most {@code maxConcurrency} calls are in flight at any time. Further calls wait in a bounded queue
+ * and are started as soon as a running call completes; no thread is parked while waiting. When the queue is
+ * full the call is rejected immediately, which is the backpressure signal to the caller.
+ * </p>
+ */
+public class TalonOneAsyncLimiter {
+
+    private final int maxConcurrency;
+    private final int maxQueued;
+    private final Semaphore permits;
+    private final Queue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructs the limiter.
+     *
+     * @param maxConcurrency the maximum number of calls in flight
+     * @param maxQueued      the maximum number of calls waiting for a slot
+     */
+    public TalonOneAsyncLimiter(int maxConcurrency, int maxQueued) {
+        this.maxConcurrency = maxConcurrency;
+        this.maxQueued = maxQueued;
+        this.permits = new Semaphore(maxConcurrency);
+    }
+
+    /**
+     * Submits a call. The call is started once a slot is free.
+     *
+     * @param call the call to start
+     * @param <T>  the result type
+     * @return a future completed with the call's result, or exceptionally if the call was rejected
+     */
+    public <T> CompletableFuture<T> submit(Supplier<CompletableFuture<T>> call) {
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            rejected.increment();
+            return CompletableFuture.failedFuture(new TalonOneUnavailableException(
+                    "Talon.One request queue is full (" + maxQueued + " waiting, " + maxConcurrency + " in flight)"));
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        queue.offer(() -> start(call, result));
+        drain();
+        return result;
+    }
+
+    private <T> void start(Supplier<CompletableFuture<T>> call, CompletableFuture<T> result) {
+        CompletableFuture<T> started;
+        try {
+            started = call.get();
+        } catch (RuntimeException ex) {
+            started = CompletableFuture.failedFuture(ex);
+        }
+        started.whenComplete((value, error) -> {
+            permits.release();
+            drain();
+            if (error != null) {
+                result.completeExceptionally(error);
+            } else {
+                result.complete(value);
+            }
+        });
+    }
+
+    /**
+     * Starts queued calls while slots are free. Every submit and every completion drains,
+     * so a queued call can never be stranded while a slot is free.
+     */
+    private void drain() {
+        while (!queue.isEmpty() && permits.tryAcquire()) {
+            Runnable next = queue.poll();
+            if (next == null) {
+                permits.release();
+                continue;
+            }
+            queued.decrementAndGet();
+            next.run();
+        }
+    }
+
+    /**
+     * @return the configured maximum number of calls in flight
+     */
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    /**
+     * @return the number of calls currently in flight
+     */
+    public int getInFlight() {
+        return maxConcurrency - permits.availablePermits();
+    }
+
+    /**
+     * @return the number of calls currently waiting for a slot
+     */
+    public int getQueued() {
+        return queued.get();
+    }
+
+    /**
+     * @return the total number of calls rejected because the queue was full
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
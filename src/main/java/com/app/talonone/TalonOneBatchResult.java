@@ -0,0 +1,29 @@
+package com.app.talonone;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.CompletionException;
+
+/**
+ * Outcome of one item submitted to the {@link TalonOneBatcher}.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class TalonOneBatchResult {
+    private final String userId;
+    private final boolean success;
+    private final String error; // Null on success
+
+    static TalonOneBatchResult succeeded(String userId) {
+        return new TalonOneBatchResult(userId, true, null);
+    }
+
+    static TalonOneBatchResult failed(String userId, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause() : error;
+        return new TalonOneBatchResult(userId, false, String.valueOf(cause.getMessage()));
+    }
+}
@@ -0,0 +1,230 @@
+package com.app.talonone;
+
+import com.app.model.ProfileDTO;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Coalesces profile updates from background jobs (profile re-syncs after a CRM import) into batches.
+ * <p>
+ * Items are queued and flushed when {@code talonone.batch.max-size} items are pending or
+ * {@code talonone.batch.flush-window} has elapsed, whichever comes first. A batch is sent as one request to the
+ * Integration API's bulk profile endpoint. If the endpoint is not available (404, 405, 501) or Talon.One rejects
+ * the batch as invalid (another 4xx), its profiles are re-sent individually so each item gets its own outcome. Any
+ * other failure (5xx, 408, 429, timeout, circuit open) fails every item of the batch, and retrying is left to the
+ * caller: re-sending the items one by one would multiply the load on a Talon.One that is already struggling.
+ * </p>
+ * <p>
+ * Loyalty confirmations are not batched here: Talon.One has no bulk endpoint for them, and the
+ * {@code LoyaltyOutboxService} already claims them in batches and sends them concurrently.
+ * </p>
+ * <p>
+ * Every submitted item completes with its own {@link TalonOneBatchResult}; futures never complete exceptionally.
+ * On shutdown, queued items are flushed and their outcomes awaited for up to {@code talonone.batch.shutdown-timeout}.
+ * </p>
+ */
+@Component
+public class TalonOneBatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(TalonOneBatcher.class);
+
+    private final AsyncTalonOneClient asyncTalonOneClient;
+    private final int maxBatchSize;
+    private final Duration shutdownTimeout;
+    private final ScheduledExecutorService scheduler;
+    // Results of submitted items not yet completed, queued or in flight
+    private final Set<CompletableFuture<TalonOneBatchResult>> unfinished = ConcurrentHashMap.newKeySet();
+
+    private final BatchQueue<PendingProfile> profiles;
+
+    /**
+     * Constructs the batcher.
+     *
+     * @param asyncTalonOneClient the client used to send batches
+     * @param maxBatchSize        the number of pending items that triggers a flush
+     * @param flushWindow         the longest time an item waits before its batch is flushed
+     * @param shutdownTimeout     how long shutdown waits for the outcomes of items still in flight
+     */
+    public TalonOneBatcher(AsyncTalonOneClient asyncTalonOneClient,
+                           @Value("${talonone.batch.max-size:500}") int maxBatchSize,
+                           @Value("${talonone.batch.flush-window:200ms}") Duration flushWindow,
+                           @Value("${talonone.batch.shutdown-timeout:10s}") Duration shutdownTimeout) {
+        this.asyncTalonOneClient = asyncTalonOneClient;
+        this.maxBatchSize = maxBatchSize;
+        this.shutdownTimeout = shutdownTimeout;
+        this.profiles = new BatchQueue<>(this::sendProfiles);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "talonone-batcher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long windowMillis = Math.max(1, flushWindow.toMillis());
+        scheduler.scheduleWithFixedDelay(this::flush, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queues a profile update.
+     *
+     * @param profile the profile to update
+     * @return a future completed with the item's outcome
+     */
+    public CompletableFuture<TalonOneBatchResult> submitProfile(ProfileDTO profile) {
+        PendingProfile pending = new PendingProfile(profile);
+        track(pending.result);
+        profiles.add(pending);
+        return pending.result;
+    }
+
+    /**
+     * Sends everything that is currently queued.
+     */
+    public void flush() {
+        try {
+            profiles.drain();
+        } catch (RuntimeException ex) {
+            logger.error("Talon.One batch flush failed", ex);
+        }
+    }
+
+    /**
+     * Stops the flush timer, flushes pending items and waits for the outcomes of everything in flight.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        scheduler.shutdown();
+        // Let a flush already running on the timer finish handing its batches over
+        scheduler.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        flush();
+        CompletableFuture<?>[] waiting = unfinished.toArray(new CompletableFuture[0]);
+        try {
+            CompletableFuture.allOf(waiting).get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException ex) {
+            logger.warn("{} Talon.One batch items still in flight after {}", unfinished.size(), shutdownTimeout);
+        } catch (ExecutionException ex) {
+            // Item results never complete exceptionally
+        }
+    }
+
+    private void track(CompletableFuture<TalonOneBatchResult> result) {
+        unfinished.add(result);
+        result.whenComplete((outcome, ex) -> unfinished.remove(result));
+    }
+
+    private void sendProfiles(List<PendingProfile> batch) {
+        List<ProfileDTO> dtos = new ArrayList<>(batch.size());
+        for (PendingProfile pending : batch) {
+            dtos.add(pending.profile);
+        }
+        asyncTalonOneClient.updateProfiles(dtos).whenComplete((ignored, ex) -> {
+            if (ex == null) {
+                batch.forEach(pending -> pending.result.complete(TalonOneBatchResult.succeeded(pending.profile.getUserId())));
+                return;
+            }
+            if (!isPerItemFallback(ex)) {
+                logger.warn("Talon.One batch of {} profiles failed", batch.size(), ex);
+                batch.forEach(pending -> pending.result.complete(
+                        TalonOneBatchResult.failed(pending.profile.getUserId(), ex)));
+                return;
+            }
+            logger.warn("Talon.One rejected a batch of {} profiles, re-sending individually", batch.size(), ex);
+            for (PendingProfile pending : batch) {
+                String userId = pending.profile.getUserId();
+                asyncTalonOneClient.updateProfile(userId, pending.profile).whenComplete((ok, itemError) ->
+                        pending.result.complete(itemError == null
+                                ? TalonOneBatchResult.succeeded(userId)
+                                : TalonOneBatchResult.failed(userId, itemError)));
+            }
+        });
+    }
+
+    /**
+     * @return true if the bulk endpoint is unavailable or rejected the batch's content, so the items may succeed
+     * on their own
+     */
+    private static boolean isPerItemFallback(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        if (!(cause instanceof TalonOneClientException)) {
+            return false;
+        }
+        int status = ((TalonOneClientException) cause).getStatusCode();
+        switch (status) {
+            case 404:
+            case 405:
+            case 501:
+                return true;
+            case 408:
+            case 429:
+                return false;
+            default:
+                return status >= 400 && status < 500;
+        }
+    }
+
+    /**
+     * Lock-free queue that hands items to its sender in batches of at most {@code maxBatchSize}.
+     */
+    private final class BatchQueue<T> {
+        private final Queue<T> items = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final Consumer<List<T>> sender;
+
+        BatchQueue(Consumer<List<T>> sender) {
+            this.sender = sender;
+        }
+
+        void add(T item) {
+            items.offer(item);
+            if (size.incrementAndGet() >= maxBatchSize) {
+                drain();
+            }
+        }
+
+        void drain() {
+            while (true) {
+                List<T> batch = new ArrayList<>(Math.min(maxBatchSize, Math.max(size.get(), 1)));
+                T item;
+                while (batch.size() < maxBatchSize && (item = items.poll()) != null) {
+                    batch.add(item);
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                size.addAndGet(-batch.size());
+                sender.accept(batch);
+                if (batch.size() < maxBatchSize) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private static final class PendingProfile {
+        final ProfileDTO profile;
+        final CompletableFuture<TalonOneBatchResult> result = new CompletableFuture<>();
+
+        PendingProfile(ProfileDTO profile) {
+            this.profile = profile;
+        }
+    }
+}
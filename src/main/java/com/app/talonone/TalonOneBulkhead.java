@@ -0,0 +1,108 @@
+package com.app.talonone;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Semaphore bulkhead with an adaptive concurrency limit for one Talon.One operation.
+ * <p>
+ * Calls beyond the current limit are rejected immediately, so a slow Talon.One can hold at most {@code limit}
+ * request threads. The limit adapts to observed latency (AIMD): a call slower than the target latency, or a
+ * failed call, shrinks the limit multiplicatively; after a full limit's worth of fast successful calls it grows
+ * by one, up to the configured maximum.
+ * </p>
+ */
+public class TalonOneBulkhead {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetLatencyNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock lock = new ReentrantLock();
+    private volatile int limit;
+    private double exactLimit;
+    private int successesSinceIncrease;
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * Constructs the bulkhead.
+     *
+     * @param minLimit           the lowest the limit can shrink to
+     * @param maxLimit           the highest the limit can grow to; also the initial limit
+     * @param targetLatencyNanos calls slower than this shrink the limit
+     */
+    public TalonOneBulkhead(int minLimit, int maxLimit, long targetLatencyNanos) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.targetLatencyNanos = targetLatencyNanos;
+        this.limit = maxLimit;
+        this.exactLimit = maxLimit;
+    }
+
+    /**
+     * Takes a slot if one is free under the current limit.
+     *
+     * @return true if the call may proceed; the caller must then call {@link #release}
+     */
+    public boolean tryAcquire() {
+        for (;;) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Returns the slot and adapts the limit to the call's outcome.
+     *
+     * @param failed       true if Talon.One failed to process the call
+     * @param elapsedNanos the call's duration
+     */
+    public void release(boolean failed, long elapsedNanos) {
+        inFlight.decrementAndGet();
+        lock.lock();
+        try {
+            if (failed || elapsedNanos > targetLatencyNanos) {
+                exactLimit = Math.max(minLimit, exactLimit * BACKOFF_RATIO);
+                successesSinceIncrease = 0;
+            } else if (++successesSinceIncrease >= limit) {
+                exactLimit = Math.min(maxLimit, exactLimit + 1);
+                successesSinceIncrease = 0;
+            }
+            limit = (int) exactLimit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return the current concurrency limit
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    /**
+     * @return the number of calls currently holding a slot
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * @return the total number of calls rejected by the bulkhead
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,194 @@
+package com.app.talonone;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Count-based circuit breaker for one Talon.One operation.
+ * <p>
+ * The breaker records the outcome of the last {@code windowSize} calls; a call counts as failed if Talon.One
+ * failed or answered slower than {@code slowCallNanos}. Once at least {@code minimumCalls} outcomes are recorded
+ * and the failure rate reaches the threshold, the breaker opens and rejects calls for {@code openNanos}. It then
+ * lets {@code halfOpenCalls} trial calls through: if all succeed it closes, otherwise it opens again.
+ * </p>
+ */
+public class TalonOneCircuitBreaker {
+
+    /**
+     * Breaker states; the ordinal is exported as the state gauge value.
+     */
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long slowCallNanos;
+    private final long openNanos;
+    private final int halfOpenCalls;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] window;
+    private int windowIndex;
+    private int windowCount;
+    private int windowFailures;
+
+    private volatile State state = State.CLOSED;
+    private volatile long openedAt;
+    private final AtomicInteger halfOpenPermits = new AtomicInteger();
+    private int halfOpenSuccesses;
+
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder opened = new LongAdder();
+
+    /**
+     * Constructs the breaker.
+     *
+     * @param windowSize           the number of most recent outcomes considered
+     * @param minimumCalls         the number of outcomes required before the breaker may open
+     * @param failureRateThreshold the failure rate (0..1) at which the breaker opens
+     * @param slowCallNanos        calls slower than this count as failures
+     * @param openNanos            how long the breaker stays open before allowing trial calls
+     * @param halfOpenCalls        the number of trial calls in the half-open state
+     */
+    public TalonOneCircuitBreaker(int windowSize, int minimumCalls, double failureRateThreshold,
+                                  long slowCallNanos, long openNanos, int halfOpenCalls) {
+        this.windowSize = windowSize;
+        this.minimumCalls = minimumCalls;
+        this.failureRateThreshold = failureRateThreshold;
+        this.slowCallNanos = slowCallNanos;
+        this.openNanos = openNanos;
+        this.halfOpenCalls = halfOpenCalls;
+        this.window = new boolean[windowSize];
+    }
+
+    /**
+     * Asks for permission to make a call.
+     *
+     * @return true if the call may proceed, false if it is rejected
+     */
+    public boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.nanoTime() - openedAt < openNanos) {
+                rejected.increment();
+                return false;
+            }
+            transitionToHalfOpen();
+        }
+        if (state == State.HALF_OPEN && !takeHalfOpenPermit()) {
+            rejected.increment();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Gives back the permission of a call that was not made after all, e.g. because the bulkhead rejected it,
+     * without recording an outcome. In the half-open state the trial call is returned for another caller.
+     */
+    public void release() {
+        if (state == State.HALF_OPEN) {
+            halfOpenPermits.incrementAndGet();
+        }
+    }
+
+    private boolean takeHalfOpenPermit() {
+        for (;;) {
+            int permits = halfOpenPermits.get();
+            if (permits <= 0) {
+                return false;
+            }
+            if (halfOpenPermits.compareAndSet(permits, permits - 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Records the outcome of a permitted call.
+     *
+     * @param failed       true if Talon.One failed to process the call
+     * @param elapsedNanos the call's duration
+     */
+    public void record(boolean failed, long elapsedNanos) {
+        boolean failure = failed || elapsedNanos > slowCallNanos;
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                if (failure) {
+                    open();
+                } else if (++halfOpenSuccesses >= halfOpenCalls) {
+                    close();
+                }
+                return;
+            }
+            if (state == State.OPEN) {
+                return;
+            }
+            if (windowCount == windowSize) {
+                if (window[windowIndex]) {
+                    windowFailures--;
+                }
+            } else {
+                windowCount++;
+            }
+            window[windowIndex] = failure;
+            if (failure) {
+                windowFailures++;
+            }
+            windowIndex = (windowIndex + 1) % windowSize;
+            if (windowCount >= minimumCalls && windowFailures >= failureRateThreshold * windowCount) {
+                open();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void transitionToHalfOpen() {
+        lock.lock();
+        try {
+            if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+                halfOpenSuccesses = 0;
+                halfOpenPermits.set(halfOpenCalls);
+                state = State.HALF_OPEN;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void open() {
+        openedAt = System.nanoTime();
+        state = State.OPEN;
+        opened.increment();
+    }
+
+    private void close() {
+        windowIndex = 0;
+        windowCount = 0;
+        windowFailures = 0;
+        state = State.CLOSED;
+    }
+
+    /**
+     * @return the current state
+     */
+    public State getState() {
+        return state;
+    }
+
+    /**
+     * @return the total number of calls rejected by the breaker
+     */
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * @return the number of times the breaker has opened
+     */
+    public long getOpened() {
+        return opened.sum();
+    }
+}
@@ -1,8 +1,12 @@
-package talonone;
+package com.app.talonone;
 
+import com.app.model.ProfileDTO;
+import com.app.model.RewardsResponse;
+import com.app.model.SessionDTO;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.*;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.util.UriComponentsBuilder;
@@ -15,6 +19,10 @@ import java.util.Collections;
  * <p>
  * Configuration properties (base URL and API key) are loaded from application.properties.
  * All requests include the API key in the Authorization header as 'Bearer {apiKey}'.
+ * Each call is admitted by the {@link TalonOneScheduler} according to its {@link TalonOnePriority}, then runs under
+ * the {@link TalonOneResilience} circuit breaker and bulkhead for its operation, so calls fail fast with a
+ * {@link TalonOneUnavailableException} while Talon.One is unhealthy or the request budget is exhausted.
+ * Bodies are written and read by {@link TalonOneJsonCodec}; the request headers are built once and shared.
  * <p>
  * Usage example:
  * <pre>
@@ -23,7 +31,7 @@ import java.util.Collections;
  *     
  *     talonOneClient.updateProfile("user123", profileDto);
  *     RewardsResponse rewards = talonOneClient.evaluateSession(sessionDto);
- *     talonOneClient.confirmLoyalty("user123", 150.0);
+ *     talonOneClient.confirmLoyalty("user123", "loyalty-42", 150.0);
  * </pre>
  */
 @Component
@@ -36,125 +44,181 @@ public class TalonOneClient {
     private String apiKey;
 
     private final RestTemplate restTemplate;
+    private final TalonOneResilience resilience;
+    private final TalonOneScheduler scheduler;
+    private final TalonOneJsonCodec codec;
+
+    // Derived from the injected properties on first use; immutable, so a racy initialization is harmless
+    private HttpHeaders headers;
+    private String sessionsUrl;
 
     /**
      * Constructs a TalonOneClient with the provided RestTemplate.
      * @param restTemplate the RestTemplate to use for HTTP requests
+     * @param resilience   the circuit breakers and bulkheads guarding each operation
+     * @param scheduler    admits calls within the request budget by priority
+     * @param codec        the request and response body codec
      */
-    public TalonOneClient(RestTemplate restTemplate) {
+    public TalonOneClient(RestTemplate restTemplate, TalonOneResilience resilience, TalonOneScheduler scheduler,
+                          TalonOneJsonCodec codec) {
         this.restTemplate = restTemplate;
+        this.resilience = resilience;
+        this.scheduler = scheduler;
+        this.codec = codec;
     }
 
     /**
-     * Updates a user profile in Talon.One.
+     * Updates a user profile in Talon.One as a background profile sync.
      *
      * @param userId the unique identifier of the user
      * @param dto    the profile data to update (ProfileDTO)
      * @throws TalonOneClientException if the request fails or Talon.One returns an error
      */
     public void updateProfile(String userId, ProfileDTO dto) {
+        updateProfile(userId, dto, TalonOnePriority.PROFILE_SYNC);
+    }
+
+    /**
+     * Updates a user profile in Talon.One.
+     *
+     * @param userId   the unique identifier of the user
+     * @param dto      the profile data to update (ProfileDTO)
+     * @param priority the priority class the update is scheduled in
+     * @throws TalonOneClientException if the request fails or Talon.One returns an error
+     */
+    public void updateProfile(String userId, ProfileDTO dto, TalonOnePriority priority) {
         String url = UriComponentsBuilder.fromHttpUrl(baseUrl)
                 .path("/v1/profiles/{userId}")
                 .buildAndExpand(userId)
                 .toUriString();
 
-        HttpHeaders headers = createHeaders();
-        HttpEntity<ProfileDTO> request = new HttpEntity<>(dto, headers);
+        HttpEntity<byte[]> request = new HttpEntity<>(codec.writeProfile(dto), headers());
 
-        try {
-            restTemplate.exchange(url, HttpMethod.PUT, request, Void.class);
-        } catch (HttpStatusCodeException ex) {
-            throw new TalonOneClientException("Failed to update profile: " + ex.getResponseBodyAsString(), ex);
-        } catch (Exception ex) {
-            throw new TalonOneClientException("Unexpected error updating profile", ex);
-        }
+        scheduler.call(priority, () -> resilience.call(TalonOneOperation.UPDATE_PROFILE, () -> {
+            try {
+                return restTemplate.exchange(url, HttpMethod.PUT, request, Void.class);
+            } catch (HttpStatusCodeException ex) {
+                throw statusException("Failed to update profile: ", ex);
+            } catch (Exception ex) {
+                throw new TalonOneClientException("Unexpected error updating profile", ex);
+            }
+        }));
     }
 
     /**
-     * Evaluates a session in Talon.One to determine applicable rewards and discounts.
+     * Evaluates a session in Talon.One to determine applicable rewards and discounts, with checkout priority.
      *
      * @param dto the session data to evaluate (SessionDTO)
      * @return RewardsResponse containing personalized rewards and discounts
      * @throws TalonOneClientException if the request fails or Talon.One returns an error
      */
     public RewardsResponse evaluateSession(SessionDTO dto) {
-        String url = UriComponentsBuilder.fromHttpUrl(baseUrl)
-                .path("/v1/sessions")
-                .toUriString();
-
-        HttpHeaders headers = createHeaders();
-        HttpEntity<SessionDTO> request = new HttpEntity<>(dto, headers);
-
-        try {
-            ResponseEntity<RewardsResponse> response = restTemplate.exchange(
-                    url, HttpMethod.POST, request, RewardsResponse.class);
+        return evaluateSession(dto, TalonOnePriority.CHECKOUT);
+    }
 
-            if (response.getStatusCode().is2xxSuccessful() && response.getBody() != null) {
-                return response.getBody();
-            } else {
-                throw new TalonOneClientException("Failed to evaluate session: Unexpected response status " + response.getStatusCode());
+    /**
+     * Evaluates a session in Talon.One to determine applicable rewards and discounts.
+     *
+     * @param dto      the session data to evaluate (SessionDTO)
+     * @param priority the priority class the evaluation is scheduled in
+     * @return RewardsResponse containing personalized rewards and discounts
+     * @throws TalonOneClientException if the request fails or Talon.One returns an error
+     */
+    public RewardsResponse evaluateSession(SessionDTO dto, TalonOnePriority priority) {
+        String url = sessionsUrl();
+        HttpHeaders headers = headers();
+        byte[] body = codec.writeSession(dto);
+
+        return scheduler.call(priority, () -> resilience.call(TalonOneOperation.EVALUATE_SESSION, () -> {
+            try {
+                // The response is parsed straight from the body stream, without binding through a converter
+                return restTemplate.execute(url, HttpMethod.POST,
+                        request -> {
+                            request.getHeaders().putAll(headers);
+                            StreamUtils.copy(body, request.getBody());
+                        },
+                        response -> {
+                            if (!response.getStatusCode().is2xxSuccessful()) {
+                                throw new TalonOneClientException("Failed to evaluate session: Unexpected response status "
+                                        + response.getStatusCode());
+                            }
+                            return codec.readRewards(response.getBody());
+                        });
+            } catch (TalonOneClientException ex) {
+                throw ex;
+            } catch (HttpStatusCodeException ex) {
+                throw statusException("Failed to evaluate session: ", ex);
+            } catch (Exception ex) {
+                throw new TalonOneClientException("Unexpected error evaluating session", ex);
             }
-        } catch (HttpStatusCodeException ex) {
-            throw new TalonOneClientException("Failed to evaluate session: " + ex.getResponseBodyAsString(), ex);
-        } catch (Exception ex) {
-            throw new TalonOneClientException("Unexpected error evaluating session", ex);
-        }
+        }));
     }
 
     /**
      * Confirms loyalty points for a user in Talon.One after a successful order.
      *
-     * @param userId      the unique identifier of the user
-     * @param totalAmount the total amount of the order to confirm
+     * @param userId         the unique identifier of the user
+     * @param idempotencyKey identifies the confirmation, e.g. by order, so a re-sent one is applied only once
+     * @param totalAmount    the total amount of the order to confirm
      * @throws TalonOneClientException if the request fails or Talon.One returns an error
      */
-    public void confirmLoyalty(String userId, double totalAmount) {
+    public void confirmLoyalty(String userId, String idempotencyKey, double totalAmount) {
         String url = UriComponentsBuilder.fromHttpUrl(baseUrl)
                 .path("/v1/loyalty/{userId}/confirm")
                 .buildAndExpand(userId)
                 .toUriString();
 
-        HttpHeaders headers = createHeaders();
-        headers.setContentType(MediaType.APPLICATION_JSON);
-
-        // Assuming Talon.One expects a JSON object like {"totalAmount": 123.45}
-        String body = String.format("{\"totalAmount\": %s}", totalAmount);
-        HttpEntity<String> request = new HttpEntity<>(body, headers);
+        // Assuming Talon.One expects a JSON object like {"idempotencyKey": "loyalty-42", "totalAmount": 123.45}
+        HttpEntity<byte[]> request = new HttpEntity<>(codec.writeLoyaltyConfirmation(idempotencyKey, totalAmount),
+                headers());
+
+        scheduler.call(TalonOnePriority.LOYALTY, () -> resilience.call(TalonOneOperation.CONFIRM_LOYALTY, () -> {
+            try {
+                return restTemplate.exchange(url, HttpMethod.POST, request, Void.class);
+            } catch (HttpStatusCodeException ex) {
+                throw statusException("Failed to confirm loyalty: ", ex);
+            } catch (Exception ex) {
+                throw new TalonOneClientException("Unexpected error confirming loyalty", ex);
+            }
+        }));
+    }
 
-        try {
-            restTemplate.exchange(url, HttpMethod.POST, request, Void.class);
-        } catch (HttpStatusCodeException ex) {
-            throw new TalonOneClientException("Failed to confirm loyalty: " + ex.getResponseBodyAsString(), ex);
-        } catch (Exception ex) {
-            throw new TalonOneClientException("Unexpected error confirming loyalty", ex);
+    /**
+     * Wraps an error response; a 429 also pauses the scheduler for its Retry-After.
+     */
+    private TalonOneClientException statusException(String message, HttpStatusCodeException ex) {
+        int status = ex.getStatusCode().value();
+        if (status == 429) {
+            HttpHeaders responseHeaders = ex.getResponseHeaders();
+            scheduler.onRateLimited(responseHeaders != null ? responseHeaders.getFirst(HttpHeaders.RETRY_AFTER) : null);
         }
+        return new TalonOneClientException(message + ex.getResponseBodyAsString(), status, ex);
     }
 
     /**
-     * Creates HTTP headers with Authorization and Content-Type.
+     * Returns the shared, read-only HTTP headers with Authorization, Accept and Content-Type.
      *
      * @return HttpHeaders with required headers set
      */
-    private HttpHeaders createHeaders() {
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(apiKey);
-        headers.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
-        headers.setContentType(MediaType.APPLICATION_JSON);
-        return headers;
-    }
-}
-
-/**
- * Exception thrown when an error occurs during communication with the Talon.One API.
- */
-class TalonOneClientException extends RuntimeException {
-    public TalonOneClientException(String message) {
-        super(message);
+    private HttpHeaders headers() {
+        HttpHeaders cached = headers;
+        if (cached == null) {
+            HttpHeaders created = new HttpHeaders();
+            created.setBearerAuth(apiKey);
+            created.setAccept(Collections.singletonList(MediaType.APPLICATION_JSON));
+            created.setContentType(MediaType.APPLICATION_JSON);
+            cached = HttpHeaders.readOnlyHttpHeaders(created);
+            headers = cached;
+        }
+        return cached;
     }
 
-    public TalonOneClientException(String message, Throwable cause) {
-        super(message, cause);
+    private String sessionsUrl() {
+        String cached = sessionsUrl;
+        if (cached == null) {
+            cached = UriComponentsBuilder.fromHttpUrl(baseUrl).path("/v1/sessions").toUriString();
+            sessionsUrl = cached;
+        }
+        return cached;
     }
 }
-
-// Assume ProfileDTO, SessionDTO, and RewardsResponse are imported from your DTO/model packages.
@@ -0,0 +1,39 @@
+package com.app.talonone;
+
+/**
+ * Exception thrown when an error occurs during communication with the Talon.One API.
+ */
+public class TalonOneClientException extends RuntimeException {
+
+    private final int statusCode; // HTTP status returned by Talon.One, or 0 if no response was received
+
+    public TalonOneClientException(String message) {
+        this(message, 0, null);
+    }
+
+    public TalonOneClientException(String message, Throwable cause) {
+        this(message, 0, cause);
+    }
+
+    public TalonOneClientException(String message, int statusCode, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+    }
+
+    /**
+     * @return the HTTP status returned by Talon.One, or 0 if no response was received
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * A failure on Talon.One's side (no response, 5xx, or rate limiting) rather than a rejected request.
+     * Only these count toward opening the circuit breaker and may be served by a degraded response.
+     *
+     * @return true if Talon.One was unavailable or failed to process a valid request
+     */
+    public boolean isUpstreamFailure() {
+        return statusCode == 0 || statusCode == 429 || statusCode >= 500;
+    }
+}
@@ -0,0 +1,134 @@
+package com.app.talonone;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * When and how often idempotent calls of one Talon.One operation are hedged.
+ * <p>
+ * The hedge delay follows the operation's observed latency: it is the configured percentile of the last
+ * {@code windowSize} successful calls, so only the slowest calls are hedged whether Talon.One answers in 50 ms or
+ * in 2 s. Until {@code windowSize / 4} latencies are known, the configured initial delay is used.
+ * </p>
+ * <p>
+ * Hedges are also capped to a fraction of the traffic by a budget: every call earns {@code maxHedgeRatio} of a
+ * hedge, up to a small reserve, and every hedge spends one. When Talon.One slows down as a whole the budget runs
+ * dry after the reserve, instead of doubling the load on it.
+ * </p>
+ */
+public class TalonOneHedgePolicy {
+
+    // Hedges that may be sent in a row, e.g. after an idle period, before the ratio applies
+    private static final double MAX_BUDGET = 10;
+
+    private final double percentile;
+    private final double maxHedgeRatio;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long[] latencies;
+    private int latencyIndex;
+    private int latencyCount;
+    private int sinceRecompute;
+    private double budget = MAX_BUDGET;
+
+    private volatile long delayNanos;
+    private final LongAdder budgetExhausted = new LongAdder();
+
+    /**
+     * Constructs the policy.
+     *
+     * @param initialDelayNanos the hedge delay until enough latencies are known
+     * @param percentile        the latency percentile (0..1) after which a call is hedged
+     * @param maxHedgeRatio     the largest fraction of calls that may be hedged
+     * @param windowSize        the number of recent latencies the percentile is taken over
+     */
+    public TalonOneHedgePolicy(long initialDelayNanos, double percentile, double maxHedgeRatio, int windowSize) {
+        this.percentile = percentile;
+        this.maxHedgeRatio = maxHedgeRatio;
+        this.latencies = new long[Math.max(4, windowSize)];
+        this.delayNanos = initialDelayNanos;
+    }
+
+    /**
+     * Records the latency of a successful call, hedged or not.
+     *
+     * @param elapsedNanos the call's duration
+     */
+    public void recordLatency(long elapsedNanos) {
+        lock.lock();
+        try {
+            latencies[latencyIndex] = elapsedNanos;
+            latencyIndex = (latencyIndex + 1) % latencies.length;
+            if (latencyCount < latencies.length) {
+                latencyCount++;
+            }
+            // Sorting the window is amortized over a quarter of it
+            if (++sinceRecompute >= latencies.length / 4) {
+                sinceRecompute = 0;
+                long[] sorted = Arrays.copyOf(latencies, latencyCount);
+                Arrays.sort(sorted);
+                delayNanos = sorted[Math.min(sorted.length - 1, (int) (percentile * sorted.length))];
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Earns the hedge budget of one call that may be hedged.
+     */
+    public void onCall() {
+        lock.lock();
+        try {
+            budget = Math.min(MAX_BUDGET, budget + maxHedgeRatio);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Spends the budget for one hedge.
+     *
+     * @return true if the hedge may be sent
+     */
+    public boolean tryHedge() {
+        lock.lock();
+        try {
+            if (budget < 1) {
+                budgetExhausted.increment();
+                return false;
+            }
+            budget -= 1;
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back the budget of a hedge that was not sent after all.
+     */
+    public void refund() {
+        lock.lock();
+        try {
+            budget = Math.min(MAX_BUDGET, budget + 1);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return how long a call runs before it is hedged
+     */
+    public long getDelayNanos() {
+        return delayNanos;
+    }
+
+    /**
+     * @return the number of hedges not sent because the budget was spent
+     */
+    public long getBudgetExhausted() {
+        return budgetExhausted.sum();
+    }
+}
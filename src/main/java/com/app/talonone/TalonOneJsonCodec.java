@@ -0,0 +1,355 @@
+package com.app.talonone;
+
+import com.app.model.CartItemDTO;
+import com.app.model.ProfileDTO;
+import com.app.model.RewardDetailDTO;
+import com.app.model.RewardsResponse;
+import com.app.model.SessionDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Hand-written JSON writers and readers for the Talon.One payloads, used by {@link TalonOneClient} and
+ * {@link AsyncTalonOneClient} instead of reflective data binding.
+ * <p>
+ * Requests are written field by field with a streaming {@link JsonGenerator} and pre-encoded field names, into
+ * output buffers taken from a fixed pool (a bounded queue rather than thread-locals, which would be per virtual
+ * thread and never reused); the only per-call allocations are the generator and the exact-size result array.
+ * Attribute values of the common scalar types are written directly; anything else (dates, nested objects) falls
+ * back to the application {@link ObjectMapper}, so the JSON is the same as data binding produces.
+ * </p>
+ * <p>
+ * {@link RewardsResponse} is read token by token straight from the response body, skipping unknown fields, without
+ * building an intermediate tree.
+ * </p>
+ */
+@Component
+public class TalonOneJsonCodec {
+
+    private static final SerializedString USER_ID = new SerializedString("userId");
+    private static final SerializedString ATTRIBUTES = new SerializedString("attributes");
+    private static final SerializedString CUSTOMER_PROFILES = new SerializedString("customerProfiles");
+    private static final SerializedString INTEGRATION_ID = new SerializedString("integrationId");
+    private static final SerializedString SESSION_ID = new SerializedString("sessionId");
+    private static final SerializedString ITEMS = new SerializedString("items");
+    private static final SerializedString TOTAL_AMOUNT = new SerializedString("totalAmount");
+    private static final SerializedString IDEMPOTENCY_KEY = new SerializedString("idempotencyKey");
+    private static final SerializedString SESSION_ATTRIBUTES = new SerializedString("sessionAttributes");
+    private static final SerializedString PROFILE_ATTRIBUTES = new SerializedString("profileAttributes");
+    private static final SerializedString SKU = new SerializedString("sku");
+    private static final SerializedString NAME = new SerializedString("name");
+    private static final SerializedString QUANTITY = new SerializedString("quantity");
+    private static final SerializedString PRICE = new SerializedString("price");
+
+    private static final int INITIAL_BUFFER_SIZE = 1024;
+
+    private final JsonFactory jsonFactory;
+    private final BlockingQueue<PooledBuffer> buffers;
+    private final int maxPooledBufferSize;
+
+    /**
+     * Constructs the codec.
+     *
+     * @param objectMapper        the application mapper; its factory and settings are shared
+     * @param poolSize            the number of output buffers kept for reuse
+     * @param maxPooledBufferSize buffers that grew beyond this many bytes are dropped instead of pooled
+     */
+    public TalonOneJsonCodec(ObjectMapper objectMapper,
+                             @Value("${talonone.codec.buffer-pool-size:256}") int poolSize,
+                             @Value("${talonone.codec.max-pooled-buffer-size:65536}") int maxPooledBufferSize) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.buffers = new ArrayBlockingQueue<>(poolSize);
+        this.maxPooledBufferSize = maxPooledBufferSize;
+    }
+
+    /**
+     * @param dto the profile
+     * @return the body of {@code PUT /v1/profiles/{id}}
+     */
+    public byte[] writeProfile(ProfileDTO dto) {
+        return write(generator -> {
+            generator.writeStartObject();
+            generator.writeFieldName(USER_ID);
+            generator.writeString(dto.getUserId());
+            generator.writeFieldName(ATTRIBUTES);
+            writeAttributes(generator, dto.getAttributes());
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * @param profiles the profiles
+     * @return the body of the bulk profile update
+     */
+    public byte[] writeProfiles(List<ProfileDTO> profiles) {
+        return write(generator -> {
+            generator.writeStartObject();
+            generator.writeFieldName(CUSTOMER_PROFILES);
+            generator.writeStartArray();
+            for (ProfileDTO profile : profiles) {
+                generator.writeStartObject();
+                generator.writeFieldName(INTEGRATION_ID);
+                generator.writeString(profile.getUserId());
+                generator.writeFieldName(ATTRIBUTES);
+                writeAttributes(generator, profile.getAttributes());
+                generator.writeEndObject();
+            }
+            generator.writeEndArray();
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * @param dto the session
+     * @return the body of {@code POST /v1/sessions}
+     */
+    public byte[] writeSession(SessionDTO dto) {
+        return write(generator -> {
+            generator.writeStartObject();
+            generator.writeFieldName(SESSION_ID);
+            generator.writeString(dto.getSessionId());
+            generator.writeFieldName(USER_ID);
+            generator.writeString(dto.getUserId());
+            generator.writeFieldName(ITEMS);
+            writeItems(generator, dto.getItems());
+            generator.writeFieldName(TOTAL_AMOUNT);
+            generator.writeNumber(dto.getTotalAmount());
+            generator.writeFieldName(SESSION_ATTRIBUTES);
+            writeAttributes(generator, dto.getSessionAttributes());
+            if (dto.getProfileAttributes() != null) {
+                generator.writeFieldName(PROFILE_ATTRIBUTES);
+                writeAttributes(generator, dto.getProfileAttributes());
+            }
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * @param idempotencyKey identifies the confirmation, so Talon.One applies a re-sent one only once
+     * @param totalAmount    the order total
+     * @return the body of {@code POST /v1/loyalty/{id}/confirm}
+     */
+    public byte[] writeLoyaltyConfirmation(String idempotencyKey, double totalAmount) {
+        return write(generator -> {
+            generator.writeStartObject();
+            generator.writeFieldName(IDEMPOTENCY_KEY);
+            generator.writeString(idempotencyKey);
+            generator.writeFieldName(TOTAL_AMOUNT);
+            generator.writeNumber(totalAmount);
+            generator.writeEndObject();
+        });
+    }
+
+    /**
+     * @param body the response body of a session evaluation
+     * @return the parsed response
+     * @throws TalonOneClientException if the body is empty or not a valid evaluation result
+     */
+    public RewardsResponse readRewards(byte[] body) {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return readRewards(parser);
+        } catch (IOException ex) {
+            throw new TalonOneClientException("Failed to parse Talon.One session evaluation", ex);
+        }
+    }
+
+    /**
+     * @param body the response body stream of a session evaluation; not closed
+     * @return the parsed response
+     * @throws TalonOneClientException if the body is empty or not a valid evaluation result
+     */
+    public RewardsResponse readRewards(InputStream body) {
+        try (JsonParser parser = jsonFactory.createParser(body)) {
+            return readRewards(parser);
+        } catch (IOException ex) {
+            throw new TalonOneClientException("Failed to parse Talon.One session evaluation", ex);
+        }
+    }
+
+    private static RewardsResponse readRewards(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        if (token == null) {
+            throw new TalonOneClientException("Failed to evaluate session: Empty response body");
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new TalonOneClientException("Failed to evaluate session: Expected a JSON object but got " + token);
+        }
+        RewardsResponse response = new RewardsResponse();
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            parser.nextToken();
+            switch (field) {
+                case "discountAmount":
+                    response.setDiscountAmount(parser.getValueAsDouble());
+                    break;
+                case "rewards":
+                    response.setRewards(readRewardDetails(parser));
+                    break;
+                case "appliedCoupons":
+                    response.setAppliedCoupons(readStrings(parser));
+                    break;
+                case "loyaltyPointsUsed":
+                    response.setLoyaltyPointsUsed(parser.getValueAsInt());
+                    break;
+                case "loyaltyPointsEarned":
+                    response.setLoyaltyPointsEarned(parser.getValueAsInt());
+                    break;
+                default:
+                    parser.skipChildren();
+            }
+        }
+        return response;
+    }
+
+    private static List<RewardDetailDTO> readRewardDetails(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<RewardDetailDTO> rewards = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            RewardDetailDTO reward = new RewardDetailDTO();
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                parser.nextToken();
+                switch (field) {
+                    case "campaignName":
+                        reward.setCampaignName(parser.getValueAsString());
+                        break;
+                    case "type":
+                        reward.setType(parser.getValueAsString());
+                        break;
+                    case "value":
+                        reward.setValue(parser.getValueAsDouble());
+                        break;
+                    default:
+                        parser.skipChildren();
+                }
+            }
+            rewards.add(reward);
+        }
+        return rewards;
+    }
+
+    private static List<String> readStrings(JsonParser parser) throws IOException {
+        if (parser.currentToken() != JsonToken.START_ARRAY) {
+            parser.skipChildren();
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(parser.getValueAsString());
+        }
+        return values;
+    }
+
+    private static void writeItems(JsonGenerator generator, List<CartItemDTO> items) throws IOException {
+        if (items == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartArray();
+        for (CartItemDTO item : items) {
+            generator.writeStartObject();
+            generator.writeFieldName(SKU);
+            generator.writeString(item.getSku());
+            generator.writeFieldName(NAME);
+            generator.writeString(item.getName());
+            generator.writeFieldName(QUANTITY);
+            generator.writeNumber(item.getQuantity());
+            generator.writeFieldName(PRICE);
+            generator.writeNumber(item.getPrice());
+            generator.writeEndObject();
+        }
+        generator.writeEndArray();
+    }
+
+    private static void writeAttributes(JsonGenerator generator, Map<String, Object> attributes) throws IOException {
+        if (attributes == null) {
+            generator.writeNull();
+            return;
+        }
+        generator.writeStartObject();
+        for (Map.Entry<String, Object> attribute : attributes.entrySet()) {
+            generator.writeFieldName(attribute.getKey());
+            Object value = attribute.getValue();
+            if (value == null) {
+                generator.writeNull();
+            } else if (value instanceof String string) {
+                generator.writeString(string);
+            } else if (value instanceof Integer number) {
+                generator.writeNumber(number);
+            } else if (value instanceof Long number) {
+                generator.writeNumber(number);
+            } else if (value instanceof Double number) {
+                generator.writeNumber(number);
+            } else if (value instanceof Boolean flag) {
+                generator.writeBoolean(flag);
+            } else {
+                // Dates, BigDecimal, nested maps and lists: serialized as the ObjectMapper would
+                generator.writeObject(value);
+            }
+        }
+        generator.writeEndObject();
+    }
+
+    private byte[] write(BodyWriter writer) {
+        PooledBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new PooledBuffer();
+        }
+        try {
+            try (JsonGenerator generator = jsonFactory.createGenerator(buffer)) {
+                writer.write(generator);
+            }
+            return buffer.toByteArray();
+        } catch (IOException ex) {
+            throw new TalonOneClientException("Failed to serialize Talon.One request", ex);
+        } finally {
+            if (buffer.capacity() <= maxPooledBufferSize) {
+                buffer.reset();
+                buffers.offer(buffer);
+            }
+        }
+    }
+
+    /**
+     * @return the number of output buffers currently pooled
+     */
+    public int getPooledBuffers() {
+        return buffers.size();
+    }
+
+    @FunctionalInterface
+    private interface BodyWriter {
+        void write(JsonGenerator generator) throws IOException;
+    }
+
+    /**
+     * A growable output buffer that can be reset and reused.
+     */
+    private static final class PooledBuffer extends ByteArrayOutputStream {
+        PooledBuffer() {
+            super(INITIAL_BUFFER_SIZE);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.app.talonone;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records the latency of every Talon.One call as the {@code talonone.client.requests} timer.
+ * <p>
+ * Timers are tagged with the {@code operation}, the {@code outcome} (SUCCESS, CLIENT_ERROR, SERVER_ERROR,
+ * UNAVAILABLE for calls rejected before reaching Talon.One, IO_ERROR for calls that got no response) and the
+ * HTTP {@code status} ({@code NONE} when there was no response). They publish percentile histograms so latency
+ * percentiles can be aggregated across instances in Prometheus.
+ * </p>
+ */
+@Component
+public class TalonOneMetrics {
+
+    private static final String TIMER_NAME = "talonone.client.requests";
+
+    private final MeterRegistry meterRegistry;
+    // Timer lookup by pre-built key; avoids building a Meter.Id on every call
+    private final ConcurrentMap<String, Timer> timers = new ConcurrentHashMap<>();
+
+    /**
+     * Constructs the metrics recorder.
+     *
+     * @param meterRegistry the registry timers are registered with
+     */
+    public TalonOneMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    /**
+     * Records one call.
+     *
+     * @param operation    the Talon.One operation
+     * @param elapsedNanos the call's duration
+     * @param error        the call's failure, or null if it succeeded
+     */
+    public void record(TalonOneOperation operation, long elapsedNanos, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        String outcome;
+        String status;
+        if (cause == null) {
+            outcome = "SUCCESS";
+            status = "2xx";
+        } else if (cause instanceof TalonOneUnavailableException) {
+            outcome = "UNAVAILABLE";
+            status = "NONE";
+        } else if (cause instanceof TalonOneClientException && ((TalonOneClientException) cause).getStatusCode() > 0) {
+            int statusCode = ((TalonOneClientException) cause).getStatusCode();
+            outcome = statusCode >= 500 ? "SERVER_ERROR" : "CLIENT_ERROR";
+            status = String.valueOf(statusCode);
+        } else {
+            outcome = "IO_ERROR";
+            status = "NONE";
+        }
+        timer(operation, outcome, status).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private Timer timer(TalonOneOperation operation, String outcome, String status) {
+        String key = operation.name() + '|' + outcome + '|' + status;
+        Timer timer = timers.get(key);
+        if (timer != null) {
+            return timer;
+        }
+        return timers.computeIfAbsent(key, k -> Timer.builder(TIMER_NAME)
+                .description("Talon.One Integration API calls")
+                .tag("operation", operation.name().toLowerCase(Locale.ROOT))
+                .tag("outcome", outcome)
+                .tag("status", status)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,42 @@
+package com.app.talonone;
+
+import java.net.URI;
+
+/**
+ * The Talon.One Integration API operations used by this application.
+ * <p>
+ * Each operation carries the path prefix it is served under, so transport-level components
+ * (timeouts, connection limits) can be configured per operation from the outgoing request URI alone.
+ * </p>
+ */
+public enum TalonOneOperation {
+
+    UPDATE_PROFILE("/v1/profiles/"),
+    EVALUATE_SESSION("/v1/sessions"),
+    CONFIRM_LOYALTY("/v1/loyalty/");
+
+    private final String pathPrefix;
+
+    TalonOneOperation(String pathPrefix) {
+        this.pathPrefix = pathPrefix;
+    }
+
+    /**
+     * Resolves the operation for an outgoing request URI.
+     *
+     * @param uri the request URI
+     * @return the matching operation, or null if the URI is not a known Talon.One operation
+     */
+    public static TalonOneOperation resolve(URI uri) {
+        String path = uri.getPath();
+        if (path == null) {
+            return null;
+        }
+        for (TalonOneOperation operation : values()) {
+            if (path.startsWith(operation.pathPrefix)) {
+                return operation;
+            }
+        }
+        return null;
+    }
+}
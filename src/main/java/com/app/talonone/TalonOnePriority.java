@@ -0,0 +1,36 @@
+package com.app.talonone;
+
+/**
+ * Priority classes of outbound Talon.One calls, in decreasing order of business value.
+ * <p>
+ * {@link TalonOneScheduler} shares the request budget between the classes by weight and sheds each class's calls
+ * after its own maximum wait, so browsing and background traffic give way to checkouts when the quota is tight.
+ * </p>
+ */
+public enum TalonOnePriority {
+
+    /**
+     * Evaluations and profile updates on the order path.
+     */
+    CHECKOUT,
+
+    /**
+     * Loyalty point confirmations after an order.
+     */
+    LOYALTY,
+
+    /**
+     * Cart evaluations for display while the user browses.
+     */
+    BROWSE,
+
+    /**
+     * Profile updates off the request path: background pushes and batch re-syncs.
+     */
+    PROFILE_SYNC,
+
+    /**
+     * Evaluations of orders imported in bulk, which may wait long but must not crowd out live checkouts.
+     */
+    BULK
+}
@@ -0,0 +1,294 @@
+package com.app.talonone;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Resilience layer shared by {@link TalonOneClient} and {@link AsyncTalonOneClient}.
+ * <p>
+ * Every Talon.One operation has its own {@link TalonOneCircuitBreaker} and adaptive {@link TalonOneBulkhead}.
+ * A call is rejected with a {@link TalonOneUnavailableException} without touching the network when its breaker
+ * is open or its bulkhead is full, so a slow Talon.One cannot tie up every request thread.
+ * Only upstream failures (no response, 5xx, 429) and slow calls count against the breaker; a 4xx for a bad
+ * request does not.
+ * </p>
+ * <p>
+ * Idempotent async calls may be hedged: if the first attempt has not completed within the operation's
+ * {@code talonone.resilience.hedge-percentile} latency (see {@link TalonOneHedgePolicy}), or fails with an upstream
+ * failure before that, a second attempt is started and the first successful result wins. At most
+ * {@code talonone.resilience.hedge-budget} of the calls are hedged.
+ * </p>
+ * <p>
+ * Every attempt, including rejected ones, is recorded by {@link TalonOneMetrics}.
+ * </p>
+ */
+@Component
+public class TalonOneResilience {
+
+    private final Map<TalonOneOperation, TalonOneCircuitBreaker> breakers = new EnumMap<>(TalonOneOperation.class);
+    private final Map<TalonOneOperation, TalonOneBulkhead> bulkheads = new EnumMap<>(TalonOneOperation.class);
+    private final Map<TalonOneOperation, TalonOneHedgePolicy> hedgePolicies = new EnumMap<>(TalonOneOperation.class);
+    private final boolean hedgingEnabled;
+    private final LongAdder hedges = new LongAdder();
+    private final TalonOneMetrics metrics;
+
+    /**
+     * Constructs the resilience layer.
+     *
+     * @param windowSize           the number of recent outcomes each breaker considers
+     * @param minimumCalls         the number of outcomes required before a breaker may open
+     * @param failureRateThreshold the failure rate (0..1) at which a breaker opens
+     * @param slowCallThreshold    calls slower than this count as failures
+     * @param openDuration         how long an open breaker rejects calls before trial calls
+     * @param halfOpenCalls        the number of trial calls in the half-open state
+     * @param maxConcurrency       the maximum concurrency limit per operation
+     * @param minConcurrency       the minimum concurrency limit per operation
+     * @param targetLatency        calls slower than this shrink the concurrency limit
+     * @param hedgingEnabled       whether idempotent async calls are hedged
+     * @param hedgeDelay           how long to wait for the first attempt before hedging, until latencies are known
+     * @param hedgePercentile      the latency percentile (0..1) of an operation after which its calls are hedged
+     * @param hedgeBudget          the largest fraction of an operation's calls that may be hedged
+     * @param metrics              records the latency and outcome of every call
+     */
+    public TalonOneResilience(
+            @Value("${talonone.resilience.window-size:100}") int windowSize,
+            @Value("${talonone.resilience.minimum-calls:20}") int minimumCalls,
+            @Value("${talonone.resilience.failure-rate-threshold:0.5}") double failureRateThreshold,
+            @Value("${talonone.resilience.slow-call-threshold:2s}") Duration slowCallThreshold,
+            @Value("${talonone.resilience.open-duration:10s}") Duration openDuration,
+            @Value("${talonone.resilience.half-open-calls:5}") int halfOpenCalls,
+            @Value("${talonone.resilience.max-concurrency:64}") int maxConcurrency,
+            @Value("${talonone.resilience.min-concurrency:4}") int minConcurrency,
+            @Value("${talonone.resilience.target-latency:500ms}") Duration targetLatency,
+            @Value("${talonone.resilience.hedging-enabled:true}") boolean hedgingEnabled,
+            @Value("${talonone.resilience.hedge-delay:300ms}") Duration hedgeDelay,
+            @Value("${talonone.resilience.hedge-percentile:0.95}") double hedgePercentile,
+            @Value("${talonone.resilience.hedge-budget:0.05}") double hedgeBudget,
+            TalonOneMetrics metrics) {
+        for (TalonOneOperation operation : TalonOneOperation.values()) {
+            breakers.put(operation, new TalonOneCircuitBreaker(windowSize, minimumCalls, failureRateThreshold,
+                    slowCallThreshold.toNanos(), openDuration.toNanos(), halfOpenCalls));
+            bulkheads.put(operation, new TalonOneBulkhead(minConcurrency, maxConcurrency, targetLatency.toNanos()));
+            hedgePolicies.put(operation,
+                    new TalonOneHedgePolicy(hedgeDelay.toNanos(), hedgePercentile, hedgeBudget, windowSize));
+        }
+        this.hedgingEnabled = hedgingEnabled;
+        this.metrics = metrics;
+    }
+
+    /**
+     * Runs a blocking call under the operation's breaker and bulkhead.
+     *
+     * @param operation the Talon.One operation
+     * @param call      the call
+     * @param <T>       the result type
+     * @return the call's result
+     * @throws TalonOneUnavailableException if the call was rejected
+     */
+    public <T> T call(TalonOneOperation operation, Supplier<T> call) {
+        acquire(operation);
+        long start = System.nanoTime();
+        Throwable error = null;
+        try {
+            return call.get();
+        } catch (RuntimeException | Error ex) {
+            error = ex;
+            throw ex;
+        } finally {
+            release(operation, error, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Runs an async call under the operation's breaker and bulkhead.
+     *
+     * @param operation the Talon.One operation
+     * @param call      starts the call
+     * @param <T>       the result type
+     * @return the call's result, or a future failed with TalonOneUnavailableException if it was rejected
+     */
+    public <T> CompletableFuture<T> callAsync(TalonOneOperation operation, Supplier<CompletableFuture<T>> call) {
+        try {
+            acquire(operation);
+        } catch (TalonOneUnavailableException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+        long start = System.nanoTime();
+        CompletableFuture<T> started;
+        try {
+            started = call.get();
+        } catch (RuntimeException ex) {
+            started = CompletableFuture.failedFuture(ex);
+        }
+        return started.whenComplete((result, ex) -> release(operation, ex, System.nanoTime() - start));
+    }
+
+    /**
+     * Runs an idempotent async call, hedging it with a second attempt when the first is slow or fails upstream.
+     *
+     * @param operation the Talon.One operation
+     * @param call      starts one attempt; must be safe to run twice
+     * @param <T>       the result type
+     * @return the first successful result, or the last failure if both attempts failed
+     */
+    public <T> CompletableFuture<T> callHedged(TalonOneOperation operation, Supplier<CompletableFuture<T>> call) {
+        return callHedged(operation, call, () -> true);
+    }
+
+    /**
+     * Runs an idempotent async call, hedging it only when the gate allows another attempt.
+     *
+     * @param operation    the Talon.One operation
+     * @param call         starts one attempt; must be safe to run twice
+     * @param hedgeAllowed asked when the hedge is due, e.g. whether the request budget has room for it
+     * @param <T>          the result type
+     * @return the first successful result, or the last failure if every attempt failed
+     */
+    public <T> CompletableFuture<T> callHedged(TalonOneOperation operation, Supplier<CompletableFuture<T>> call,
+                                               BooleanSupplier hedgeAllowed) {
+        if (!hedgingEnabled) {
+            return callAsync(operation, call);
+        }
+        return new HedgedCall<>(operation, call, hedgeAllowed).start();
+    }
+
+    private void acquire(TalonOneOperation operation) {
+        TalonOneUnavailableException rejection = null;
+        if (!breakers.get(operation).tryAcquire()) {
+            rejection = new TalonOneUnavailableException("Talon.One circuit breaker is open for " + operation);
+        } else if (!bulkheads.get(operation).tryAcquire()) {
+            // The call is not made, so it must not count as a (half-open trial) success
+            breakers.get(operation).release();
+            rejection = new TalonOneUnavailableException("Talon.One bulkhead is full for " + operation);
+        }
+        if (rejection != null) {
+            metrics.record(operation, 0, rejection);
+            throw rejection;
+        }
+    }
+
+    private void release(TalonOneOperation operation, Throwable error, long elapsedNanos) {
+        boolean failed = error != null && isUpstreamFailure(error);
+        bulkheads.get(operation).release(failed, elapsedNanos);
+        breakers.get(operation).record(failed, elapsedNanos);
+        if (error == null) {
+            hedgePolicies.get(operation).recordLatency(elapsedNanos);
+        }
+        metrics.record(operation, elapsedNanos, error);
+    }
+
+    private static boolean isUpstreamFailure(Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        return !(cause instanceof TalonOneClientException) || ((TalonOneClientException) cause).isUpstreamFailure();
+    }
+
+    /**
+     * @param operation the Talon.One operation
+     * @return the operation's circuit breaker
+     */
+    public TalonOneCircuitBreaker getCircuitBreaker(TalonOneOperation operation) {
+        return breakers.get(operation);
+    }
+
+    /**
+     * @param operation the Talon.One operation
+     * @return the operation's bulkhead
+     */
+    public TalonOneBulkhead getBulkhead(TalonOneOperation operation) {
+        return bulkheads.get(operation);
+    }
+
+    /**
+     * @param operation the Talon.One operation
+     * @return the operation's hedge delay and budget
+     */
+    public TalonOneHedgePolicy getHedgePolicy(TalonOneOperation operation) {
+        return hedgePolicies.get(operation);
+    }
+
+    /**
+     * @return the total number of hedge attempts started
+     */
+    public long getHedges() {
+        return hedges.sum();
+    }
+
+    /**
+     * One hedged call: at most two attempts, completed by the first success.
+     */
+    private final class HedgedCall<T> {
+        private final TalonOneOperation operation;
+        private final Supplier<CompletableFuture<T>> call;
+        private final BooleanSupplier hedgeAllowed;
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+        private boolean hedged;
+        private int outstanding;
+
+        HedgedCall(TalonOneOperation operation, Supplier<CompletableFuture<T>> call, BooleanSupplier hedgeAllowed) {
+            this.operation = operation;
+            this.call = call;
+            this.hedgeAllowed = hedgeAllowed;
+        }
+
+        CompletableFuture<T> start() {
+            TalonOneHedgePolicy policy = hedgePolicies.get(operation);
+            policy.onCall();
+            attempt();
+            CompletableFuture.delayedExecutor(policy.getDelayNanos(), TimeUnit.NANOSECONDS).execute(this::hedge);
+            return result;
+        }
+
+        private void attempt() {
+            synchronized (this) {
+                outstanding++;
+            }
+            callAsync(operation, call).whenComplete(this::onAttemptDone);
+        }
+
+        private void hedge() {
+            synchronized (this) {
+                if (hedged || result.isDone()) {
+                    return;
+                }
+                TalonOneHedgePolicy policy = hedgePolicies.get(operation);
+                if (!policy.tryHedge()) {
+                    return;
+                }
+                if (!hedgeAllowed.getAsBoolean()) {
+                    policy.refund();
+                    return;
+                }
+                hedged = true;
+            }
+            hedges.increment();
+            attempt();
+        }
+
+        private void onAttemptDone(T value, Throwable error) {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            if (isUpstreamFailure(error)) {
+                hedge();
+            }
+            boolean last;
+            synchronized (this) {
+                last = --outstanding == 0;
+            }
+            if (last) {
+                result.completeExceptionally(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,639 @@
+package com.app.talonone;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Admits outbound Talon.One calls within the API quota, by priority.
+ * <p>
+ * Every call from {@link TalonOneClient} and {@link AsyncTalonOneClient} takes a permit from a token bucket
+ * refilled at {@code talonone.scheduler.permits-per-second} (this instance's share of the quota, up to
+ * {@code talonone.scheduler.burst} at once). While permits are available calls go straight through; otherwise
+ * they wait in one queue per {@link TalonOnePriority}, and the queues are served by smooth weighted round robin
+ * ({@code talonone.scheduler.weight.*}), so checkouts get most of a tight budget without starving the others.
+ * </p>
+ * <p>
+ * Calls are shed with a {@link TalonOneUnavailableException} rather than sent late: when their class's queue is
+ * full ({@code talonone.scheduler.max-queued}), or when they have waited {@code talonone.scheduler.max-wait.*},
+ * by which time their caller has given up. Calls abandoned by their caller while queued (a blocking caller that
+ * stopped waiting, an async result completed elsewhere) are dropped without using a permit.
+ * </p>
+ * <p>
+ * A 429 from Talon.One pauses all dispatching for its {@code Retry-After} and empties the bucket; the rate-limited
+ * call is queued again, up to {@code talonone.scheduler.rate-limit-retries} times, if the pause ends before its
+ * deadline. Rate-limited requests were not processed, so this is safe for loyalty confirmations too.
+ * </p>
+ * <p>
+ * The waits of queued calls are recorded as the {@code talonone.scheduler.wait} timer per class; calls admitted at
+ * once only count as admitted.
+ * </p>
+ */
+@Component
+public class TalonOneScheduler {
+
+    private static final Logger logger = LoggerFactory.getLogger(TalonOneScheduler.class);
+
+    private static final String WAIT_TIMER = "talonone.scheduler.wait";
+    private static final CompletableFuture<Void> ADMITTED = CompletableFuture.completedFuture(null);
+    // How long a blocking caller waits past its deadline for the dispatcher to shed it
+    private static final long GRANT_GRACE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private final boolean unlimited;
+    private final double permitsPerNano;
+    private final double burst;
+    private final int maxQueued;
+    private final int rateLimitRetries;
+    private final long defaultRetryAfterNanos;
+    private final long maxRetryAfterNanos;
+    private final Map<TalonOnePriority, Lane> lanes = new EnumMap<>(TalonOnePriority.class);
+    private final ScheduledExecutorService dispatcher;
+
+    // Guarded by this
+    private double tokens;
+    private long refilledAt;
+    private long pausedUntil;
+    private boolean drainScheduled;
+    private long drainAt;
+    private boolean closed;
+
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder rateLimitRetried = new LongAdder();
+
+    /**
+     * Constructs the scheduler.
+     *
+     * @param permitsPerSecond       the sustained request rate; 0 or less admits every call unless paused
+     * @param burst                  the most permits that accumulate while idle
+     * @param maxQueued              the most calls waiting per class before new ones are shed
+     * @param rateLimitRetries       how often a rate-limited call is queued again
+     * @param defaultRetryAfter      the pause after a 429 without a usable Retry-After
+     * @param maxRetryAfter          the longest pause honored
+     * @param checkoutWeight         the share of checkout calls when every class is waiting
+     * @param loyaltyWeight          the share of loyalty confirmations
+     * @param browseWeight           the share of browsing evaluations
+     * @param profileSyncWeight      the share of background profile updates
+     * @param bulkWeight             the share of bulk import evaluations
+     * @param checkoutMaxWait        how long a checkout call waits before it is shed
+     * @param loyaltyMaxWait         how long a loyalty confirmation waits
+     * @param browseMaxWait          how long a browsing evaluation waits
+     * @param profileSyncMaxWait     how long a background profile update waits
+     * @param bulkMaxWait            how long a bulk import evaluation waits
+     * @param meterRegistry          the registry the wait timers are registered with
+     */
+    public TalonOneScheduler(
+            @Value("${talonone.scheduler.permits-per-second:0}") double permitsPerSecond,
+            @Value("${talonone.scheduler.burst:20}") int burst,
+            @Value("${talonone.scheduler.max-queued:1000}") int maxQueued,
+            @Value("${talonone.scheduler.rate-limit-retries:1}") int rateLimitRetries,
+            @Value("${talonone.scheduler.default-retry-after:1s}") Duration defaultRetryAfter,
+            @Value("${talonone.scheduler.max-retry-after:60s}") Duration maxRetryAfter,
+            @Value("${talonone.scheduler.weight.checkout:8}") int checkoutWeight,
+            @Value("${talonone.scheduler.weight.loyalty:4}") int loyaltyWeight,
+            @Value("${talonone.scheduler.weight.browse:1}") int browseWeight,
+            @Value("${talonone.scheduler.weight.profile-sync:1}") int profileSyncWeight,
+            @Value("${talonone.scheduler.weight.bulk:1}") int bulkWeight,
+            @Value("${talonone.scheduler.max-wait.checkout:2s}") Duration checkoutMaxWait,
+            @Value("${talonone.scheduler.max-wait.loyalty:5s}") Duration loyaltyMaxWait,
+            @Value("${talonone.scheduler.max-wait.browse:500ms}") Duration browseMaxWait,
+            @Value("${talonone.scheduler.max-wait.profile-sync:10s}") Duration profileSyncMaxWait,
+            @Value("${talonone.scheduler.max-wait.bulk:60s}") Duration bulkMaxWait,
+            MeterRegistry meterRegistry) {
+        this.unlimited = permitsPerSecond <= 0;
+        this.permitsPerNano = permitsPerSecond / TimeUnit.SECONDS.toNanos(1);
+        this.burst = Math.max(1, burst);
+        this.maxQueued = maxQueued;
+        this.rateLimitRetries = rateLimitRetries;
+        this.defaultRetryAfterNanos = defaultRetryAfter.toNanos();
+        this.maxRetryAfterNanos = maxRetryAfter.toNanos();
+        addLane(TalonOnePriority.CHECKOUT, checkoutWeight, checkoutMaxWait, meterRegistry);
+        addLane(TalonOnePriority.LOYALTY, loyaltyWeight, loyaltyMaxWait, meterRegistry);
+        addLane(TalonOnePriority.BROWSE, browseWeight, browseMaxWait, meterRegistry);
+        addLane(TalonOnePriority.PROFILE_SYNC, profileSyncWeight, profileSyncMaxWait, meterRegistry);
+        addLane(TalonOnePriority.BULK, bulkWeight, bulkMaxWait, meterRegistry);
+        this.tokens = this.burst;
+        this.refilledAt = System.nanoTime();
+        this.pausedUntil = refilledAt;
+        this.dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "talonone-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    private void addLane(TalonOnePriority priority, int weight, Duration maxWait, MeterRegistry meterRegistry) {
+        lanes.put(priority, new Lane(priority, weight, maxWait, meterRegistry));
+    }
+
+    /**
+     * Runs a blocking call once it is admitted, waiting at most the class's maximum wait.
+     *
+     * @param priority the call's class
+     * @param call     the call
+     * @param <T>      the result type
+     * @return the call's result
+     * @throws TalonOneUnavailableException if the call was shed
+     */
+    public <T> T call(TalonOnePriority priority, Supplier<T> call) {
+        Lane lane = lanes.get(priority);
+        long deadline = System.nanoTime() + lane.maxWaitNanos;
+        for (int retriesLeft = rateLimitRetries; ; retriesLeft--) {
+            await(lane, schedule(lane, deadline), deadline);
+            try {
+                return call.get();
+            } catch (TalonOneClientException ex) {
+                if (!shouldRetry(ex, retriesLeft, deadline)) {
+                    throw ex;
+                }
+            }
+        }
+    }
+
+    /**
+     * Starts an async call once it is admitted. Completing or cancelling the returned future before then
+     * withdraws the call.
+     *
+     * @param priority the call's class
+     * @param call     starts the call
+     * @param <T>      the result type
+     * @return the call's result, or a future failed with TalonOneUnavailableException if the call was shed
+     */
+    public <T> CompletableFuture<T> submit(TalonOnePriority priority, Supplier<CompletableFuture<T>> call) {
+        Lane lane = lanes.get(priority);
+        CompletableFuture<T> result = new CompletableFuture<>();
+        submit(lane, System.nanoTime() + lane.maxWaitNanos, call, result, rateLimitRetries);
+        return result;
+    }
+
+    private <T> void submit(Lane lane, long deadline, Supplier<CompletableFuture<T>> call,
+                            CompletableFuture<T> result, int retriesLeft) {
+        CompletableFuture<Void> grant = schedule(lane, deadline);
+        result.whenComplete((value, error) -> grant.cancel(false));
+        grant.thenCompose(ignored -> call.get()).whenComplete((value, error) -> {
+            if (error == null) {
+                result.complete(value);
+                return;
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (cause instanceof TalonOneClientException
+                    && shouldRetry((TalonOneClientException) cause, retriesLeft, deadline) && !result.isDone()) {
+                submit(lane, deadline, call, result, retriesLeft - 1);
+                return;
+            }
+            result.completeExceptionally(cause);
+        });
+    }
+
+    /**
+     * Takes a permit for an extra attempt, such as a hedge, only if no call is waiting for one.
+     *
+     * @return true if the attempt may be sent
+     */
+    public synchronized boolean tryAcquire() {
+        long now = System.nanoTime();
+        refill(now);
+        if (closed || pausedUntil - now > 0 || anyQueued() || !hasPermit()) {
+            return false;
+        }
+        takePermit();
+        return true;
+    }
+
+    /**
+     * Pauses dispatching after Talon.One answered 429.
+     *
+     * @param retryAfter the response's {@code Retry-After} header, in seconds or as an HTTP date; may be null
+     */
+    public void onRateLimited(String retryAfter) {
+        long pauseNanos = retryAfterNanos(retryAfter);
+        rateLimited.increment();
+        synchronized (this) {
+            long now = System.nanoTime();
+            long until = now + pauseNanos;
+            if (until - pausedUntil > 0) {
+                pausedUntil = until;
+            }
+            // The bucket was ahead of Talon.One's count; start over after the pause
+            tokens = 0;
+            refilledAt = pausedUntil;
+            scheduleDrain(now);
+        }
+        logger.debug("Talon.One rate limit hit, pausing outbound calls for {} ms",
+                TimeUnit.NANOSECONDS.toMillis(pauseNanos));
+    }
+
+    /**
+     * Fails every waiting call and stops dispatching.
+     */
+    @PreDestroy
+    public void shutdown() {
+        List<Ticket> shed = new ArrayList<>();
+        synchronized (this) {
+            closed = true;
+            for (Lane lane : lanes.values()) {
+                shed.addAll(lane.queue);
+                lane.queue.clear();
+            }
+        }
+        dispatcher.shutdownNow();
+        for (Ticket ticket : shed) {
+            ticket.grant.completeExceptionally(new TalonOneUnavailableException("Talon.One scheduler is shut down"));
+        }
+    }
+
+    /**
+     * @param priority the class
+     * @return the class's queue and statistics
+     */
+    public Lane getLane(TalonOnePriority priority) {
+        return lanes.get(priority);
+    }
+
+    /**
+     * @param priority the class
+     * @return the number of calls of the class currently waiting, including abandoned ones not yet removed
+     */
+    public synchronized int getQueued(TalonOnePriority priority) {
+        return lanes.get(priority).queue.size();
+    }
+
+    /**
+     * @return the permits currently available, or -1 without a budget
+     */
+    public synchronized double getAvailablePermits() {
+        if (unlimited) {
+            return -1;
+        }
+        refill(System.nanoTime());
+        return tokens;
+    }
+
+    /**
+     * @return the remaining pause after a 429 in milliseconds, 0 if not paused
+     */
+    public synchronized long getPausedMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(pausedUntil - System.nanoTime()));
+    }
+
+    /**
+     * @return the number of 429 responses received
+     */
+    public long getRateLimited() {
+        return rateLimited.sum();
+    }
+
+    /**
+     * @return the number of rate-limited calls queued again
+     */
+    public long getRateLimitRetried() {
+        return rateLimitRetried.sum();
+    }
+
+    /**
+     * Admits the call at once if permits are free and nobody is waiting, otherwise queues it.
+     */
+    private CompletableFuture<Void> schedule(Lane lane, long deadline) {
+        synchronized (this) {
+            long now = System.nanoTime();
+            refill(now);
+            if (closed) {
+                return CompletableFuture.failedFuture(
+                        new TalonOneUnavailableException("Talon.One scheduler is shut down"));
+            }
+            if (pausedUntil - now <= 0 && !anyQueued() && hasPermit()) {
+                takePermit();
+                lane.admitted.increment();
+                return ADMITTED;
+            }
+            if (lane.queue.size() >= maxQueued) {
+                lane.shedQueueFull.increment();
+                return CompletableFuture.failedFuture(new TalonOneUnavailableException(
+                        "Talon.One " + lane.name + " queue is full (" + maxQueued + " waiting)"));
+            }
+            Ticket ticket = new Ticket(lane, now, deadline);
+            lane.queue.add(ticket);
+            scheduleDrain(now);
+            return ticket.grant;
+        }
+    }
+
+    /**
+     * Sheds expired and abandoned calls and admits waiting calls while permits last. Runs on the dispatcher thread;
+     * the futures are completed outside the lock.
+     */
+    private void drain() {
+        List<Ticket> admitted = new ArrayList<>();
+        List<Ticket> expired = new ArrayList<>();
+        long now;
+        synchronized (this) {
+            drainScheduled = false;
+            now = System.nanoTime();
+            refill(now);
+            for (Lane lane : lanes.values()) {
+                sweep(lane, now, expired);
+            }
+            if (pausedUntil - now <= 0) {
+                Lane lane;
+                while (hasPermit() && (lane = nextLane()) != null) {
+                    Ticket ticket = lane.queue.poll();
+                    if (ticket.grant.isDone()) {
+                        lane.abandoned.increment();
+                    } else if (ticket.deadline - now <= 0) {
+                        expired.add(ticket);
+                    } else {
+                        takePermit();
+                        admitted.add(ticket);
+                    }
+                }
+            }
+            scheduleDrain(now);
+        }
+        for (Ticket ticket : expired) {
+            ticket.lane.shedDeadline.increment();
+            ticket.grant.completeExceptionally(new TalonOneUnavailableException("Talon.One " + ticket.lane.name
+                    + " call waited longer than " + TimeUnit.NANOSECONDS.toMillis(ticket.lane.maxWaitNanos) + " ms"));
+        }
+        for (Ticket ticket : admitted) {
+            if (ticket.grant.complete(null)) {
+                ticket.lane.admitted.increment();
+                ticket.lane.waitTimer.record(now - ticket.enqueuedAt, TimeUnit.NANOSECONDS);
+            } else {
+                // Abandoned since it was polled; give the permit back
+                ticket.lane.abandoned.increment();
+                synchronized (this) {
+                    tokens = Math.min(burst, tokens + 1);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the expired and abandoned calls at the head of the lane. Deadlines within a lane are in queue order.
+     */
+    private static void sweep(Lane lane, long now, List<Ticket> expired) {
+        Ticket head;
+        while ((head = lane.queue.peek()) != null) {
+            if (head.grant.isDone()) {
+                lane.abandoned.increment();
+            } else if (head.deadline - now <= 0) {
+                expired.add(head);
+            } else {
+                return;
+            }
+            lane.queue.poll();
+        }
+    }
+
+    /**
+     * Smooth weighted round robin over the non-empty lanes; ties go to the higher priority.
+     */
+    private Lane nextLane() {
+        Lane best = null;
+        int total = 0;
+        for (Lane lane : lanes.values()) {
+            if (lane.queue.isEmpty()) {
+                continue;
+            }
+            lane.current += lane.weight;
+            total += lane.weight;
+            if (best == null || lane.current > best.current) {
+                best = lane;
+            }
+        }
+        if (best != null) {
+            best.current -= total;
+        }
+        return best;
+    }
+
+    /**
+     * Schedules the next drain for when a waiting call can be admitted or the earliest one must be shed.
+     */
+    private void scheduleDrain(long now) {
+        if (closed || !anyQueued()) {
+            return;
+        }
+        long wake;
+        if (pausedUntil - now > 0) {
+            wake = pausedUntil;
+        } else if (hasPermit()) {
+            wake = now;
+        } else {
+            wake = now + (long) Math.ceil((1 - tokens) / permitsPerNano);
+        }
+        for (Lane lane : lanes.values()) {
+            Ticket head = lane.queue.peek();
+            if (head != null && head.deadline - wake < 0) {
+                wake = head.deadline;
+            }
+        }
+        if (drainScheduled && drainAt - wake <= 0) {
+            return;
+        }
+        drainScheduled = true;
+        drainAt = wake;
+        dispatcher.schedule(this::drain, Math.max(0, wake - now), TimeUnit.NANOSECONDS);
+    }
+
+    private boolean shouldRetry(TalonOneClientException ex, int retriesLeft, long deadline) {
+        if (ex.getStatusCode() != 429 || retriesLeft <= 0) {
+            return false;
+        }
+        synchronized (this) {
+            if (pausedUntil - deadline >= 0) {
+                return false;
+            }
+        }
+        rateLimitRetried.increment();
+        return true;
+    }
+
+    /**
+     * Waits for a blocking call's permit.
+     */
+    private void await(Lane lane, CompletableFuture<Void> grant, long deadline) {
+        try {
+            grant.get(Math.max(0, deadline - System.nanoTime()) + GRANT_GRACE_NANOS, TimeUnit.NANOSECONDS);
+            return;
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof TalonOneClientException) {
+                throw (TalonOneClientException) ex.getCause();
+            }
+            throw new TalonOneClientException("Unexpected error waiting for a Talon.One permit", ex.getCause());
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (TimeoutException ex) {
+            // The dispatcher did not get to it in time
+        }
+        if (!grant.cancel(false) && !grant.isCompletedExceptionally()) {
+            // Admitted in the meantime
+            return;
+        }
+        throw new TalonOneUnavailableException("Gave up waiting for a Talon.One " + lane.name + " permit");
+    }
+
+    private void refill(long now) {
+        if (unlimited) {
+            return;
+        }
+        long elapsed = now - refilledAt;
+        if (elapsed > 0) {
+            tokens = Math.min(burst, tokens + elapsed * permitsPerNano);
+            refilledAt = now;
+        }
+    }
+
+    private boolean hasPermit() {
+        return unlimited || tokens >= 1;
+    }
+
+    private void takePermit() {
+        if (!unlimited) {
+            tokens -= 1;
+        }
+    }
+
+    private boolean anyQueued() {
+        for (Lane lane : lanes.values()) {
+            if (!lane.queue.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Parses a {@code Retry-After} value, delay-seconds or an HTTP date, into a pause capped at the maximum.
+     */
+    private long retryAfterNanos(String retryAfter) {
+        long nanos = defaultRetryAfterNanos;
+        if (retryAfter != null && !retryAfter.isBlank()) {
+            String value = retryAfter.trim();
+            try {
+                if (Character.isDigit(value.charAt(0))) {
+                    nanos = TimeUnit.SECONDS.toNanos(Long.parseLong(value));
+                } else {
+                    ZonedDateTime at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+                    nanos = Math.max(0, Duration.between(ZonedDateTime.now(at.getZone()), at).toNanos());
+                }
+            } catch (NumberFormatException | DateTimeParseException | ArithmeticException ex) {
+                logger.debug("Ignoring unparseable Retry-After {}", value);
+            }
+        }
+        return Math.min(nanos, maxRetryAfterNanos);
+    }
+
+    /**
+     * The queue and statistics of one priority class.
+     */
+    public static final class Lane {
+        private final TalonOnePriority priority;
+        private final String name;
+        private final int weight;
+        private final long maxWaitNanos;
+        private final Timer waitTimer;
+        // Guarded by the scheduler
+        private final ArrayDeque<Ticket> queue = new ArrayDeque<>();
+        private int current;
+
+        private final LongAdder admitted = new LongAdder();
+        private final LongAdder shedQueueFull = new LongAdder();
+        private final LongAdder shedDeadline = new LongAdder();
+        private final LongAdder abandoned = new LongAdder();
+
+        Lane(TalonOnePriority priority, int weight, Duration maxWait, MeterRegistry meterRegistry) {
+            this.priority = priority;
+            this.name = priority.name().toLowerCase(Locale.ROOT);
+            this.weight = Math.max(1, weight);
+            this.maxWaitNanos = maxWait.toNanos();
+            this.waitTimer = Timer.builder(WAIT_TIMER)
+                    .description("Time Talon.One calls waited for a permit")
+                    .tag("priority", name)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        /**
+         * @return the class
+         */
+        public TalonOnePriority getPriority() {
+            return priority;
+        }
+
+        /**
+         * @return the number of calls admitted
+         */
+        public long getAdmitted() {
+            return admitted.sum();
+        }
+
+        /**
+         * @return the number of calls shed because the queue was full
+         */
+        public long getShedQueueFull() {
+            return shedQueueFull.sum();
+        }
+
+        /**
+         * @return the number of calls shed after waiting the maximum wait
+         */
+        public long getShedDeadline() {
+            return shedDeadline.sum();
+        }
+
+        /**
+         * @return the number of calls withdrawn by their caller while waiting
+         */
+        public long getAbandoned() {
+            return abandoned.sum();
+        }
+
+        /**
+         * @return the queue wait timer
+         */
+        public Timer getWaitTimer() {
+            return waitTimer;
+        }
+    }
+
+    /**
+     * One waiting call; completing its grant lets the call proceed.
+     */
+    private static final class Ticket {
+        private final CompletableFuture<Void> grant = new CompletableFuture<>();
+        private final Lane lane;
+        private final long enqueuedAt;
+        private final long deadline;
+
+        Ticket(Lane lane, long enqueuedAt, long deadline) {
+            this.lane = lane;
+            this.enqueuedAt = enqueuedAt;
+            this.deadline = deadline;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.app.talonone;
+
+/**
+ * Exception thrown when a Talon.One call is not attempted because its circuit breaker is open,
+ * its bulkhead is full or the local request queue is full.
+ */
+public class TalonOneUnavailableException extends TalonOneClientException {
+    public TalonOneUnavailableException(String message) {
+        super(message);
+    }
+
+    /**
+     * The call never reached Talon.One, so it says nothing about Talon.One's health.
+     */
+    @Override
+    public boolean isUpstreamFailure() {
+        return false;
+    }
+}
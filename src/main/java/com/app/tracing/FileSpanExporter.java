@@ -0,0 +1,107 @@
+package com.app.tracing;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * Appends exported spans to a file, one JSON object per line, for local testing without a collector.
+ * <p>
+ * Each line carries the trace, span and parent ids, name, kind, start and end epoch nanos, status and attributes.
+ * </p>
+ */
+public class FileSpanExporter implements SpanExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(FileSpanExporter.class);
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final OutputStream out;
+
+    /**
+     * Opens the file for appending, creating it if needed.
+     *
+     * @param path the file spans are appended to
+     * @throws IOException if the file cannot be opened
+     */
+    public FileSpanExporter(Path path) throws IOException {
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.out = new BufferedOutputStream(
+                Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND));
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> batch) {
+        try {
+            for (SpanData span : batch) {
+                write(span);
+            }
+            out.flush();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException ex) {
+            logger.warn("Failed to write {} spans", batch.size(), ex);
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    private void write(SpanData span) throws IOException {
+        JsonGenerator json = jsonFactory.createGenerator(out, JsonEncoding.UTF8);
+        json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        json.writeStartObject();
+        json.writeStringField("traceId", span.getTraceId());
+        json.writeStringField("spanId", span.getSpanId());
+        json.writeStringField("parentSpanId", span.getParentSpanId());
+        json.writeStringField("name", span.getName());
+        json.writeStringField("kind", span.getKind().name());
+        json.writeNumberField("startEpochNanos", span.getStartEpochNanos());
+        json.writeNumberField("endEpochNanos", span.getEndEpochNanos());
+        json.writeStringField("status", span.getStatus().getStatusCode().name());
+        json.writeObjectFieldStart("attributes");
+        for (Map.Entry<AttributeKey<?>, Object> attribute : span.getAttributes().asMap().entrySet()) {
+            json.writeStringField(attribute.getKey().getKey(), String.valueOf(attribute.getValue()));
+        }
+        json.writeEndObject();
+        json.writeEndObject();
+        json.close();
+        out.write('\n');
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        try {
+            synchronized (this) {
+                out.flush();
+            }
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException ex) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+
+    @Override
+    public synchronized CompletableResultCode shutdown() {
+        try {
+            out.close();
+            return CompletableResultCode.ofSuccess();
+        } catch (IOException ex) {
+            return CompletableResultCode.ofFailure();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.app.tracing;
+
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Keeps the most recent exported spans in memory, for local testing and for inspecting traces without a
+ * collector. Once {@code capacity} spans are held, the oldest are discarded.
+ */
+public class InMemorySpanExporter implements SpanExporter {
+
+    private final int capacity;
+    private final Deque<SpanData> spans = new ArrayDeque<>();
+
+    /**
+     * Constructs the exporter.
+     *
+     * @param capacity the maximum number of spans kept
+     */
+    public InMemorySpanExporter(int capacity) {
+        this.capacity = capacity;
+    }
+
+    @Override
+    public synchronized CompletableResultCode export(Collection<SpanData> batch) {
+        for (SpanData span : batch) {
+            if (spans.size() == capacity) {
+                spans.removeFirst();
+            }
+            spans.addLast(span);
+        }
+        return CompletableResultCode.ofSuccess();
+    }
+
+    /**
+     * @return a copy of the spans held, oldest first
+     */
+    public synchronized List<SpanData> getFinishedSpans() {
+        return new ArrayList<>(spans);
+    }
+
+    /**
+     * Discards all spans held.
+     */
+    public synchronized void reset() {
+        spans.clear();
+    }
+
+    @Override
+    public CompletableResultCode flush() {
+        return CompletableResultCode.ofSuccess();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        reset();
+        return CompletableResultCode.ofSuccess();
+    }
+}
@@ -0,0 +1,75 @@
+package com.app.tracing;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.lang.reflect.Method;
+
+/**
+ * Wraps every Spring Data repository in an interceptor that records a {@code db.repository} span per call,
+ * named {@code Repository.method} and tagged with the repository and method, so database time shows up in traces.
+ * <p>
+ * The interceptor is added through the repository factory, before the repository proxy is created, so it sees
+ * derived, {@code @Query} and inherited {@code CrudRepository} methods alike.
+ * </p>
+ */
+public class RepositoryObservationPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<ObservationRegistry> observationRegistry;
+
+    /**
+     * Constructs the post processor. The registry is resolved lazily, on the first repository call.
+     *
+     * @param observationRegistry provides the registry spans are recorded with
+     */
+    public RepositoryObservationPostProcessor(ObjectProvider<ObservationRegistry> observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(new ObservationInterceptor(
+                            repositoryInformation.getRepositoryInterface().getSimpleName()))));
+        }
+        return bean;
+    }
+
+    /**
+     * Records one span per repository method call.
+     */
+    private final class ObservationInterceptor implements MethodInterceptor {
+        private final String repository;
+
+        ObservationInterceptor(String repository) {
+            this.repository = repository;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            Method method = invocation.getMethod();
+            if (method.getDeclaringClass() == Object.class) {
+                return invocation.proceed();
+            }
+            Observation observation = Observation.createNotStarted("db.repository", observationRegistry.getObject())
+                    .contextualName(repository + "." + method.getName())
+                    .lowCardinalityKeyValue("repository", repository)
+                    .lowCardinalityKeyValue("method", method.getName())
+                    .start();
+            try (Observation.Scope scope = observation.openScope()) {
+                return invocation.proceed();
+            } catch (Throwable ex) {
+                observation.error(ex);
+                throw ex;
+            } finally {
+                observation.stop();
+            }
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.app.tracing;
+
+import io.opentelemetry.api.trace.SpanContext;
+import io.opentelemetry.api.trace.StatusCode;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Tail-based sampling: decides whether to export a trace once its local root span has ended, based on the whole
+ * trace rather than on a coin flip at its start.
+ * <p>
+ * Ended spans are buffered per trace. When the local root span (no parent, or a remote parent) ends, the trace is
+ * exported if any of its spans failed, if the root took longer than the latency threshold, or otherwise with the
+ * configured probability; kept spans are batched and handed to the exporter. Spans that
+ * end after the decision follow it. Traces whose root never ends locally are dropped after {@code maxTraceAgeNanos}.
+ * </p>
+ * <p>
+ * Every span is still recorded in memory until its trace is decided, so head sampling must be left at 1.0; the
+ * saving is in export and collector load, which dominates at full traffic.
+ * </p>
+ */
+public class TailSamplingSpanProcessor implements SpanProcessor {
+
+    private final SpanExporter exporter;
+    private final SpanProcessor delegate;
+    private final long latencyThresholdNanos;
+    private final double sampleRatio;
+    private final int maxTraces;
+    private final long maxTraceAgeNanos;
+
+    private final ConcurrentMap<String, PendingTrace> pending = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Decision> decided = new ConcurrentHashMap<>();
+
+    private final LongAdder tracesKept = new LongAdder();
+    private final LongAdder tracesDropped = new LongAdder();
+
+    /**
+     * Constructs the processor.
+     *
+     * @param exporter              receives the spans of kept traces, in batches
+     * @param latencyThresholdNanos traces whose root is slower than this are always kept
+     * @param sampleRatio           the probability (0..1) of keeping a fast, successful trace
+     * @param maxTraces             the maximum number of undecided traces buffered
+     * @param maxTraceAgeNanos      how long an undecided trace or a decision is kept
+     */
+    public TailSamplingSpanProcessor(SpanExporter exporter, long latencyThresholdNanos, double sampleRatio,
+                                     int maxTraces, long maxTraceAgeNanos) {
+        this.exporter = exporter;
+        this.delegate = BatchSpanProcessor.builder(exporter).build();
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.sampleRatio = sampleRatio;
+        this.maxTraces = maxTraces;
+        this.maxTraceAgeNanos = maxTraceAgeNanos;
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {
+        // Nothing to do until spans end
+    }
+
+    @Override
+    public boolean isStartRequired() {
+        return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+        String traceId = span.getSpanContext().getTraceId();
+        Decision decision = decided.get(traceId);
+        if (decision != null) {
+            if (decision.keep) {
+                delegate.onEnd(span);
+            }
+            return;
+        }
+
+        SpanContext parent = span.getParentSpanContext();
+        boolean localRoot = !parent.isValid() || parent.isRemote();
+        if (!localRoot) {
+            buffer(traceId, span);
+            return;
+        }
+
+        PendingTrace trace = pending.remove(traceId);
+        boolean keep = isError(span)
+                || span.getLatencyNanos() > latencyThresholdNanos
+                || (trace != null && trace.hasError())
+                || ThreadLocalRandom.current().nextDouble() < sampleRatio;
+        if (decided.size() >= maxTraces) {
+            evictExpired();
+        }
+        decided.put(traceId, new Decision(keep, System.nanoTime()));
+        // Spans buffered between the removal above and the decision being published
+        PendingTrace stragglers = pending.remove(traceId);
+        if (keep) {
+            tracesKept.increment();
+            flush(trace);
+            flush(stragglers);
+            delegate.onEnd(span);
+        } else {
+            tracesDropped.increment();
+        }
+    }
+
+    private void flush(PendingTrace trace) {
+        if (trace != null) {
+            synchronized (trace) {
+                trace.spans.forEach(delegate::onEnd);
+            }
+        }
+    }
+
+    private void buffer(String traceId, ReadableSpan span) {
+        if (pending.size() >= maxTraces && !pending.containsKey(traceId)) {
+            evictExpired();
+            if (pending.size() >= maxTraces) {
+                tracesDropped.increment();
+                return;
+            }
+        }
+        PendingTrace trace = pending.computeIfAbsent(traceId, id -> new PendingTrace(System.nanoTime()));
+        synchronized (trace) {
+            trace.spans.add(span);
+            trace.hasError |= isError(span);
+        }
+    }
+
+    private void evictExpired() {
+        long now = System.nanoTime();
+        pending.values().removeIf(trace -> now - trace.createdAt > maxTraceAgeNanos);
+        for (Iterator<Map.Entry<String, Decision>> it = decided.entrySet().iterator(); it.hasNext(); ) {
+            if (now - it.next().getValue().decidedAt > maxTraceAgeNanos) {
+                it.remove();
+            }
+        }
+        if (decided.size() >= maxTraces) {
+            // Decisions only route late spans; losing them just drops those spans
+            decided.clear();
+        }
+    }
+
+    private static boolean isError(ReadableSpan span) {
+        return span.toSpanData().getStatus().getStatusCode() == StatusCode.ERROR;
+    }
+
+    @Override
+    public boolean isEndRequired() {
+        return true;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+        return delegate.forceFlush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+        pending.clear();
+        decided.clear();
+        return delegate.shutdown();
+    }
+
+    /**
+     * @return the exporter kept traces are sent to
+     */
+    public SpanExporter getExporter() {
+        return exporter;
+    }
+
+    /**
+     * @return the number of traces exported
+     */
+    public long getTracesKept() {
+        return tracesKept.sum();
+    }
+
+    /**
+     * @return the number of traces dropped by sampling or because the buffer was full
+     */
+    public long getTracesDropped() {
+        return tracesDropped.sum();
+    }
+
+    /**
+     * Spans of a trace whose local root has not ended yet.
+     */
+    private static final class PendingTrace {
+        final long createdAt;
+        final List<ReadableSpan> spans = new ArrayList<>();
+        boolean hasError;
+
+        PendingTrace(long createdAt) {
+            this.createdAt = createdAt;
+        }
+
+        synchronized boolean hasError() {
+            return hasError;
+        }
+    }
+
+    private static final class Decision {
+        final boolean keep;
+        final long decidedAt;
+
+        Decision(boolean keep, long decidedAt) {
+            this.keep = keep;
+            this.decidedAt = decidedAt;
+        }
+    }
+}
@@ -0,0 +1,21 @@
+-- Moves orders, items and loyalty_outbox from IDENTITY ids to pooled sequences (allocationSize = 50),
+-- which lets Hibernate batch their inserts. Apply before deploying the matching application version.
+--
+-- Hibernate's pooled optimizer treats each sequence value as the upper end of a block of 50 ids,
+-- so every sequence is positioned at MAX(id) + 50: the first block handed out is MAX(id) + 1 .. MAX(id) + 50
+-- and existing ids are never reused.
+
+CREATE SEQUENCE IF NOT EXISTS orders_seq INCREMENT BY 50;
+SELECT setval('orders_seq', COALESCE((SELECT MAX(id) FROM orders), 0) + 50, false);
+ALTER TABLE orders ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE orders ALTER COLUMN id DROP DEFAULT;
+
+CREATE SEQUENCE IF NOT EXISTS items_seq INCREMENT BY 50;
+SELECT setval('items_seq', COALESCE((SELECT MAX(id) FROM items), 0) + 50, false);
+ALTER TABLE items ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE items ALTER COLUMN id DROP DEFAULT;
+
+CREATE SEQUENCE IF NOT EXISTS loyalty_outbox_seq INCREMENT BY 50;
+SELECT setval('loyalty_outbox_seq', COALESCE((SELECT MAX(id) FROM loyalty_outbox), 0) + 50, false);
+ALTER TABLE loyalty_outbox ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE loyalty_outbox ALTER COLUMN id DROP DEFAULT;
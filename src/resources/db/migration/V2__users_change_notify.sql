@@ -0,0 +1,18 @@
+-- Announces every updated or deleted user on the users_changed channel, so all application nodes can evict it
+-- from their User second-level cache (see UserChangeListener). Apply before deploying the matching version.
+--
+-- NOTIFY is transactional: listeners receive the id only once the writing transaction commits, and duplicate
+-- notifications for the same id within one transaction are collapsed. The trigger is FOR EACH ROW, so it also
+-- covers the batched statistics flush and writes made outside the application.
+
+CREATE OR REPLACE FUNCTION notify_users_changed() RETURNS trigger AS $$
+BEGIN
+    PERFORM pg_notify('users_changed', OLD.id::text);
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS users_changed ON users;
+CREATE TRIGGER users_changed
+    AFTER UPDATE OR DELETE ON users
+    FOR EACH ROW EXECUTE FUNCTION notify_users_changed();
@@ -0,0 +1,14 @@
+-- Indexes for the keyset-paginated order history (GET /users/{id}/orders, see OrderRepository).
+-- CREATE INDEX CONCURRENTLY does not block order inserts but cannot run inside a transaction:
+-- apply this script with autocommit on (e.g. psql without --single-transaction).
+--
+-- orders: a page is one descending range scan from the cursor position. The INCLUDE columns are everything the
+-- summary projection selects, so pages are served by index-only scans once the table is vacuumed.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS orders_user_created_id_idx
+    ON orders (user_id, created_at DESC, id DESC)
+    INCLUDE (total_amount, discount_applied, status);
+
+-- items: the items of a page are fetched with one order_id = ANY(...) lookup, in item order.
+CREATE INDEX CONCURRENTLY IF NOT EXISTS items_order_id_idx
+    ON items (order_id, id)
+    INCLUDE (sku, name, quantity, price);
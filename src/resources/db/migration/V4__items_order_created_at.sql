@@ -0,0 +1,7 @@
+-- Step 1 of 3 of partitioning orders and items by month (V4 to V6). Apply before deploying the matching
+-- application version, which writes the new column on every item.
+--
+-- items gets a copy of its order's created_at, the key the items table will be partitioned on so an order and
+-- its items share a month. Adding a nullable column without a default only changes the catalog.
+
+ALTER TABLE items ADD COLUMN IF NOT EXISTS order_created_at bigint;
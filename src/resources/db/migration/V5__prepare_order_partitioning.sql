@@ -0,0 +1,54 @@
+-- Step 2 of 3 of partitioning orders and items by month. Apply after the application version writing
+-- items.order_created_at is deployed everywhere, with autocommit on (CONCURRENTLY cannot run in a transaction).
+-- Nothing here blocks order inserts.
+--
+-- The existing tables become the first partition of the partitioned tables (V6), covering everything created
+-- before the cutover: the start of the month after next. Attaching them without a full scan under an exclusive
+-- lock needs, ahead of time, valid constraints proving their rows fall in that range and the unique indexes the
+-- partitioned primary keys will require. V6 must be applied before the cutover; until then the constraints
+-- accept every new order.
+
+CREATE TABLE IF NOT EXISTS order_partitioning (
+    cutover bigint NOT NULL -- Unix epoch millis, a month boundary in UTC
+);
+INSERT INTO order_partitioning (cutover)
+SELECT (EXTRACT(EPOCH FROM date_trunc('month', now() AT TIME ZONE 'UTC') + interval '2 months') * 1000)::bigint
+WHERE NOT EXISTS (SELECT 1 FROM order_partitioning);
+
+-- Items written before the deployment; in batches, so no long-running transaction holds row locks
+DO $$
+DECLARE
+    updated integer;
+BEGIN
+    LOOP
+        UPDATE items i SET order_created_at = o.created_at
+        FROM orders o
+        WHERE o.id = i.order_id
+          AND i.id IN (SELECT id FROM items WHERE order_created_at IS NULL LIMIT 10000);
+        GET DIAGNOSTICS updated = ROW_COUNT;
+        EXIT WHEN updated = 0;
+        COMMIT;
+    END LOOP;
+END;
+$$;
+
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS orders_id_created_at_key ON orders (id, created_at);
+CREATE UNIQUE INDEX CONCURRENTLY IF NOT EXISTS items_id_order_created_at_key ON items (id, order_created_at);
+
+-- NOT VALID takes effect for new rows at once; VALIDATE then scans without blocking writes
+DO $$
+DECLARE
+    bound bigint := (SELECT cutover FROM order_partitioning);
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'orders_before_cutover') THEN
+        EXECUTE format('ALTER TABLE orders ADD CONSTRAINT orders_before_cutover '
+                       'CHECK (created_at IS NOT NULL AND created_at < %s) NOT VALID', bound);
+    END IF;
+    IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = 'items_before_cutover') THEN
+        EXECUTE format('ALTER TABLE items ADD CONSTRAINT items_before_cutover '
+                       'CHECK (order_created_at IS NOT NULL AND order_created_at < %s) NOT VALID', bound);
+    END IF;
+END;
+$$;
+ALTER TABLE orders VALIDATE CONSTRAINT orders_before_cutover;
+ALTER TABLE items VALIDATE CONSTRAINT items_before_cutover;
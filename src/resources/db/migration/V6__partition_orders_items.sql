@@ -0,0 +1,80 @@
+-- Step 3 of 3 of partitioning orders and items by month. Apply after V5 and before its cutover
+-- (SELECT to_timestamp(cutover / 1000) FROM order_partitioning). Runs in one short transaction: every statement
+-- only changes the catalog, the constraints and indexes prepared by V5 spare the scans.
+--
+-- orders and items are renamed to orders_legacy and items_legacy and attached as the partitions for everything
+-- before the cutover; monthly partitions from the cutover on are created here and then kept ahead by
+-- OrderPartitionManager. OrderPartitionArchiver later detaches and exports partitions past the retention,
+-- the legacy ones last.
+--
+-- Primary keys of partitioned tables must include the partition key, so they become (id, created_at) and
+-- (id, order_created_at); ids stay unique through their sequences. Foreign keys to orders(id) are dropped, as no
+-- unique constraint on id alone can exist, and so is the one from orders to users, which could not be added to
+-- the partitioned table without scanning all of it; the entities declare their references without constraints.
+
+BEGIN;
+
+SET LOCAL lock_timeout = '5s';
+LOCK TABLE orders, items IN ACCESS EXCLUSIVE MODE;
+
+DO $$
+DECLARE
+    fk record;
+BEGIN
+    FOR fk IN SELECT conrelid::regclass AS tbl, conname FROM pg_constraint
+              WHERE contype = 'f' AND (confrelid = 'orders'::regclass OR conrelid IN ('orders'::regclass, 'items'::regclass))
+    LOOP
+        EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.tbl, fk.conname);
+    END LOOP;
+END;
+$$;
+
+ALTER TABLE orders RENAME TO orders_legacy;
+ALTER INDEX orders_user_created_id_idx RENAME TO orders_legacy_user_created_id_idx;
+ALTER INDEX orders_id_created_at_key RENAME TO orders_legacy_id_created_at_key;
+ALTER TABLE items RENAME TO items_legacy;
+ALTER INDEX items_order_id_idx RENAME TO items_legacy_order_id_idx;
+ALTER INDEX items_id_order_created_at_key RENAME TO items_legacy_id_order_created_at_key;
+
+-- Proven by the V5 constraints, so neither statement scans
+ALTER TABLE orders_legacy ALTER COLUMN created_at SET NOT NULL;
+ALTER TABLE items_legacy ALTER COLUMN order_created_at SET NOT NULL;
+
+CREATE TABLE orders (LIKE orders_legacy INCLUDING DEFAULTS) PARTITION BY RANGE (created_at);
+ALTER TABLE orders ADD PRIMARY KEY (id, created_at);
+CREATE INDEX orders_user_created_id_idx ON orders (user_id, created_at DESC, id DESC)
+    INCLUDE (total_amount, discount_applied, status);
+
+CREATE TABLE items (LIKE items_legacy INCLUDING DEFAULTS) PARTITION BY RANGE (order_created_at);
+ALTER TABLE items ADD PRIMARY KEY (id, order_created_at);
+CREATE INDEX items_order_id_idx ON items (order_id, id) INCLUDE (sku, name, quantity, price);
+
+-- The matching indexes of the legacy tables are attached as the partitions' indexes
+DO $$
+DECLARE
+    bound bigint := (SELECT cutover FROM order_partitioning);
+    month_start timestamp := to_timestamp(bound / 1000) AT TIME ZONE 'UTC';
+    next_start timestamp;
+    suffix text;
+BEGIN
+    EXECUTE format('ALTER TABLE orders ATTACH PARTITION orders_legacy FOR VALUES FROM (MINVALUE) TO (%s)', bound);
+    EXECUTE format('ALTER TABLE items ATTACH PARTITION items_legacy FOR VALUES FROM (MINVALUE) TO (%s)', bound);
+
+    -- The partitions from the cutover month on, so inserts never lack one before the manager first runs
+    FOR i IN 0..2 LOOP
+        next_start := month_start + interval '1 month';
+        suffix := to_char(month_start, 'YYYYMM');
+        EXECUTE format('CREATE TABLE orders_p%s PARTITION OF orders FOR VALUES FROM (%s) TO (%s)', suffix,
+                       (EXTRACT(EPOCH FROM month_start) * 1000)::bigint, (EXTRACT(EPOCH FROM next_start) * 1000)::bigint);
+        EXECUTE format('CREATE TABLE items_p%s PARTITION OF items FOR VALUES FROM (%s) TO (%s)', suffix,
+                       (EXTRACT(EPOCH FROM month_start) * 1000)::bigint, (EXTRACT(EPOCH FROM next_start) * 1000)::bigint);
+        month_start := next_start;
+    END LOOP;
+END;
+$$;
+
+-- Served their purpose; the partition bounds now hold the same guarantee
+ALTER TABLE orders_legacy DROP CONSTRAINT orders_before_cutover;
+ALTER TABLE items_legacy DROP CONSTRAINT items_before_cutover;
+
+COMMIT;
@@ -0,0 +1,20 @@
+-- Narrows the users_changed trigger of V2 to the columns other nodes cannot learn about any other way. Apply
+-- before deploying the matching application version.
+--
+-- pg_notify takes a database-wide lock at commit, so notifying on every statistics UPDATE serialized all checkout
+-- commits. Order statistics (total_orders, total_spent) no longer fire the trigger: the writing node evicts its
+-- own cache and UserChangeListener announces the changed ids to the other nodes in one coalesced notification per
+-- interval. UPDATE OF also fires for columns merely listed in the SET clause, as Hibernate does for every column,
+-- so the WHEN clause skips updates that leave the profile unchanged.
+
+DROP TRIGGER IF EXISTS users_changed ON users;
+CREATE TRIGGER users_changed
+    AFTER UPDATE OF email, name, loyalty_points ON users
+    FOR EACH ROW
+    WHEN ((OLD.email, OLD.name, OLD.loyalty_points) IS DISTINCT FROM (NEW.email, NEW.name, NEW.loyalty_points))
+    EXECUTE FUNCTION notify_users_changed();
+
+DROP TRIGGER IF EXISTS users_deleted ON users;
+CREATE TRIGGER users_deleted
+    AFTER DELETE ON users
+    FOR EACH ROW EXECUTE FUNCTION notify_users_changed();
@@ -0,0 +1,55 @@
+#!/usr/bin/env bash
+# Starts the application once per startup mode and prints one JSON report line per mode from /internal/startup:
+# time from process start to ready, and latency of the first request.
+#
+# Required:  APP_JAR       the executable jar (jvm and cds modes)
+# Optional:  AOT_JAR       a jar built with AOT processing (aot and aot-cds modes)
+#            CDS_ARCHIVE   the CDS archive of APP_JAR, AOT_CDS_ARCHIVE the one of AOT_JAR
+#            NATIVE_BIN    the native executable (native mode)
+#            APP_PORT (8080), USER_ID (1), APP_ARGS (extra application arguments, e.g. --spring.profiles.active=faststart)
+# Modes default to every one whose artifacts are set; pass them as arguments to choose, e.g. jvm native
+set -euo pipefail
+
+: "${APP_JAR:?set APP_JAR}"
+APP_PORT="${APP_PORT:-8080}"
+USER_ID="${USER_ID:-1}"
+APP_ARGS="${APP_ARGS:-}"
+BASE="http://127.0.0.1:$APP_PORT"
+
+modes=("$@")
+if [[ ${#modes[@]} -eq 0 ]]; then
+  modes=(jvm)
+  [[ -n "${CDS_ARCHIVE:-}" ]] && modes+=(cds)
+  [[ -n "${AOT_JAR:-}" ]] && modes+=(aot)
+  [[ -n "${AOT_JAR:-}" && -n "${AOT_CDS_ARCHIVE:-}" ]] && modes+=(aot-cds)
+  [[ -n "${NATIVE_BIN:-}" ]] && modes+=(native)
+fi
+
+start() {
+  # shellcheck disable=SC2086
+  case "$1" in
+    jvm)     java -jar "$APP_JAR" --server.port="$APP_PORT" $APP_ARGS ;;
+    cds)     java -XX:SharedArchiveFile="$CDS_ARCHIVE" -jar "$APP_JAR" --server.port="$APP_PORT" $APP_ARGS ;;
+    aot)     java -Dspring.aot.enabled=true -jar "$AOT_JAR" --server.port="$APP_PORT" $APP_ARGS ;;
+    aot-cds) java -Dspring.aot.enabled=true -XX:SharedArchiveFile="$AOT_CDS_ARCHIVE" -jar "$AOT_JAR" \
+               --server.port="$APP_PORT" $APP_ARGS ;;
+    native)  "$NATIVE_BIN" --server.port="$APP_PORT" $APP_ARGS ;;
+    *)       echo "unknown mode $1" >&2; exit 2 ;;
+  esac
+}
+
+for mode in "${modes[@]}"; do
+  start "$mode" >"startup-$mode.log" 2>&1 &
+  APP_PID=$!
+  trap 'kill "$APP_PID" 2>/dev/null || true' EXIT
+  until curl -sf "$BASE/actuator/health" >/dev/null; do
+    kill -0 "$APP_PID" 2>/dev/null || { echo "$mode: application exited, see startup-$mode.log" >&2; exit 1; }
+    sleep 0.05
+  done
+  # The first request: a user lookup touches the web layer, JPA and the second-level cache
+  curl -s -o /dev/null "$BASE/users/$USER_ID"
+  curl -sf "$BASE/internal/startup"
+  echo
+  kill "$APP_PID"
+  wait "$APP_PID" 2>/dev/null || true
+done
@@ -0,0 +1,78 @@
+package com.app.config;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Local stand-in for the Talon.One Integration API, as the one the benchmarks use, that answers every operation
+ * after a fixed delay: session evaluations with an empty JSON object, profile updates and loyalty confirmations
+ * with an empty 204.
+ */
+final class TalonOneStubServer implements AutoCloseable {
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final long delayMillis;
+
+    /**
+     * Starts the server on an ephemeral loopback port.
+     *
+     * @param delayMillis how long every request waits before it is answered
+     * @throws IOException if the server cannot be bound
+     */
+    TalonOneStubServer(long delayMillis) throws IOException {
+        this.delayMillis = delayMillis;
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 64);
+        executor = Executors.newFixedThreadPool(8);
+        server.setExecutor(executor);
+        server.createContext("/v1/sessions", exchange -> respond(exchange, 200,
+                "{}".getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/v1/profiles/", exchange -> respond(exchange, 204, null));
+        server.createContext("/v1/loyalty/", exchange -> respond(exchange, 204, null));
+        server.start();
+    }
+
+    /**
+     * @return the base URL to send requests to
+     */
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    private void respond(HttpExchange exchange, int status, byte[] body) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        try {
+            Thread.sleep(delayMillis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            exchange.close();
+            return;
+        }
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+        } else {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(status, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        exchange.close();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+}
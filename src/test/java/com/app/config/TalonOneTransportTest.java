@@ -0,0 +1,90 @@
+package com.app.config;
+
+import com.app.talonone.TalonOneOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TalonOneTransportTest {
+
+    private static final long STUB_DELAY_MILLIS = 500;
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    private TalonOneStubServer stub;
+
+    @AfterEach
+    void stopStub() {
+        if (stub != null) {
+            stub.close();
+        }
+    }
+
+    @Test
+    void appliesEachOperationsOwnReadTimeout() throws Exception {
+        stub = new TalonOneStubServer(STUB_DELAY_MILLIS);
+        Map<TalonOneOperation, Duration> timeouts = new EnumMap<>(TalonOneOperation.class);
+        timeouts.put(TalonOneOperation.EVALUATE_SESSION, Duration.ofMillis(100));
+        timeouts.put(TalonOneOperation.UPDATE_PROFILE, Duration.ofSeconds(5));
+        RestTemplate restTemplate = new RestTemplate(
+                new TalonOneRequestFactory(httpClient, Duration.ofSeconds(5), timeouts));
+
+        long start = System.nanoTime();
+        assertThrows(ResourceAccessException.class, () ->
+                restTemplate.postForEntity(stub.baseUrl() + "/v1/sessions/s1", "{}", String.class));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis < STUB_DELAY_MILLIS, "evaluation waited " + elapsedMillis + " ms");
+
+        // Same client and connection pool, longer timeout: the profile update outlasts the stub's delay
+        ResponseEntity<Void> updated = restTemplate.exchange(stub.baseUrl() + "/v1/profiles/u1", HttpMethod.PUT,
+                new HttpEntity<>("{}"), Void.class);
+        assertEquals(HttpStatus.NO_CONTENT, updated.getStatusCode());
+    }
+
+    @Test
+    void rejectsRequestsBeyondTheRouteLimit() throws Exception {
+        stub = new TalonOneStubServer(STUB_DELAY_MILLIS);
+        TalonOneConnectionLimiter limiter = new TalonOneConnectionLimiter(1, Duration.ofMillis(50));
+        RestTemplate restTemplate = new RestTemplate(
+                new TalonOneRequestFactory(httpClient, Duration.ofSeconds(5), Map.of()));
+        restTemplate.setInterceptors(List.of(limiter));
+        String url = stub.baseUrl() + "/v1/loyalty/u1/confirm";
+
+        CompletableFuture<ResponseEntity<Void>> holder = CompletableFuture.supplyAsync(() ->
+                restTemplate.postForEntity(url, "{}", Void.class));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (limiter.getInFlight() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+        assertEquals(1, limiter.getInFlight());
+
+        ResourceAccessException rejected = assertThrows(ResourceAccessException.class, () ->
+                restTemplate.postForEntity(url, "{}", Void.class));
+        assertTrue(rejected.getMessage().contains("pool exhausted"), rejected.getMessage());
+        assertEquals(1, limiter.getRejected());
+
+        // The permit is returned with the first response, so the route is usable again
+        assertEquals(HttpStatus.NO_CONTENT, holder.get(5, TimeUnit.SECONDS).getStatusCode());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(HttpStatus.NO_CONTENT, restTemplate.postForEntity(url, "{}", Void.class).getStatusCode());
+    }
+}
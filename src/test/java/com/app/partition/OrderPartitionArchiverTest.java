@@ -0,0 +1,61 @@
+package com.app.partition;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrderPartitionArchiverTest {
+
+    private static final String CSV = "id,user_id,created_at\n1,7,1700000000000\n2,7,1700000001000\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void writesSyncedArchiveAndRenamesIt() throws Exception {
+        long rows = OrderPartitionArchiver.writeArchive(directory.resolve("archive"), "orders_p202301", 2,
+                out -> {
+                    out.write(CSV.getBytes(StandardCharsets.UTF_8));
+                    return 2;
+                });
+
+        assertEquals(2, rows);
+        Path archive = directory.resolve("archive").resolve("orders_p202301.csv.gz");
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(archive))) {
+            assertEquals(CSV, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertFalse(Files.exists(directory.resolve("archive").resolve("orders_p202301.csv.gz.tmp")));
+    }
+
+    @Test
+    void leavesNoFileWhenRowCountDiffers() {
+        assertThrows(IOException.class, () -> OrderPartitionArchiver.writeArchive(directory, "items_p202301", 3,
+                out -> {
+                    out.write(CSV.getBytes(StandardCharsets.UTF_8));
+                    return 2;
+                }));
+
+        assertFalse(Files.exists(directory.resolve("items_p202301.csv.gz")));
+        assertFalse(Files.exists(directory.resolve("items_p202301.csv.gz.tmp")));
+    }
+
+    @Test
+    void leavesNoFileWhenWriterFails() {
+        assertThrows(IOException.class, () -> OrderPartitionArchiver.writeArchive(directory, "orders_p202302", 1,
+                out -> {
+                    throw new IOException("copy failed");
+                }));
+
+        assertFalse(Files.exists(directory.resolve("orders_p202302.csv.gz.tmp")));
+    }
+}
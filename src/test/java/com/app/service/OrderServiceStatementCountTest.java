@@ -0,0 +1,111 @@
+package com.app.service;
+
+import com.app.AppApplication;
+import com.app.model.CartItemDTO;
+import com.app.model.CartRequest;
+import com.app.model.OrderRequest;
+import com.app.model.RewardsResponse;
+import com.app.model.User;
+import com.app.repository.UserRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Pins the statement count of {@link OrderService#saveOrder} with write-behind off: one JDBC UPDATE of the user's
+ * stats, and through Hibernate one INSERT of the order, one batched INSERT of its items and one INSERT into the
+ * outbox, whatever the cart size. The user is never loaded.
+ */
+class OrderServiceStatementCountTest {
+
+    private static ConfigurableApplicationContext context;
+    private static OrderService orderService;
+    private static Statistics statistics;
+    private static JdbcTemplate jdbcTemplate;
+    private static long userId;
+
+    @BeforeAll
+    static void startApplication() {
+        context = new SpringApplicationBuilder(AppApplication.class)
+                .properties(
+                        "spring.main.web-application-type=none",
+                        "spring.main.banner-mode=off",
+                        "spring.datasource.url=jdbc:h2:mem:statements;MODE=PostgreSQL;DB_CLOSE_DELAY=-1",
+                        "spring.datasource.username=sa",
+                        "spring.datasource.password=",
+                        "spring.jpa.hibernate.ddl-auto=create-drop",
+                        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+                        "spring.jpa.properties.hibernate.order_inserts=true",
+                        "spring.flyway.enabled=false",
+                        "talonone.base-url=http://127.0.0.1:9",
+                        "talonone.loyalty.outbox.poll-interval=3600000",
+                        "users.stats.write-behind.enabled=false",
+                        "tracing.exporter=none",
+                        "logging.level.root=WARN")
+                .run();
+        orderService = context.getBean(OrderService.class);
+        statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        User user = User.builder().email("statements@example.com").name("Statement Count").build();
+        userId = context.getBean(UserRepository.class).save(user).getId();
+
+        // Fetches the first block of every pooled sequence, so the measured orders draw IDs from memory
+        orderService.saveOrder(order(1), null);
+    }
+
+    @AfterAll
+    static void stopApplication() {
+        context.close();
+    }
+
+    @Test
+    void singleItemOrderRunsFixedStatements() {
+        assertStatementCount(1);
+    }
+
+    @Test
+    void largeOrderRunsTheSameStatements() {
+        assertStatementCount(20);
+    }
+
+    private static void assertStatementCount(int itemCount) {
+        int ordersBefore = totalOrders();
+        statistics.clear();
+
+        orderService.saveOrder(order(itemCount), RewardsResponse.builder().discountAmount(1.0).build());
+
+        // Order, item batch and outbox entry; the stats UPDATE goes through JDBC, so it is checked by its effect
+        assertEquals(3, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(0, statistics.getQueryExecutionCount());
+        assertEquals(1 + itemCount + 1, statistics.getEntityInsertCount());
+        assertEquals(ordersBefore + 1, totalOrders());
+    }
+
+    private static int totalOrders() {
+        return jdbcTemplate.queryForObject("SELECT total_orders FROM users WHERE id = ?", Integer.class, userId);
+    }
+
+    private static OrderRequest order(int itemCount) {
+        List<CartItemDTO> items = new ArrayList<>(itemCount);
+        double total = 0;
+        for (int i = 0; i < itemCount; i++) {
+            items.add(CartItemDTO.builder().sku("SKU-" + i).name("Product " + i).quantity(1).price(10.0).build());
+            total += 10.0;
+        }
+        CartRequest cart = CartRequest.builder().userId(userId).items(items).totalAmount(total).build();
+        return OrderRequest.builder().userId(userId).cart(cart).build();
+    }
+}